@@ -0,0 +1,106 @@
+package com.example.androidchatproject.repository;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.androidchatproject.database.ChatsCacheHelper;
+import com.example.androidchatproject.database.MessageSearchIndex;
+import com.example.androidchatproject.model.chats.ChatDetailResponse;
+import com.example.androidchatproject.model.chats.MessageResponse;
+import com.example.androidchatproject.model.chats.MessageSearchHit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * La búsqueda de mensajes responde dentro del presupuesto con una caché grande
+ * Se guardan 100.000 mensajes (100 chats de 1000) y se mide una búsqueda nueva de una
+ * palabra que aparece en todos, el peor caso para el ranking, y una de una palabra rara.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MessageSearchPerformanceTest {
+
+    private static final int CHATS = 100;
+    private static final int MESSAGES_PER_CHAT = 1000;
+    private static final int PAGE_SIZE = 20;
+    private static final long BUDGET_MILLIS = 50;
+
+    private ChatsCacheHelper cacheHelper;
+    private MessageSearchIndex searchIndex;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        cacheHelper = new ChatsCacheHelper(context);
+        searchIndex = new MessageSearchIndex(context);
+        for (int chat = 0; chat < CHATS; chat++) {
+            cacheHelper.cacheChatDetail(detail(chatId(chat), chat));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (int chat = 0; chat < CHATS; chat++) {
+            cacheHelper.clearChatDetailCache(chatId(chat));
+        }
+    }
+
+    @Test
+    public void commonWordSearchStaysUnderBudget() {
+        // Primera búsqueda fuera de la medición: abre la base y carga el índice
+        searchIndex.search("calentar", 0, PAGE_SIZE);
+
+        long start = System.nanoTime();
+        List<MessageSearchHit> hits = searchIndex.search("buscable", 0, PAGE_SIZE);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(PAGE_SIZE, hits.size());
+        assertTrue("Búsqueda común en " + elapsed + " ms", elapsed < BUDGET_MILLIS);
+    }
+
+    @Test
+    public void rareWordSearchStaysUnderBudget() {
+        searchIndex.search("calentar", 0, PAGE_SIZE);
+
+        long start = System.nanoTime();
+        List<MessageSearchHit> hits = searchIndex.search("aguja", 0, PAGE_SIZE);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+        assertFalse(hits.isEmpty());
+        assertTrue("Búsqueda rara en " + elapsed + " ms", elapsed < BUDGET_MILLIS);
+    }
+
+    private static String chatId(int chat) {
+        return "chat-search-" + chat;
+    }
+
+    private static ChatDetailResponse detail(String chatId, int chat) {
+        List<MessageResponse> messages = new ArrayList<>(MESSAGES_PER_CHAT);
+        for (int i = 0; i < MESSAGES_PER_CHAT; i++) {
+            MessageResponse message = new MessageResponse();
+            message.setId("m-" + i);
+            message.setSenderId("user-search");
+            // Todos llevan "buscable"; uno de cada mil lleva además "aguja"
+            message.setContent("mensaje buscable " + i + " del chat " + chat + (i == 500 ? " aguja" : ""));
+            message.setCreatedAt(String.format("2025-01-01T%02d:%02d:%02d", i / 3600, i / 60 % 60, i % 60));
+            messages.add(message);
+        }
+        ChatDetailResponse detail = new ChatDetailResponse();
+        detail.setId(chatId);
+        detail.setUser("user-search");
+        detail.setUsername("search");
+        detail.setMessages(messages);
+        return detail;
+    }
+}
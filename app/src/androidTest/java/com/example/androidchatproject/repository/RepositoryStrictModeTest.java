@@ -0,0 +1,156 @@
+package com.example.androidchatproject.repository;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.StrictMode;
+import android.os.strictmode.Violation;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.androidchatproject.database.AppDatabase;
+import com.example.androidchatproject.database.ChatsCacheHelper;
+import com.example.androidchatproject.helper.MessageWindow;
+import com.example.androidchatproject.model.chats.ChatDetailResponse;
+import com.example.androidchatproject.model.chats.ChatItem;
+import com.example.androidchatproject.model.chats.MessageResponse;
+import com.example.androidchatproject.model.user.UserListItem;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Las operaciones de los repositorios llamadas desde el hilo principal no hacen I/O en él
+ * StrictMode detecta lecturas y escrituras de disco en el hilo principal y las registra
+ * con un listener (API 28+); el primer test comprueba que el detector funciona.
+ * La base se cierra antes de cada test para que la apertura (acceso a archivos) también cuente.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RepositoryStrictModeTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final List<Violation> violations = Collections.synchronizedList(new ArrayList<>());
+    private Context context;
+    private StrictMode.ThreadPolicy previousPolicy;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Build.VERSION.SDK_INT >= Build.VERSION_CODES.P);
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        AppDatabase.getInstance(context).close();
+        onMainThread(() -> {
+            previousPolicy = StrictMode.getThreadPolicy();
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyListener(Runnable::run, violations::add)
+                    .build());
+        });
+    }
+
+    @After
+    public void tearDown() {
+        if (previousPolicy != null) {
+            onMainThread(() -> StrictMode.setThreadPolicy(previousPolicy));
+        }
+    }
+
+    @Test
+    public void helperOnMainThreadIsDetected() {
+        onMainThread(() -> new ChatsCacheHelper(context).getCachedChats());
+
+        assertFalse("StrictMode no detectó la lectura en el hilo principal", violations.isEmpty());
+    }
+
+    @Test
+    public void repositoriesKeepDiskIoOffTheMainThread() throws Exception {
+        ChatsRepository chats = ChatsRepository.getInstance(context);
+        UsersRepository users = UsersRepository.getInstance(context);
+        MessageWindow window = chats.openMessageWindow("chat-strict", 20);
+        CountDownLatch done = new CountDownLatch(6);
+        List<Object> results = Collections.synchronizedList(new ArrayList<>());
+
+        onMainThread(() -> {
+            chats.cacheChats(Collections.singletonList(chat("chat-strict", "user-strict")), written -> {
+                results.add(written);
+                done.countDown();
+            });
+            users.cacheUsers(Collections.singletonList(new UserListItem("strict", "user-strict", null)));
+            // Un solo hilo escritor: al llegar este callback las escrituras anteriores ya están confirmadas
+            chats.cacheChatDetail(detail("chat-strict", 30), window, messages -> {
+                results.add(messages);
+                done.countDown();
+                users.getCachedUsers(cached -> {
+                    results.add(cached);
+                    done.countDown();
+                });
+                chats.getCachedChats(cached -> {
+                    results.add(cached);
+                    done.countDown();
+                });
+                chats.findChatByUserId("user-strict", chat -> {
+                    results.add(chat);
+                    done.countDown();
+                });
+                chats.loadOlder(window, added -> {
+                    results.add(added);
+                    done.countDown();
+                });
+            });
+        });
+
+        assertTrue("Los callbacks no llegaron", done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(6, results.size());
+        for (Object result : results) {
+            assertNotNull(result);
+        }
+        assertTrue("I/O en el hilo principal: " + violations, violations.isEmpty());
+    }
+
+    private static void onMainThread(Runnable task) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(task);
+    }
+
+    private static ChatItem chat(String chatId, String userId) {
+        ChatItem chat = new ChatItem();
+        chat.setId(chatId);
+        chat.setUser(userId);
+        chat.setUsername("strict");
+        chat.setLastMessage("hola");
+        chat.setLastMessageId("m-0");
+        return chat;
+    }
+
+    private static ChatDetailResponse detail(String chatId, int messageCount) {
+        List<MessageResponse> messages = new ArrayList<>();
+        for (int i = 0; i < messageCount; i++) {
+            MessageResponse message = new MessageResponse();
+            message.setId("m-" + i);
+            message.setSenderId("user-strict");
+            message.setContent("mensaje " + i);
+            message.setCreatedAt(String.format("2025-01-01T00:00:%02d", i));
+            messages.add(message);
+        }
+        ChatDetailResponse detail = new ChatDetailResponse();
+        detail.setId(chatId);
+        detail.setUser("user-strict");
+        detail.setUsername("strict");
+        detail.setMessages(messages);
+        return detail;
+    }
+}
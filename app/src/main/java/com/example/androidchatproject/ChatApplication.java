@@ -0,0 +1,28 @@
+package com.example.androidchatproject;
+
+import android.app.Application;
+
+import com.example.androidchatproject.network.ConnectionPrewarmer;
+import com.example.androidchatproject.network.GsonProvider;
+import com.example.androidchatproject.network.HttpResponseCache;
+import com.example.androidchatproject.session.SessionStore;
+
+/**
+ * Application del proceso
+ * Arranca el pre-calentamiento de la conexión antes de crear la primera Activity,
+ * para que DNS, TLS y el arranque del backend no queden en el camino crítico de MainActivity,
+ * resuelve los adapters de GSON de las respuestas más frecuentes, abre la cache HTTP fuera del
+ * hilo principal y lee la sesión guardada en un hilo de la base de datos, antes de que la
+ * primera Activity pida el token.
+ */
+public class ChatApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        ConnectionPrewarmer.getInstance().prewarm(this);
+        GsonProvider.prewarm();
+        HttpResponseCache.installInBackground(this);
+        SessionStore.getInstance(this).preload();
+    }
+}
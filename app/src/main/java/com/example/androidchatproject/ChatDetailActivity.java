@@ -2,6 +2,7 @@ package com.example.androidchatproject;
 
 import android.app.DownloadManager;
 import android.content.Intent;
+import android.database.Cursor;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.net.Uri;
@@ -9,8 +10,10 @@ import android.os.Bundle;
 import android.os.Environment;
 import android.os.Handler;
 import android.os.Looper;
+import android.provider.OpenableColumns;
 import android.util.Log;
 import android.view.View;
+import android.widget.AbsListView;
 import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.ImageView;
@@ -24,26 +27,27 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.androidchatproject.adapter.MessagesAdapter;
-import com.example.androidchatproject.database.ChatsCacheHelper;
+import com.example.androidchatproject.config.ApiConfig;
+import com.example.androidchatproject.repository.ChatsRepository;
 import com.example.androidchatproject.model.chats.ChatDetailResponse;
 import com.example.androidchatproject.model.chats.MessageResponse;
 import com.example.androidchatproject.model.chats.SendMessageResponse;
 import com.example.androidchatproject.network.ApiHttpClientChats;
 import com.example.androidchatproject.session.SessionManager;
+import com.example.androidchatproject.helper.MessageWindow;
 import com.example.androidchatproject.helper.ProfileImageLoader;
 import com.example.androidchatproject.helpers.NotificationHelper;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
 import java.util.List;
 
 public class ChatDetailActivity extends AppCompatActivity {
     
     private static final String TAG = "ChatDetailActivity";
-    private static final int MAX_FILE_SIZE = 40 * 1024 * 1024; // 40 MB
+    private static final long MAX_FILE_SIZE = ApiConfig.MAX_ATTACHMENT_SIZE; // 40 MB
+    private static final int MESSAGE_PAGE_SIZE = 50; // mensajes por página de la ventana
     
     // UI Components
     private MaterialToolbar toolbar;
@@ -65,17 +69,24 @@ public class ChatDetailActivity extends AppCompatActivity {
     private String otherUsername;
     private String otherUserProfileImg;
     private String currentUserId;
+    private ChatDetailResponse lastDetailResponse;
+    
+    // Ventana de mensajes visibles (se lee de la cache local por páginas)
+    private MessageWindow messageWindow;
+    private boolean loadingOlder = false;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     
     // Managers
     private SessionManager sessionManager;
     private ApiHttpClientChats apiHttpClient;
-    private ChatsCacheHelper chatsCacheHelper;
+    private ChatsRepository chatsRepository;
     private ProfileImageLoader imageLoader;
     private MessagesAdapter messagesAdapter;
     private NotificationHelper notificationHelper;
     
     // Attachment handling
-    private byte[] selectedAttachmentBytes = null;
+    private Uri selectedAttachmentUri = null;
+    private long selectedAttachmentSize = -1;
     private String selectedAttachmentName = null;
     private String selectedAttachmentMimeType = null;
     private ActivityResultLauncher<Intent> filePickerLauncher;
@@ -97,7 +108,7 @@ public class ChatDetailActivity extends AppCompatActivity {
         sessionManager = new SessionManager(this);
         notificationHelper = new NotificationHelper(this);
         apiHttpClient = new ApiHttpClientChats(this);
-        chatsCacheHelper = new ChatsCacheHelper(this);
+        chatsRepository = ChatsRepository.getInstance(this);
         imageLoader = new ProfileImageLoader(this);
         
         // Obtener currentUserId del SessionManager
@@ -126,6 +137,7 @@ public class ChatDetailActivity extends AppCompatActivity {
         // Inicializar UI
         initializeViews();
         setupToolbar();
+        setupMessageWindow();
         setupAdapter();
         setupFilePickerLauncher();
         
@@ -136,8 +148,8 @@ public class ChatDetailActivity extends AppCompatActivity {
         if (networkAvailable) {
             isOfflineMode = false;
             offlineCard.setVisibility(View.GONE);
-            Log.d(TAG, "Online mode - loading messages from API");
-            loadMessages();
+            Log.d(TAG, "Online mode - showing cached messages, then loading from API");
+            loadMessagesFromCache(this::loadMessages);
             
             // Iniciar auto-refresh de mensajes cada 30 segundos
             startAutoRefresh();
@@ -246,10 +258,32 @@ public class ChatDetailActivity extends AppCompatActivity {
         toolbar.setNavigationOnClickListener(v -> finish());
     }
     
+    private void setupMessageWindow() {
+        messageWindow = chatsRepository.openMessageWindow(chatId, MESSAGE_PAGE_SIZE);
+    }
+    
     private void setupAdapter() {
         messagesAdapter = new MessagesAdapter(this, currentUserId);
         messagesListView.setAdapter(messagesAdapter);
         
+        // Al llegar el usuario al primer mensaje, cargar la página anterior
+        // (no al enlazar la ventana, que también pasa por la posición 0)
+        messagesListView.setOnScrollListener(new AbsListView.OnScrollListener() {
+            private boolean userScrolling;
+            
+            @Override
+            public void onScrollStateChanged(AbsListView view, int scrollState) {
+                userScrolling = scrollState != SCROLL_STATE_IDLE;
+            }
+            
+            @Override
+            public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+                if (userScrolling && firstVisibleItem == 0 && totalItemCount > 0) {
+                    loadOlderMessages();
+                }
+            }
+        });
+        
         // Configurar listener para clicks en attachments
         messagesAdapter.setOnAttachmentClickListener((url, fileName, mimeType) -> {
             handleAttachmentClick(url, fileName, mimeType);
@@ -306,22 +340,19 @@ public class ChatDetailActivity extends AppCompatActivity {
             public void onSuccess(ChatDetailResponse response) {
                 Log.d(TAG, "API SUCCESS - Messages loaded: " + response.getMessages().size());
                 
-                // Guardar posición actual del scroll
-                int currentPosition = messagesListView.getFirstVisiblePosition();
-                
-                messagesAdapter.setMessages(response.getMessages());
-                
-                // Solo hacer scroll al final si es el primer load o se envió un mensaje
-                if (scrollToEnd) {
-                    scrollToBottom();
-                } else {
-                    // Mantener posición actual (para auto-refresh)
-                    messagesListView.setSelection(currentPosition);
+                // 304: la cache HTTP devuelve la misma respuesta, no hay mensajes nuevos
+                if (response == lastDetailResponse) {
+                    if (scrollToEnd) {
+                        scrollToBottom();
+                    }
+                    return;
                 }
+                lastDetailResponse = response;
                 
-                // Guardar en caché
-                chatsCacheHelper.cacheChatDetail(response);
-                Log.d(TAG, "Messages cached successfully");
+                // Guardar en caché (solo filas nuevas o modificadas) y mostrar la ventana desde ahí:
+                // se enlazan las páginas ya cargadas más los mensajes nuevos, no la conversación entera
+                chatsRepository.cacheChatDetail(response, messageWindow,
+                        window -> showWindow(window, scrollToEnd));
                 
                 // Actualizar el último mensaje visto para este chat
                 // Esto evitará que se muestren notificaciones para mensajes ya vistos
@@ -343,14 +374,71 @@ public class ChatDetailActivity extends AppCompatActivity {
     }
     
     private void loadMessagesFromCache() {
-        ChatDetailResponse cachedChat = chatsCacheHelper.getCachedChatDetail(chatId);
-        if (cachedChat != null && cachedChat.getMessages() != null) {
-            messagesAdapter.setMessages(cachedChat.getMessages());
+        loadMessagesFromCache(null);
+    }
+    
+    /**
+     * Mostrar la última página de mensajes guardados
+     * @param onShown Se ejecuta después de mostrarla (ej: refrescar desde la API), o null
+     */
+    private void loadMessagesFromCache(Runnable onShown) {
+        chatsRepository.loadLatest(messageWindow, window -> {
+            if (isDestroyed()) {
+                return;
+            }
+            if (!window.isEmpty()) {
+                messagesAdapter.setMessages(window);
+                scrollToBottom();
+                Log.d(TAG, "Messages loaded from cache: " + window.size());
+            }
+            if (onShown != null) {
+                onShown.run();
+            } else if (window.isEmpty()) {
+                Log.d(TAG, "No cached messages found");
+                Toast.makeText(this, "No hay mensajes guardados", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+    
+    /**
+     * Cargar la página anterior al mensaje más antiguo visible, manteniendo la posición del scroll
+     */
+    private void loadOlderMessages() {
+        if (loadingOlder || !messageWindow.hasOlder()) {
+            return;
+        }
+        loadingOlder = true;
+        chatsRepository.loadOlder(messageWindow, added -> {
+            loadingOlder = false;
+            if (isDestroyed() || added == 0) {
+                return;
+            }
+            List<MessageResponse> window = messageWindow.getMessages();
+            View firstChild = messagesListView.getChildAt(0);
+            int offset = firstChild != null ? firstChild.getTop() : 0;
+            int firstPosition = messagesListView.getFirstVisiblePosition();
+            messagesAdapter.setMessages(window);
+            messagesListView.setSelectionFromTop(firstPosition + added, offset);
+            Log.d(TAG, "Loaded " + added + " older messages, window: " + window.size());
+        });
+    }
+    
+    private void showWindow(List<MessageResponse> window, boolean scrollToEnd) {
+        if (isDestroyed() || window == null) {
+            return;
+        }
+        
+        // Guardar posición actual del scroll
+        int currentPosition = messagesListView.getFirstVisiblePosition();
+        
+        messagesAdapter.setMessages(window);
+        
+        // Solo hacer scroll al final si es el primer load o se envió un mensaje
+        if (scrollToEnd) {
             scrollToBottom();
-            Log.d(TAG, "Messages loaded from cache: " + cachedChat.getMessages().size());
         } else {
-            Log.d(TAG, "No cached messages found");
-            Toast.makeText(this, "No hay mensajes guardados", Toast.LENGTH_SHORT).show();
+            // Mantener posición actual (para auto-refresh)
+            messagesListView.setSelection(currentPosition);
         }
     }
     
@@ -369,33 +457,37 @@ public class ChatDetailActivity extends AppCompatActivity {
     
     private void handleSelectedFile(Uri fileUri) {
         try {
-            InputStream inputStream = getContentResolver().openInputStream(fileUri);
-            if (inputStream == null) {
-                Toast.makeText(this, "Error al leer el archivo", Toast.LENGTH_SHORT).show();
-                return;
-            }
-            
-            // Leer bytes del archivo
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-            byte[] data = new byte[1024];
-            int nRead;
-            while ((nRead = inputStream.read(data, 0, data.length)) != -1) {
-                buffer.write(data, 0, nRead);
+            // Solo se leen los metadatos; el contenido se envía en streaming al mandar el mensaje
+            String fileName = null;
+            long size = -1;
+            try (Cursor cursor = getContentResolver().query(fileUri,
+                    new String[]{OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE}, null, null, null)) {
+                if (cursor != null && cursor.moveToFirst()) {
+                    int nameIndex = cursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
+                    int sizeIndex = cursor.getColumnIndex(OpenableColumns.SIZE);
+                    if (nameIndex != -1 && !cursor.isNull(nameIndex)) {
+                        fileName = cursor.getString(nameIndex);
+                    }
+                    if (sizeIndex != -1 && !cursor.isNull(sizeIndex)) {
+                        size = cursor.getLong(sizeIndex);
+                    }
+                }
             }
-            buffer.flush();
-            inputStream.close();
-            
-            selectedAttachmentBytes = buffer.toByteArray();
             
-            // Verificar tamaño
-            if (selectedAttachmentBytes.length > MAX_FILE_SIZE) {
-                Toast.makeText(this, "El archivo es demasiado grande (máx 10MB)", Toast.LENGTH_SHORT).show();
+            // Verificar tamaño (si el proveedor no lo informa, se envía chunked y el límite
+            // se aplica al enviar: ver ApiHttpClientChats.sendMessageWithAttachment)
+            if (size > MAX_FILE_SIZE) {
+                Toast.makeText(this, "El archivo es demasiado grande (máx 40MB)", Toast.LENGTH_SHORT).show();
                 clearAttachment();
                 return;
             }
             
             // Obtener nombre del archivo
-            String fileName = getFileName(fileUri);
+            if (fileName == null || fileName.isEmpty()) {
+                fileName = getFileName(fileUri);
+            }
+            selectedAttachmentUri = fileUri;
+            selectedAttachmentSize = size;
             selectedAttachmentName = fileName;
             
             // Obtener MIME type real del sistema
@@ -405,7 +497,7 @@ public class ChatDetailActivity extends AppCompatActivity {
                 selectedAttachmentMimeType = getMimeTypeFromFileName(fileName);
             }
             
-            Log.d(TAG, "File selected - Name: " + fileName + ", MimeType: " + selectedAttachmentMimeType + ", Size: " + selectedAttachmentBytes.length + " bytes");
+            Log.d(TAG, "File selected - Name: " + fileName + ", MimeType: " + selectedAttachmentMimeType + ", Size: " + size + " bytes");
             
             // Mostrar preview
             showAttachmentPreview(fileName);
@@ -489,7 +581,8 @@ public class ChatDetailActivity extends AppCompatActivity {
     }
     
     private void clearAttachment() {
-        selectedAttachmentBytes = null;
+        selectedAttachmentUri = null;
+        selectedAttachmentSize = -1;
         selectedAttachmentName = null;
         selectedAttachmentMimeType = null;
         attachmentPreviewContainer.setVisibility(View.GONE);
@@ -504,7 +597,7 @@ public class ChatDetailActivity extends AppCompatActivity {
         String content = messageEditText.getText().toString().trim();
         
         // Validar que haya contenido o attachment
-        if (content.isEmpty() && selectedAttachmentBytes == null) {
+        if (content.isEmpty() && selectedAttachmentUri == null) {
             Toast.makeText(this, "Escribe un mensaje o adjunta un archivo", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -518,15 +611,16 @@ public class ChatDetailActivity extends AppCompatActivity {
         // Deshabilitar botón de envío
         sendButton.setEnabled(false);
         
-        if (selectedAttachmentBytes != null) {
-            // Enviar con attachment
+        if (selectedAttachmentUri != null) {
+            // Enviar con attachment (se lee del Uri en el hilo de red)
             apiHttpClient.sendMessageWithAttachment(
                 token,
                 chatId,
                 content.isEmpty() ? null : content,
-                selectedAttachmentBytes,
+                selectedAttachmentUri,
                 selectedAttachmentName,
                 selectedAttachmentMimeType,
+                selectedAttachmentSize,
                 new ApiHttpClientChats.SendMessageCallback() {
                     @Override
                     public void onSuccess(SendMessageResponse response) {
@@ -32,12 +32,13 @@ import android.content.BroadcastReceiver;
 import android.content.IntentFilter;
 
 import com.example.androidchatproject.adapter.ChatsAdapter;
-import com.example.androidchatproject.database.ChatsCacheHelper;
+import com.example.androidchatproject.helper.StartupTrace;
 import com.example.androidchatproject.model.chats.ChatItem;
 import com.example.androidchatproject.model.chats.ChatsListResponse;
 import com.example.androidchatproject.model.user.*;
 import com.example.androidchatproject.network.ApiHttpClientChats;
 import com.example.androidchatproject.network.ApiHttpClientUser;
+import com.example.androidchatproject.repository.ChatsRepository;
 import com.example.androidchatproject.session.SessionManager;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
@@ -68,7 +69,7 @@ public class MainActivity extends AppCompatActivity {
     private ApiHttpClientUser apiHttpClient;
     private ApiHttpClientChats apiHttpClientChats;
     private SessionManager sessionManager;
-    private ChatsCacheHelper chatsCacheHelper;
+    private ChatsRepository chatsRepository;
     private String currentToken;
     private boolean isComingFromLogin = false;
     private boolean isOfflineMode = false;
@@ -152,7 +153,7 @@ public class MainActivity extends AppCompatActivity {
         // Initialize API clients
         apiHttpClient = new ApiHttpClientUser(this);
         apiHttpClientChats = new ApiHttpClientChats(this);
-        chatsCacheHelper = new ChatsCacheHelper(this);
+        chatsRepository = ChatsRepository.getInstance(this);
         
         // Initialize chats adapter
         allChats = new ArrayList<>();
@@ -1036,18 +1037,31 @@ public class MainActivity extends AppCompatActivity {
             public void onSuccess(ChatsListResponse response) {
                 List<ChatItem> chats = response.getChats();
                 
+                // 304: la cache HTTP devuelve la misma lista, no hay nada que redibujar ni guardar
+                if (chats != null && chats == allChats) {
+                    Log.d(TAG, "Chats sin cambios");
+                    return;
+                }
+                
                 if (chats != null && !chats.isEmpty()) {
                     Log.d(TAG, chats.size() + " chats cargados desde API");
                     allChats = chats;
                     chatsAdapter.updateChats(allChats);
+                    StartupTrace.getInstance().markFirstChatList("api");
                     
                     // Guardar en caché para uso offline
-                    chatsCacheHelper.cacheChats(chats);
-                    Log.d(TAG, "Chats guardados en caché");
+                    chatsRepository.cacheChats(chats, written ->
+                            Log.d(TAG, "Chats guardados en caché (" + written + " filas escritas)"));
                 } else {
                     Log.d(TAG, "No hay chats disponibles");
                     allChats = new ArrayList<>();
                     chatsAdapter.updateChats(allChats);
+                    
+                    // El servidor no tiene chats: borrar los que quedaron en caché
+                    if (chats != null) {
+                        chatsRepository.cacheChats(chats, written ->
+                                Log.d(TAG, "Caché de chats vaciada (" + written + " filas borradas)"));
+                    }
                 }
             }
             
@@ -1066,12 +1080,19 @@ public class MainActivity extends AppCompatActivity {
      * Cargar chats desde caché SQLite
      */
     private void loadChatsFromCache() {
-        List<ChatItem> cachedChats = chatsCacheHelper.getCachedChats();
+        chatsRepository.getCachedChats(this::showCachedChats);
+    }
+    
+    private void showCachedChats(List<ChatItem> cachedChats) {
+        if (isDestroyed()) {
+            return;
+        }
         
         if (cachedChats != null && !cachedChats.isEmpty()) {
             Log.d(TAG, cachedChats.size() + " chats cargados desde caché");
             allChats = cachedChats;
             chatsAdapter.updateChats(allChats);
+            StartupTrace.getInstance().markFirstChatList("cache");
             
             if (!isOfflineMode) {
                 Toast.makeText(this, "Mostrando datos en caché", Toast.LENGTH_SHORT).show();
@@ -15,13 +15,13 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.androidchatproject.adapter.UsersAdapter;
-import com.example.androidchatproject.database.ChatsCacheHelper;
-import com.example.androidchatproject.database.UsersCacheHelper;
 import com.example.androidchatproject.model.chats.ChatItem;
 import com.example.androidchatproject.model.user.LogoutResponse;
 import com.example.androidchatproject.model.user.UserListItem;
 import com.example.androidchatproject.model.user.UsersListResponse;
 import com.example.androidchatproject.network.ApiHttpClientUser;
+import com.example.androidchatproject.repository.ChatsRepository;
+import com.example.androidchatproject.repository.UsersRepository;
 import com.example.androidchatproject.session.SessionManager;
 import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.textfield.TextInputEditText;
@@ -46,8 +46,8 @@ public class SearchUsersActivity extends AppCompatActivity {
     // Data - Users
     private UsersAdapter adapter;
     private List<UserListItem> allUsers;
-    private UsersCacheHelper cacheHelper;
-    private ChatsCacheHelper chatsCacheHelper;
+    private UsersRepository usersRepository;
+    private ChatsRepository chatsRepository;
     private SessionManager sessionManager;
     private ApiHttpClientUser apiHttpClient;
     private String currentToken;
@@ -61,8 +61,8 @@ public class SearchUsersActivity extends AppCompatActivity {
         // Initialize components
         sessionManager = new SessionManager(this);
         apiHttpClient = new ApiHttpClientUser(this);
-        cacheHelper = new UsersCacheHelper(this);
-        chatsCacheHelper = new ChatsCacheHelper(this);
+        usersRepository = UsersRepository.getInstance(this);
+        chatsRepository = ChatsRepository.getInstance(this);
         
         // Get token
         currentToken = sessionManager.getToken();
@@ -153,7 +153,7 @@ public class SearchUsersActivity extends AppCompatActivity {
                     adapter.updateUsers(allUsers);
                     
                     // Guardar en caché (sin imágenes)
-                    cacheHelper.cacheUsers(users);
+                    usersRepository.cacheUsers(users);
                     
                     // Mostrar/ocultar empty state
                     updateEmptyState();
@@ -180,13 +180,14 @@ public class SearchUsersActivity extends AppCompatActivity {
     private void loadUsersFromCache() {
         Log.d(TAG, "📦 Cargando usuarios desde caché...");
         
-        if (!cacheHelper.hasCache()) {
-            showEmptyState("Sin conexión y sin datos guardados");
+        usersRepository.getCachedUsers(this::showCachedUsers);
+    }
+    
+    private void showCachedUsers(List<UserListItem> cachedUsers) {
+        if (isDestroyed()) {
             return;
         }
         
-        List<UserListItem> cachedUsers = cacheHelper.getCachedUsers();
-        
         if (cachedUsers != null && !cachedUsers.isEmpty()) {
             Log.d(TAG, "✅ " + cachedUsers.size() + " usuarios cargados desde caché");
             
@@ -289,17 +290,20 @@ public class SearchUsersActivity extends AppCompatActivity {
         Log.d(TAG, "User selected: " + user.getUsername() + " (ID: " + user.getUserId() + ")");
         
         // Buscar si ya existe un chat con este usuario en SQLite
-        ChatItem existingChat = chatsCacheHelper.findChatByUserId(user.getUserId());
-        
-        if (existingChat != null) {
-            // Ya existe un chat, abrir directamente
-            Log.d(TAG, "Chat found in cache, opening chat detail");
-            openChatDetail(existingChat, user);
-        } else {
-            // No existe chat, iniciar nueva conversación
-            Log.d(TAG, "No chat found, starting new conversation");
-            startNewConversation(user);
-        }
+        chatsRepository.findChatByUserId(user.getUserId(), existingChat -> {
+            if (isDestroyed()) {
+                return;
+            }
+            if (existingChat != null) {
+                // Ya existe un chat, abrir directamente
+                Log.d(TAG, "Chat found in cache, opening chat detail");
+                openChatDetail(existingChat, user);
+            } else {
+                // No existe chat, iniciar nueva conversación
+                Log.d(TAG, "No chat found, starting new conversation");
+                startNewConversation(user);
+            }
+        });
     }
     
     /**
@@ -40,7 +40,8 @@ public class ChatsAdapter extends BaseAdapter {
      * Actualizar lista de chats y ordenar del más reciente al más antiguo
      */
     public void updateChats(List<ChatItem> chats) {
-        this.chats = chats != null ? chats : new ArrayList<>();
+        // Copia propia: la lista puede ser la misma instancia que guarda la cache HTTP
+        this.chats = chats != null ? new ArrayList<>(chats) : new ArrayList<>();
         sortChatsByMostRecent();
         notifyDataSetChanged();
     }
@@ -137,7 +138,8 @@ public class ChatsAdapter extends BaseAdapter {
         if (chat.getProfileImg() != null && !chat.getProfileImg().isEmpty()) {
             imageLoader.loadProfileImage(chat.getProfileImg(), holder.profileImageView, chat.getUser());
         } else {
-            // Cargar imagen por defecto
+            // Cargar imagen por defecto (y descartar la descarga de la fila anterior)
+            imageLoader.cancelLoad(holder.profileImageView);
             holder.profileImageView.setImageResource(R.drawable.user_default);
         }
         
@@ -43,7 +43,8 @@ public class MessagesAdapter extends BaseAdapter {
     }
     
     public void setMessages(List<MessageResponse> messages) {
-        this.messages = messages != null ? messages : new ArrayList<>();
+        // Copia propia: addMessage no debe modificar la respuesta guardada en la cache HTTP
+        this.messages = messages != null ? new ArrayList<>(messages) : new ArrayList<>();
         notifyDataSetChanged();
     }
     
@@ -137,6 +138,8 @@ public class MessagesAdapter extends BaseAdapter {
         holder.attachmentImageView.setVisibility(View.GONE);
         holder.fileAttachmentLayout.setVisibility(View.GONE);
         holder.audioAttachmentLayout.setVisibility(View.GONE);
+        // Descartar la descarga pendiente de la fila reciclada
+        imageLoader.cancelLoad(holder.attachmentImageView);
         
         if (attachmentUrl == null || attachmentUrl.trim().isEmpty()) {
             return; // No hay attachment
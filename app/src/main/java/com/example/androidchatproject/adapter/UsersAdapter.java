@@ -110,6 +110,7 @@ public class UsersAdapter extends BaseAdapter implements Filterable {
         } else {
             // Mostrar imagen por defecto
             android.util.Log.d("UsersAdapter", "Loading default image for user: " + user.getUsername());
+            imageLoader.cancelLoad(holder.profileImageView);
             loadDefaultImage(holder.profileImageView);
             
             // Mostrar indicador si está offline y normalmente tendría imagen
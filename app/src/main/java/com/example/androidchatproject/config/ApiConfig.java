@@ -10,6 +10,20 @@ public class ApiConfig {
 
     public static final boolean ENABLE_LOGGING = true;
 
+    // Enviar cuerpos JSON con gzip (solo si el backend acepta Content-Encoding: gzip)
+    public static final boolean GZIP_REQUEST_BODIES = false;
+
+    // Endpoint de subidas reanudables (protocolo tus); el backend todavía no lo expone
+    public static final String RESUMABLE_UPLOADS_PATH = "api/uploads/";
+
+    // Al arrancar el proceso: resolver DNS y abrir la conexión TLS antes de la primera petición
+    public static final boolean PREWARM_CONNECTION = true;
+    // Además, HEAD a la raíz para despertar el dyno de Heroku si estaba dormido
+    public static final boolean PREWARM_WAKE_UP_REQUEST = true;
+
+    // Tamaño máximo de un adjunto; también se aplica al enviarlo si no se conocía el tamaño
+    public static final long MAX_ATTACHMENT_SIZE = 40 * 1024 * 1024; // 40 MB
+
     public static final String TOKEN_PREFIX = "Bearer ";
 
     public static final String API_VERSION = "v1";
@@ -0,0 +1,169 @@
+package com.example.androidchatproject.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import java.io.File;
+
+/**
+ * Base de datos única de la app (sesión, caché de chats y caché de usuarios)
+ * Una sola conexión compartida por todo el proceso, en modo WAL: las lecturas de la UI
+ * no esperan a que termine una escritura de sincronización y las escrituras no bloquean lecturas.
+ * Cada cambio de esquema es un paso de onUpgrade que conserva los datos guardados.
+ */
+public class AppDatabase extends SQLiteOpenHelper {
+
+    private static final String TAG = "AppDatabase";
+    // Se conserva el nombre del archivo de sesión para no perder el login al actualizar
+    private static final String DATABASE_NAME = "ChatApp.db";
+    private static final int DATABASE_VERSION = 4;
+
+    private static volatile AppDatabase instance;
+
+    private final Context appContext;
+
+    private AppDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.appContext = context;
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * Instancia compartida; usa el contexto de la aplicación
+     */
+    public static AppDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AppDatabase.class) {
+                if (instance == null) {
+                    instance = new AppDatabase(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // En WAL, NORMAL es seguro ante caídas de la app y evita un fsync por transacción
+        db.execSQL("PRAGMA synchronous = NORMAL");
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        DatabaseHelper.createTables(db);
+        ChatsCacheHelper.createTables(db);
+        UsersCacheHelper.createTables(db);
+        // Sin sesión guardada pueden quedar igualmente las cachés de versiones anteriores
+        importLegacyChatsCache(db);
+        importLegacyUsersCache(db);
+        Log.d(TAG, "Database created (version " + DATABASE_VERSION + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            DatabaseHelper.upgradeTables(db, oldVersion);
+        }
+        if (oldVersion < 3) {
+            // Las cachés vivían en chats_cache.db y users_cache.db
+            ChatsCacheHelper.createTables(db);
+            UsersCacheHelper.createTables(db);
+            importLegacyChatsCache(db);
+            importLegacyUsersCache(db);
+        }
+        if (oldVersion < 4) {
+            // Búsqueda de texto completo sobre los mensajes ya guardados
+            MessageSearchIndex.createIndex(db);
+            MessageSearchIndex.rebuild(db);
+        }
+        Log.d(TAG, "Database upgraded from version " + oldVersion + " to " + newVersion);
+    }
+
+    private void importLegacyChatsCache(SQLiteDatabase db) {
+        SQLiteDatabase legacy = openLegacy(ChatsCacheHelper.LEGACY_DATABASE_NAME);
+        if (legacy == null) {
+            return;
+        }
+        try {
+            int version = legacy.getVersion();
+            if (version < ChatsCacheHelper.LEGACY_MIN_VERSION) {
+                Log.d(TAG, "Legacy chats cache too old to import (version " + version + ")");
+                return;
+            }
+            // Lleva el archivo viejo al esquema actual antes de copiar
+            if (version < ChatsCacheHelper.LEGACY_DATABASE_VERSION) {
+                legacy.beginTransaction();
+                try {
+                    ChatsCacheHelper.upgradeTables(legacy, version);
+                    legacy.setTransactionSuccessful();
+                } finally {
+                    legacy.endTransaction();
+                }
+            }
+            for (String table : ChatsCacheHelper.TABLES) {
+                copyTable(legacy, db, table);
+            }
+        } catch (Exception e) {
+            // La caché se vuelve a llenar desde el servidor
+            Log.w(TAG, "Could not import legacy chats cache", e);
+        } finally {
+            closeAndDelete(legacy, ChatsCacheHelper.LEGACY_DATABASE_NAME);
+        }
+    }
+
+    private void importLegacyUsersCache(SQLiteDatabase db) {
+        SQLiteDatabase legacy = openLegacy(UsersCacheHelper.LEGACY_DATABASE_NAME);
+        if (legacy == null) {
+            return;
+        }
+        try {
+            copyTable(legacy, db, UsersCacheHelper.TABLE_USERS);
+        } catch (Exception e) {
+            Log.w(TAG, "Could not import legacy users cache", e);
+        } finally {
+            closeAndDelete(legacy, UsersCacheHelper.LEGACY_DATABASE_NAME);
+        }
+    }
+
+    private SQLiteDatabase openLegacy(String name) {
+        File file = appContext.getDatabasePath(name);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return SQLiteDatabase.openDatabase(file.getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        } catch (Exception e) {
+            Log.w(TAG, "Could not open legacy database " + name, e);
+            appContext.deleteDatabase(name);
+            return null;
+        }
+    }
+
+    private void closeAndDelete(SQLiteDatabase legacy, String name) {
+        legacy.close();
+        appContext.deleteDatabase(name);
+    }
+
+    /**
+     * Copia todas las filas de una tabla con el mismo esquema en ambas bases
+     */
+    private static void copyTable(SQLiteDatabase from, SQLiteDatabase to, String table) {
+        int copied = 0;
+        ContentValues values = new ContentValues();
+        try (Cursor cursor = from.query(table, null, null, null, null, null, "rowid")) {
+            while (cursor.moveToNext()) {
+                values.clear();
+                DatabaseUtils.cursorRowToContentValues(cursor, values);
+                if (to.insertWithOnConflict(table, null, values, SQLiteDatabase.CONFLICT_IGNORE) != -1) {
+                    copied++;
+                }
+            }
+        }
+        Log.d(TAG, "Imported " + copied + " rows into " + table);
+    }
+}
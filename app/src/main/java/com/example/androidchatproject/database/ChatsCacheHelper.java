@@ -3,31 +3,41 @@ package com.example.androidchatproject.database;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 import com.example.androidchatproject.model.chats.ChatDetailResponse;
 import com.example.androidchatproject.model.chats.ChatItem;
 import com.example.androidchatproject.model.chats.MessageResponse;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.example.androidchatproject.network.GsonProvider;
 
-import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Helper para cachear chats en SQLite
  * Maneja dos tipos de caché:
  * 1. Lista simple de chats (para la lista principal)
- * 2. Chats completos con mensajes (para la vista de detalle)
+ * 2. Chats completos con mensajes (para la vista de detalle): la cabecera en chats_detail
+ *    y cada mensaje como una fila de messages, clave (chat_id, message_id)
+ * Las tablas viven en la base compartida AppDatabase.
  */
-public class ChatsCacheHelper extends SQLiteOpenHelper {
+public class ChatsCacheHelper {
     
     private static final String TAG = "ChatsCacheHelper";
-    private static final String DATABASE_NAME = "chats_cache.db";
-    private static final int DATABASE_VERSION = 2;
+    
+    // Archivo propio que usaban las versiones anteriores; AppDatabase lo importa una vez
+    static final String LEGACY_DATABASE_NAME = "chats_cache.db";
+    static final int LEGACY_DATABASE_VERSION = 4;
+    static final int LEGACY_MIN_VERSION = 2;
     
     // Tabla de chats simples (lista)
     private static final String TABLE_CHATS = "chats";
@@ -38,25 +48,85 @@ public class ChatsCacheHelper extends SQLiteOpenHelper {
     private static final String COLUMN_LAST_MESSAGE = "last_message";
     private static final String COLUMN_LAST_MESSAGE_ID = "last_message_id";
     private static final String COLUMN_LAST_MESSAGE_TIME = "last_message_time";
-    private static final String COLUMN_CREATED_AT = "created_at";
+    static final String COLUMN_CREATED_AT = "created_at";
     private static final String COLUMN_UPDATED_AT = "updated_at";
     private static final String COLUMN_CACHED_AT = "cached_at";
+    private static final String COLUMN_POSITION = "position";
+    
+    // Momento de la última sincronización de cada caché
+    private static final String TABLE_CACHE_SYNC = "cache_sync";
+    private static final String COLUMN_SYNC_NAME = "name";
+    private static final String COLUMN_SYNCED_AT = "synced_at";
+    private static final String SYNC_CHATS = "chats";
+    
+    private static final String INSERT_CHAT = "INSERT INTO " + TABLE_CHATS + " (" +
+            COLUMN_USER + ", " + COLUMN_USERNAME + ", " + COLUMN_PROFILE_IMG + ", " +
+            COLUMN_LAST_MESSAGE + ", " + COLUMN_LAST_MESSAGE_ID + ", " + COLUMN_LAST_MESSAGE_TIME + ", " +
+            COLUMN_CREATED_AT + ", " + COLUMN_UPDATED_AT + ", " + COLUMN_CACHED_AT + ", " + COLUMN_POSITION + ", " +
+            COLUMN_ID + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_CHAT = "UPDATE " + TABLE_CHATS + " SET " +
+            COLUMN_USER + " = ?, " + COLUMN_USERNAME + " = ?, " + COLUMN_PROFILE_IMG + " = ?, " +
+            COLUMN_LAST_MESSAGE + " = ?, " + COLUMN_LAST_MESSAGE_ID + " = ?, " + COLUMN_LAST_MESSAGE_TIME + " = ?, " +
+            COLUMN_CREATED_AT + " = ?, " + COLUMN_UPDATED_AT + " = ?, " + COLUMN_CACHED_AT + " = ?, " +
+            COLUMN_POSITION + " = ? WHERE " + COLUMN_ID + " = ?";
+    private static final String UPDATE_CHAT_POSITION = "UPDATE " + TABLE_CHATS + " SET " +
+            COLUMN_POSITION + " = ? WHERE " + COLUMN_ID + " = ?";
+    private static final String DELETE_CHAT = "DELETE FROM " + TABLE_CHATS + " WHERE " + COLUMN_ID + " = ?";
     
-    // Tabla de chats completos con mensajes
+    // Tabla de chats completos (cabecera del detalle)
     private static final String TABLE_CHATS_DETAIL = "chats_detail";
-    private static final String COLUMN_CHAT_ID = "chat_id";
-    private static final String COLUMN_MESSAGES_JSON = "messages_json";
+    static final String COLUMN_CHAT_ID = "chat_id";
     private static final String COLUMN_DETAIL_CACHED_AT = "cached_at";
     
-    private final Gson gson;
+    // Versión 2 guardaba todos los mensajes del chat como un JSON en chats_detail
+    private static final String LEGACY_COLUMN_MESSAGES_JSON = "messages_json";
+    
+    // Tabla de mensajes
+    static final String TABLE_MESSAGES = "messages";
+    static final String COLUMN_MESSAGE_ID = "message_id";
+    private static final String COLUMN_SENDER_ID = "sender_id";
+    static final String COLUMN_CONTENT = "content";
+    private static final String COLUMN_ATTACHMENT_URL = "attachment_url";
+    private static final String COLUMN_MIME_TYPE = "mime_type";
+    static final String COLUMN_IS_DELETED = "is_deleted";
+    private static final String INDEX_MESSAGES_CREATED_AT = "idx_messages_chat_created_at";
+    
+    // Orden del servidor: por fecha y, a igual fecha, por orden de llegada
+    private static final String MESSAGES_ORDER = COLUMN_CREATED_AT + " ASC, rowid ASC";
+    
+    // Los mensajes ya guardados se ignoran al insertar y se actualizan solo si algo cambió
+    private static final String INSERT_MESSAGE = "INSERT OR IGNORE INTO " + TABLE_MESSAGES + " (" +
+            COLUMN_CHAT_ID + ", " + COLUMN_MESSAGE_ID + ", " + COLUMN_SENDER_ID + ", " +
+            COLUMN_CONTENT + ", " + COLUMN_ATTACHMENT_URL + ", " + COLUMN_MIME_TYPE + ", " +
+            COLUMN_IS_DELETED + ", " + COLUMN_CREATED_AT + ", " + COLUMN_UPDATED_AT +
+            ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_MESSAGE = "UPDATE " + TABLE_MESSAGES + " SET " +
+            COLUMN_SENDER_ID + " = ?1, " + COLUMN_CONTENT + " = ?2, " + COLUMN_ATTACHMENT_URL + " = ?3, " +
+            COLUMN_MIME_TYPE + " = ?4, " + COLUMN_IS_DELETED + " = ?5, " + COLUMN_CREATED_AT + " = ?6, " +
+            COLUMN_UPDATED_AT + " = ?7 WHERE " + COLUMN_CHAT_ID + " = ?8 AND " + COLUMN_MESSAGE_ID + " = ?9 AND (" +
+            COLUMN_SENDER_ID + " IS NOT ?1 OR " + COLUMN_CONTENT + " IS NOT ?2 OR " +
+            COLUMN_ATTACHMENT_URL + " IS NOT ?3 OR " + COLUMN_MIME_TYPE + " IS NOT ?4 OR " +
+            COLUMN_IS_DELETED + " IS NOT ?5 OR " + COLUMN_CREATED_AT + " IS NOT ?6 OR " +
+            COLUMN_UPDATED_AT + " IS NOT ?7)";
+    
+    // Tablas de esta caché, en orden de copia
+    static final String[] TABLES = {TABLE_CHATS, TABLE_CACHE_SYNC, TABLE_CHATS_DETAIL, TABLE_MESSAGES};
+    
+    private final AppDatabase database;
     
     public ChatsCacheHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
-        this.gson = new Gson();
+        this.database = AppDatabase.getInstance(context);
     }
     
-    @Override
-    public void onCreate(SQLiteDatabase db) {
+    private SQLiteDatabase getWritableDatabase() {
+        return database.getWritableDatabase();
+    }
+    
+    private SQLiteDatabase getReadableDatabase() {
+        return database.getReadableDatabase();
+    }
+    
+    static void createTables(SQLiteDatabase db) {
         // Crear tabla de chats simples
         String createChatsTable = "CREATE TABLE " + TABLE_CHATS + " (" +
                 COLUMN_ID + " TEXT PRIMARY KEY, " +
@@ -68,79 +138,278 @@ public class ChatsCacheHelper extends SQLiteOpenHelper {
                 COLUMN_LAST_MESSAGE_TIME + " TEXT, " +
                 COLUMN_CREATED_AT + " TEXT, " +
                 COLUMN_UPDATED_AT + " TEXT, " +
-                COLUMN_CACHED_AT + " INTEGER" +
+                COLUMN_CACHED_AT + " INTEGER, " +
+                COLUMN_POSITION + " INTEGER NOT NULL DEFAULT 0" +
                 ")";
         db.execSQL(createChatsTable);
+        createCacheSyncTable(db);
+        
+        // Crear tabla de chats completos (cabecera del detalle)
+        createChatsDetailTable(db, TABLE_CHATS_DETAIL);
         
-        // Crear tabla de chats completos (detalle con mensajes)
-        String createChatsDetailTable = "CREATE TABLE " + TABLE_CHATS_DETAIL + " (" +
+        // Crear tabla de mensajes y su índice de búsqueda
+        createMessagesTable(db);
+        MessageSearchIndex.createIndex(db);
+        
+        Log.d(TAG, "Chats cache tables created");
+    }
+    
+    private static void createChatsDetailTable(SQLiteDatabase db, String tableName) {
+        db.execSQL("CREATE TABLE " + tableName + " (" +
                 COLUMN_CHAT_ID + " TEXT PRIMARY KEY, " +
                 COLUMN_USER + " TEXT, " +
                 COLUMN_USERNAME + " TEXT, " +
                 COLUMN_PROFILE_IMG + " TEXT, " +
-                COLUMN_MESSAGES_JSON + " TEXT, " +
                 COLUMN_CREATED_AT + " TEXT, " +
                 COLUMN_UPDATED_AT + " TEXT, " +
                 COLUMN_DETAIL_CACHED_AT + " INTEGER" +
-                ")";
-        db.execSQL(createChatsDetailTable);
-        
-        Log.d(TAG, "Database created successfully");
+                ")");
+    }
+    
+    private static void createMessagesTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_MESSAGES + " (" +
+                COLUMN_CHAT_ID + " TEXT NOT NULL, " +
+                COLUMN_MESSAGE_ID + " TEXT NOT NULL, " +
+                COLUMN_SENDER_ID + " TEXT, " +
+                COLUMN_CONTENT + " TEXT, " +
+                COLUMN_ATTACHMENT_URL + " TEXT, " +
+                COLUMN_MIME_TYPE + " TEXT, " +
+                COLUMN_IS_DELETED + " INTEGER NOT NULL DEFAULT 0, " +
+                COLUMN_CREATED_AT + " TEXT, " +
+                COLUMN_UPDATED_AT + " TEXT, " +
+                "PRIMARY KEY (" + COLUMN_CHAT_ID + ", " + COLUMN_MESSAGE_ID + ")" +
+                ")");
+        // Rangos de mensajes de un chat por fecha
+        db.execSQL("CREATE INDEX " + INDEX_MESSAGES_CREATED_AT + " ON " + TABLE_MESSAGES +
+                " (" + COLUMN_CHAT_ID + ", " + COLUMN_CREATED_AT + ")");
     }
     
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_CHATS);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_CHATS_DETAIL);
-        onCreate(db);
+    private static void createCacheSyncTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_CACHE_SYNC + " (" +
+                COLUMN_SYNC_NAME + " TEXT PRIMARY KEY, " +
+                COLUMN_SYNCED_AT + " INTEGER" +
+                ")");
+    }
+    
+    /**
+     * Pasos de esquema del antiguo chats_cache.db, desde LEGACY_MIN_VERSION
+     */
+    static void upgradeTables(SQLiteDatabase db, int oldVersion) {
+        if (oldVersion < 3) {
+            migrateMessagesJson(db);
+        }
+        if (oldVersion < 4) {
+            // Orden del servidor en la lista de chats (antes se reinsertaba todo en orden)
+            db.execSQL("ALTER TABLE " + TABLE_CHATS + " ADD COLUMN " + COLUMN_POSITION +
+                    " INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE " + TABLE_CHATS + " SET " + COLUMN_POSITION + " = rowid");
+            createCacheSyncTable(db);
+        }
+    }
+    
+    /**
+     * Versión 2 a 3: pasa los mensajes de la columna messages_json a la tabla messages
+     * y recrea chats_detail sin esa columna (SQLite no permite borrar columnas)
+     */
+    private static void migrateMessagesJson(SQLiteDatabase db) {
+        createMessagesTable(db);
+        
+        SQLiteStatement insert = db.compileStatement(INSERT_MESSAGE);
+        int migrated = 0;
+        try (Cursor cursor = db.query(TABLE_CHATS_DETAIL,
+                new String[]{COLUMN_CHAT_ID, LEGACY_COLUMN_MESSAGES_JSON}, null, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                String chatId = cursor.getString(0);
+                List<MessageResponse> messages = null;
+                try {
+                    messages = GsonProvider.getGson().fromJson(cursor.getString(1), GsonProvider.MESSAGE_LIST_TYPE);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Skipping unreadable cached messages for chat " + chatId, e);
+                }
+                if (messages == null) {
+                    continue;
+                }
+                for (MessageResponse message : messages) {
+                    if (message != null && message.getId() != null) {
+                        bindMessage(insert, chatId, message);
+                        insert.executeInsert();
+                        migrated++;
+                    }
+                }
+            }
+        } finally {
+            insert.close();
+        }
+        
+        String tempTable = TABLE_CHATS_DETAIL + "_v3";
+        createChatsDetailTable(db, tempTable);
+        String columns = COLUMN_CHAT_ID + ", " + COLUMN_USER + ", " + COLUMN_USERNAME + ", " +
+                COLUMN_PROFILE_IMG + ", " + COLUMN_CREATED_AT + ", " + COLUMN_UPDATED_AT + ", " +
+                COLUMN_DETAIL_CACHED_AT;
+        db.execSQL("INSERT INTO " + tempTable + " (" + columns + ") SELECT " + columns +
+                " FROM " + TABLE_CHATS_DETAIL);
+        db.execSQL("DROP TABLE " + TABLE_CHATS_DETAIL);
+        db.execSQL("ALTER TABLE " + tempTable + " RENAME TO " + TABLE_CHATS_DETAIL);
+        
+        Log.d(TAG, "Migrated " + migrated + " cached messages to the messages table");
     }
     
     // ==================== CHATS SIMPLES (LISTA) ====================
     
     /**
      * Guardar lista de chats en caché
-     * @param chats Lista de chats a guardar
+     * Compara con las filas guardadas por id y last_message_id (y el resto de campos) y solo
+     * escribe los chats nuevos, modificados o eliminados; si solo cambió el orden, solo la posición
+     * @param chats Lista de chats a guardar, en el orden del servidor; vacía borra los guardados
+     * @return Filas escritas (insertadas, actualizadas o eliminadas)
      */
-    public void cacheChats(List<ChatItem> chats) {
-        if (chats == null || chats.isEmpty()) {
+    public int cacheChats(List<ChatItem> chats) {
+        if (chats == null) {
             Log.d(TAG, "No chats to cache");
-            return;
+            return 0;
         }
         
         SQLiteDatabase db = this.getWritableDatabase();
         long currentTime = System.currentTimeMillis();
+        int inserted = 0;
+        int updated = 0;
+        int moved = 0;
+        int deleted = 0;
+        SQLiteStatement insert = null;
+        SQLiteStatement update = null;
+        SQLiteStatement updatePosition = null;
+        SQLiteStatement delete = null;
         
         try {
             db.beginTransaction();
             
-            // Limpiar tabla antes de insertar
-            db.delete(TABLE_CHATS, null, null);
+            Map<String, ChatItem> cached = new HashMap<>();
+            Map<String, Integer> positions = new HashMap<>();
+            loadChatsById(db, cached, positions);
+            Set<String> seen = new HashSet<>();
             
-            // Insertar cada chat
-            for (ChatItem chat : chats) {
-                ContentValues values = new ContentValues();
-                values.put(COLUMN_ID, chat.getId());
-                values.put(COLUMN_USER, chat.getUser());
-                values.put(COLUMN_USERNAME, chat.getUsername());
-                values.put(COLUMN_PROFILE_IMG, chat.getProfileImg());
-                values.put(COLUMN_LAST_MESSAGE, chat.getLastMessage());
-                values.put(COLUMN_LAST_MESSAGE_ID, chat.getLastMessageId());
-                values.put(COLUMN_LAST_MESSAGE_TIME, chat.getLastMessageTime());
-                values.put(COLUMN_CREATED_AT, chat.getCreatedAt());
-                values.put(COLUMN_UPDATED_AT, chat.getUpdatedAt());
-                values.put(COLUMN_CACHED_AT, currentTime);
-                
-                db.insert(TABLE_CHATS, null, values);
+            for (int position = 0; position < chats.size(); position++) {
+                ChatItem chat = chats.get(position);
+                if (chat == null || chat.getId() == null || !seen.add(chat.getId())) {
+                    continue;
+                }
+                ChatItem existing = cached.remove(chat.getId());
+                if (existing == null) {
+                    if (insert == null) {
+                        insert = db.compileStatement(INSERT_CHAT);
+                    }
+                    bindChat(insert, chat, currentTime, position);
+                    insert.executeInsert();
+                    inserted++;
+                } else if (!sameChat(existing, chat)) {
+                    if (update == null) {
+                        update = db.compileStatement(UPDATE_CHAT);
+                    }
+                    bindChat(update, chat, currentTime, position);
+                    update.executeUpdateDelete();
+                    updated++;
+                } else if (positions.get(chat.getId()) != position) {
+                    if (updatePosition == null) {
+                        updatePosition = db.compileStatement(UPDATE_CHAT_POSITION);
+                    }
+                    updatePosition.bindLong(1, position);
+                    updatePosition.bindString(2, chat.getId());
+                    updatePosition.executeUpdateDelete();
+                    moved++;
+                }
+            }
+            
+            // Los que quedaron ya no están en el servidor
+            for (String removedId : cached.keySet()) {
+                if (delete == null) {
+                    delete = db.compileStatement(DELETE_CHAT);
+                }
+                delete.bindString(1, removedId);
+                delete.executeUpdateDelete();
+                deleted++;
             }
             
+            markSynced(db, SYNC_CHATS, currentTime);
             db.setTransactionSuccessful();
-            Log.d(TAG, chats.size() + " chats cached successfully");
+            Log.d(TAG, "Chats cache synced: " + chats.size() + " chats, " + (inserted + updated + moved + deleted) +
+                    " rows written (" + inserted + " new, " + updated + " changed, " + moved + " moved, " +
+                    deleted + " removed)");
             
         } catch (Exception e) {
             Log.e(TAG, "Error caching chats", e);
+            return 0;
         } finally {
+            closeStatements(insert, update, updatePosition, delete);
             db.endTransaction();
         }
+        return inserted + updated + moved + deleted;
+    }
+    
+    private void loadChatsById(SQLiteDatabase db, Map<String, ChatItem> chats, Map<String, Integer> positions) {
+        try (Cursor cursor = db.query(TABLE_CHATS, null, null, null, null, null, null)) {
+            int positionIndex = cursor.getColumnIndexOrThrow(COLUMN_POSITION);
+            while (cursor.moveToNext()) {
+                ChatItem chat = readChat(cursor);
+                chats.put(chat.getId(), chat);
+                positions.put(chat.getId(), cursor.getInt(positionIndex));
+            }
+        }
+    }
+    
+    private static boolean sameChat(ChatItem a, ChatItem b) {
+        // El último mensaje es lo que cambia en casi todas las sincronizaciones
+        return Objects.equals(a.getLastMessageId(), b.getLastMessageId()) &&
+                Objects.equals(a.getLastMessage(), b.getLastMessage()) &&
+                Objects.equals(a.getLastMessageTime(), b.getLastMessageTime()) &&
+                Objects.equals(a.getUpdatedAt(), b.getUpdatedAt()) &&
+                Objects.equals(a.getUsername(), b.getUsername()) &&
+                Objects.equals(a.getProfileImg(), b.getProfileImg()) &&
+                Objects.equals(a.getUser(), b.getUser()) &&
+                Objects.equals(a.getCreatedAt(), b.getCreatedAt());
+    }
+    
+    private static void bindChat(SQLiteStatement statement, ChatItem chat, long cachedAt, int position) {
+        statement.clearBindings();
+        bindNullable(statement, 1, chat.getUser());
+        bindNullable(statement, 2, chat.getUsername());
+        bindNullable(statement, 3, chat.getProfileImg());
+        bindNullable(statement, 4, chat.getLastMessage());
+        bindNullable(statement, 5, chat.getLastMessageId());
+        bindNullable(statement, 6, chat.getLastMessageTime());
+        bindNullable(statement, 7, chat.getCreatedAt());
+        bindNullable(statement, 8, chat.getUpdatedAt());
+        statement.bindLong(9, cachedAt);
+        statement.bindLong(10, position);
+        statement.bindString(11, chat.getId());
+    }
+    
+    private static ChatItem readChat(Cursor cursor) {
+        ChatItem chat = new ChatItem();
+        chat.setId(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ID)));
+        chat.setUser(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_USER)));
+        chat.setUsername(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_USERNAME)));
+        chat.setProfileImg(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PROFILE_IMG)));
+        chat.setLastMessage(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_LAST_MESSAGE)));
+        chat.setLastMessageId(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_LAST_MESSAGE_ID)));
+        chat.setLastMessageTime(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_LAST_MESSAGE_TIME)));
+        chat.setCreatedAt(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_CREATED_AT)));
+        chat.setUpdatedAt(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_UPDATED_AT)));
+        return chat;
+    }
+    
+    private void markSynced(SQLiteDatabase db, String name, long syncedAt) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_SYNC_NAME, name);
+        values.put(COLUMN_SYNCED_AT, syncedAt);
+        db.insertWithOnConflict(TABLE_CACHE_SYNC, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+    
+    private static void closeStatements(SQLiteStatement... statements) {
+        for (SQLiteStatement statement : statements) {
+            if (statement != null) {
+                statement.close();
+            }
+        }
     }
     
     /**
@@ -160,23 +429,12 @@ public class ChatsCacheHelper extends SQLiteOpenHelper {
                     null,
                     null,
                     null,
-                    COLUMN_CACHED_AT + " DESC"
+                    COLUMN_POSITION + " ASC"
             );
             
             if (cursor != null && cursor.moveToFirst()) {
                 do {
-                    ChatItem chat = new ChatItem();
-                    chat.setId(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ID)));
-                    chat.setUser(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_USER)));
-                    chat.setUsername(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_USERNAME)));
-                    chat.setProfileImg(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PROFILE_IMG)));
-                    chat.setLastMessage(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_LAST_MESSAGE)));
-                    chat.setLastMessageId(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_LAST_MESSAGE_ID)));
-                    chat.setLastMessageTime(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_LAST_MESSAGE_TIME)));
-                    chat.setCreatedAt(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_CREATED_AT)));
-                    chat.setUpdatedAt(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_UPDATED_AT)));
-                    
-                    chats.add(chat);
+                    chats.add(readChat(cursor));
                 } while (cursor.moveToNext());
             }
             
@@ -203,19 +461,19 @@ public class ChatsCacheHelper extends SQLiteOpenHelper {
         Cursor cursor = null;
         
         try {
+            // Las filas sin cambios conservan su cached_at: la frescura es la de la última sincronización
             cursor = db.query(
-                    TABLE_CHATS,
-                    new String[]{COLUMN_CACHED_AT},
-                    null,
-                    null,
+                    TABLE_CACHE_SYNC,
+                    new String[]{COLUMN_SYNCED_AT},
+                    COLUMN_SYNC_NAME + " = ?",
+                    new String[]{SYNC_CHATS},
                     null,
                     null,
-                    COLUMN_CACHED_AT + " DESC",
-                    "1"
+                    null
             );
             
-            if (cursor != null && cursor.moveToFirst()) {
-                long cachedAt = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_CACHED_AT));
+            if (cursor != null && cursor.moveToFirst() && DatabaseUtils.queryNumEntries(db, TABLE_CHATS) > 0) {
+                long cachedAt = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_SYNCED_AT));
                 long age = System.currentTimeMillis() - cachedAt;
                 return age < maxAgeMillis;
             }
@@ -289,6 +547,9 @@ public class ChatsCacheHelper extends SQLiteOpenHelper {
     
     /**
      * Guardar chat completo con mensajes en caché
+     * Solo escribe los mensajes nuevos o modificados; los que no cambiaron no se tocan.
+     * La comparación la hace SQLite fila a fila (sin UPSERT, que llega con API 30), así que
+     * no se leen los mensajes ya guardados del chat.
      * @param chatDetail Chat detallado con mensajes
      */
     public void cacheChatDetail(ChatDetailResponse chatDetail) {
@@ -298,31 +559,57 @@ public class ChatsCacheHelper extends SQLiteOpenHelper {
         }
         
         SQLiteDatabase db = this.getWritableDatabase();
-        long currentTime = System.currentTimeMillis();
+        String chatId = chatDetail.getId();
+        int inserted = 0;
+        int updated = 0;
         
+        db.beginTransaction();
+        SQLiteStatement insert = null;
+        SQLiteStatement update = null;
         try {
+            // Cabecera del chat
             ContentValues values = new ContentValues();
-            values.put(COLUMN_CHAT_ID, chatDetail.getId());
             values.put(COLUMN_USER, chatDetail.getUser());
             values.put(COLUMN_USERNAME, chatDetail.getUsername());
             values.put(COLUMN_PROFILE_IMG, chatDetail.getProfileImg());
-            
-            // Serializar lista de mensajes a JSON
-            String messagesJson = gson.toJson(chatDetail.getMessages());
-            values.put(COLUMN_MESSAGES_JSON, messagesJson);
-            
             values.put(COLUMN_CREATED_AT, chatDetail.getCreatedAt());
             values.put(COLUMN_UPDATED_AT, chatDetail.getUpdatedAt());
-            values.put(COLUMN_DETAIL_CACHED_AT, currentTime);
+            values.put(COLUMN_DETAIL_CACHED_AT, System.currentTimeMillis());
+            if (db.update(TABLE_CHATS_DETAIL, values, COLUMN_CHAT_ID + " = ?", new String[]{chatId}) == 0) {
+                values.put(COLUMN_CHAT_ID, chatId);
+                db.insert(TABLE_CHATS_DETAIL, null, values);
+            }
             
-            // Insert or replace
-            db.insertWithOnConflict(TABLE_CHATS_DETAIL, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            // Mensajes: insertar los nuevos y actualizar solo los que cambiaron
+            insert = db.compileStatement(INSERT_MESSAGE);
+            update = db.compileStatement(UPDATE_MESSAGE);
+            for (MessageResponse message : chatDetail.getMessages()) {
+                if (message == null || message.getId() == null) {
+                    continue;
+                }
+                bindMessage(insert, chatId, message);
+                if (insert.executeInsert() != -1) {
+                    inserted++;
+                    continue;
+                }
+                bindMessageUpdate(update, chatId, message);
+                updated += update.executeUpdateDelete();
+            }
             
-            Log.d(TAG, "Chat detail cached: " + chatDetail.getId() + " with " + 
-                    chatDetail.getMessages().size() + " messages");
+            db.setTransactionSuccessful();
+            Log.d(TAG, "Chat detail cached: " + chatId + " with " + chatDetail.getMessages().size() +
+                    " messages (" + inserted + " new, " + updated + " changed)");
             
         } catch (Exception e) {
             Log.e(TAG, "Error caching chat detail", e);
+        } finally {
+            if (insert != null) {
+                insert.close();
+            }
+            if (update != null) {
+                update.close();
+            }
+            db.endTransaction();
         }
     }
     
@@ -359,10 +646,8 @@ public class ChatsCacheHelper extends SQLiteOpenHelper {
                 chatDetail.setCreatedAt(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_CREATED_AT)));
                 chatDetail.setUpdatedAt(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_UPDATED_AT)));
                 
-                // Deserializar JSON de mensajes
-                String messagesJson = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MESSAGES_JSON));
-                Type messageListType = new TypeToken<List<MessageResponse>>(){}.getType();
-                List<MessageResponse> messages = gson.fromJson(messagesJson, messageListType);
+                List<MessageResponse> messages = queryMessages(db, COLUMN_CHAT_ID + " = ?",
+                        new String[]{chatId}, MESSAGES_ORDER, null);
                 chatDetail.setMessages(messages);
                 
                 Log.d(TAG, "Chat detail loaded from cache: " + chatId + " with " + 
@@ -382,6 +667,167 @@ public class ChatsCacheHelper extends SQLiteOpenHelper {
         return null;
     }
     
+    /**
+     * Obtener los últimos mensajes de un chat anteriores a uno dado (en orden cronológico)
+     * El orden es el mismo de getCachedChatDetail, así que las páginas no se solapan
+     * aunque varios mensajes tengan el mismo created_at
+     * @param chatId ID del chat
+     * @param beforeMessageId Mensaje más antiguo ya cargado, o null para los más recientes
+     * @param limit Número máximo de mensajes
+     * @return Mensajes del rango, del más antiguo al más reciente
+     */
+    public List<MessageResponse> getCachedMessagesBefore(String chatId, String beforeMessageId, int limit) {
+        List<MessageResponse> messages = new ArrayList<>();
+        if (chatId == null || chatId.isEmpty()) {
+            return messages;
+        }
+        
+        try {
+            SQLiteDatabase db = getReadableDatabase();
+            String selection = COLUMN_CHAT_ID + " = ?";
+            String[] args = new String[]{chatId};
+            if (beforeMessageId != null) {
+                String[] anchor = findMessagePosition(db, chatId, beforeMessageId);
+                if (anchor == null) {
+                    return messages;
+                }
+                selection += " AND (" + COLUMN_CREATED_AT + " < ? OR (" + COLUMN_CREATED_AT + " = ? AND rowid < CAST(? AS INTEGER)))";
+                args = new String[]{chatId, anchor[0], anchor[0], anchor[1]};
+            }
+            // Los más recientes primero para aplicar el límite, luego en orden cronológico
+            messages = queryMessages(db, selection, args, COLUMN_CREATED_AT + " DESC, rowid DESC",
+                    String.valueOf(limit));
+            Collections.reverse(messages);
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading cached messages", e);
+        }
+        
+        return messages;
+    }
+    
+    /**
+     * Obtener los mensajes de un chat desde uno dado (incluido) hasta el más reciente
+     * @param chatId ID del chat
+     * @param fromMessageId Primer mensaje del rango
+     * @return Mensajes del rango en orden cronológico, o vacía si el mensaje no está guardado
+     */
+    public List<MessageResponse> getCachedMessagesFrom(String chatId, String fromMessageId) {
+        List<MessageResponse> messages = new ArrayList<>();
+        if (chatId == null || chatId.isEmpty() || fromMessageId == null) {
+            return messages;
+        }
+        
+        try {
+            SQLiteDatabase db = getReadableDatabase();
+            String[] anchor = findMessagePosition(db, chatId, fromMessageId);
+            if (anchor == null) {
+                return messages;
+            }
+            messages = queryMessages(db,
+                    COLUMN_CHAT_ID + " = ? AND (" + COLUMN_CREATED_AT + " > ? OR (" + COLUMN_CREATED_AT + " = ? AND rowid >= CAST(? AS INTEGER)))",
+                    new String[]{chatId, anchor[0], anchor[0], anchor[1]}, MESSAGES_ORDER, null);
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading cached messages", e);
+        }
+        
+        return messages;
+    }
+    
+    /**
+     * created_at y rowid de un mensaje guardado, o null si no está
+     */
+    private String[] findMessagePosition(SQLiteDatabase db, String chatId, String messageId) {
+        try (Cursor cursor = db.query(TABLE_MESSAGES, new String[]{COLUMN_CREATED_AT, "rowid"},
+                COLUMN_CHAT_ID + " = ? AND " + COLUMN_MESSAGE_ID + " = ?", new String[]{chatId, messageId},
+                null, null, null)) {
+            if (cursor.moveToFirst()) {
+                return new String[]{cursor.getString(0), String.valueOf(cursor.getLong(1))};
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Obtener el número de mensajes guardados de un chat
+     */
+    public int getCachedMessagesCount(String chatId) {
+        if (chatId == null || chatId.isEmpty()) {
+            return 0;
+        }
+        
+        try {
+            return (int) DatabaseUtils.queryNumEntries(getReadableDatabase(), TABLE_MESSAGES,
+                    COLUMN_CHAT_ID + " = ?", new String[]{chatId});
+        } catch (Exception e) {
+            Log.e(TAG, "Error counting cached messages", e);
+            return 0;
+        }
+    }
+    
+    private List<MessageResponse> queryMessages(SQLiteDatabase db, String selection, String[] args,
+                                                String orderBy, String limit) {
+        List<MessageResponse> messages = new ArrayList<>();
+        try (Cursor cursor = db.query(TABLE_MESSAGES, null, selection, args, null, null, orderBy, limit)) {
+            if (cursor.getCount() == 0) {
+                return messages;
+            }
+            int idIndex = cursor.getColumnIndexOrThrow(COLUMN_MESSAGE_ID);
+            int senderIndex = cursor.getColumnIndexOrThrow(COLUMN_SENDER_ID);
+            int contentIndex = cursor.getColumnIndexOrThrow(COLUMN_CONTENT);
+            int attachmentIndex = cursor.getColumnIndexOrThrow(COLUMN_ATTACHMENT_URL);
+            int mimeTypeIndex = cursor.getColumnIndexOrThrow(COLUMN_MIME_TYPE);
+            int deletedIndex = cursor.getColumnIndexOrThrow(COLUMN_IS_DELETED);
+            int createdIndex = cursor.getColumnIndexOrThrow(COLUMN_CREATED_AT);
+            int updatedIndex = cursor.getColumnIndexOrThrow(COLUMN_UPDATED_AT);
+            while (cursor.moveToNext()) {
+                messages.add(new MessageResponse(
+                        cursor.getString(idIndex),
+                        cursor.getString(senderIndex),
+                        cursor.getString(contentIndex),
+                        cursor.getString(attachmentIndex),
+                        cursor.getString(mimeTypeIndex),
+                        cursor.getInt(deletedIndex) != 0,
+                        cursor.getString(createdIndex),
+                        cursor.getString(updatedIndex)));
+            }
+        }
+        return messages;
+    }
+    
+    private static void bindMessage(SQLiteStatement statement, String chatId, MessageResponse message) {
+        statement.clearBindings();
+        bindNullable(statement, 1, chatId);
+        bindNullable(statement, 2, message.getId());
+        bindNullable(statement, 3, message.getSenderId());
+        bindNullable(statement, 4, message.getContent());
+        bindNullable(statement, 5, message.getAttachmentUrl());
+        bindNullable(statement, 6, message.getMimeType());
+        statement.bindLong(7, message.isDeleted() ? 1 : 0);
+        bindNullable(statement, 8, message.getCreatedAt());
+        bindNullable(statement, 9, message.getUpdatedAt());
+    }
+    
+    private static void bindMessageUpdate(SQLiteStatement statement, String chatId, MessageResponse message) {
+        statement.clearBindings();
+        bindNullable(statement, 1, message.getSenderId());
+        bindNullable(statement, 2, message.getContent());
+        bindNullable(statement, 3, message.getAttachmentUrl());
+        bindNullable(statement, 4, message.getMimeType());
+        statement.bindLong(5, message.isDeleted() ? 1 : 0);
+        bindNullable(statement, 6, message.getCreatedAt());
+        bindNullable(statement, 7, message.getUpdatedAt());
+        bindNullable(statement, 8, chatId);
+        bindNullable(statement, 9, message.getId());
+    }
+    
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+    
     /**
      * Verificar si existe un chat detallado en caché y si es reciente
      * @param chatId ID del chat
@@ -434,6 +880,8 @@ public class ChatsCacheHelper extends SQLiteOpenHelper {
         try {
             db.delete(TABLE_CHATS, null, null);
             db.delete(TABLE_CHATS_DETAIL, null, null);
+            db.delete(TABLE_MESSAGES, null, null);
+            db.delete(TABLE_CACHE_SYNC, null, null);
             Log.d(TAG, "All cache cleared");
         } catch (Exception e) {
             Log.e(TAG, "Error clearing cache", e);
@@ -447,6 +895,7 @@ public class ChatsCacheHelper extends SQLiteOpenHelper {
         SQLiteDatabase db = this.getWritableDatabase();
         try {
             db.delete(TABLE_CHATS, null, null);
+            db.delete(TABLE_CACHE_SYNC, COLUMN_SYNC_NAME + " = ?", new String[]{SYNC_CHATS});
             Log.d(TAG, "Chats cache cleared");
         } catch (Exception e) {
             Log.e(TAG, "Error clearing chats cache", e);
@@ -462,11 +911,16 @@ public class ChatsCacheHelper extends SQLiteOpenHelper {
         }
         
         SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
         try {
             db.delete(TABLE_CHATS_DETAIL, COLUMN_CHAT_ID + " = ?", new String[]{chatId});
+            db.delete(TABLE_MESSAGES, COLUMN_CHAT_ID + " = ?", new String[]{chatId});
+            db.setTransactionSuccessful();
             Log.d(TAG, "Chat detail cache cleared: " + chatId);
         } catch (Exception e) {
             Log.e(TAG, "Error clearing chat detail cache", e);
+        } finally {
+            db.endTransaction();
         }
     }
     
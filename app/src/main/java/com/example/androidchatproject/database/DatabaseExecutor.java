@@ -0,0 +1,136 @@
+package com.example.androidchatproject.database;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hilos de la base de datos del proceso
+ * Todas las escrituras pasan por un único hilo, en orden de llegada: nunca compiten por el
+ * lock de escritura de SQLite. Las lecturas usan un pool pequeño que, con la base en WAL,
+ * corre en paralelo con la escritura en curso. Los resultados se entregan en el hilo principal.
+ * Si una tarea falla, el callback se llama igual con el valor de reserva indicado al encolarla
+ * (una lista vacía, 0, o null si no se indica): quien espera el resultado siempre se entera.
+ */
+public class DatabaseExecutor {
+
+    private static final String TAG = "DatabaseExecutor";
+    private static final int READER_THREADS = 2;
+
+    /**
+     * Resultado de una operación, siempre en el hilo principal
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private static volatile DatabaseExecutor instance;
+
+    private final ExecutorService writer;
+    private final ExecutorService readers;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private DatabaseExecutor() {
+        writer = Executors.newSingleThreadExecutor(threadFactory("db-writer"));
+        readers = Executors.newFixedThreadPool(READER_THREADS, threadFactory("db-reader"));
+    }
+
+    /**
+     * Instancia única del proceso
+     */
+    public static DatabaseExecutor getInstance() {
+        if (instance == null) {
+            synchronized (DatabaseExecutor.class) {
+                if (instance == null) {
+                    instance = new DatabaseExecutor();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Encola una escritura en el hilo escritor
+     * @param callback Recibe el resultado en el hilo principal (null si la tarea falla), o null si no hace falta
+     */
+    public <T> void write(Callable<T> task, Callback<T> callback) {
+        write(task, null, callback);
+    }
+
+    /**
+     * Como write, con el valor que recibe el callback si la tarea falla
+     */
+    public <T> void write(Callable<T> task, T fallback, Callback<T> callback) {
+        writes.incrementAndGet();
+        writer.execute(() -> run(task, fallback, callback));
+    }
+
+    /**
+     * Encola una lectura en el pool de lectores
+     * Ve lo último confirmado: una escritura todavía en cola puede no estar incluida.
+     * @param callback Recibe el resultado en el hilo principal (null si la tarea falla)
+     */
+    public <T> void read(Callable<T> task, Callback<T> callback) {
+        read(task, null, callback);
+    }
+
+    /**
+     * Como read, con el valor que recibe el callback si la tarea falla
+     */
+    public <T> void read(Callable<T> task, T fallback, Callback<T> callback) {
+        reads.incrementAndGet();
+        readers.execute(() -> run(task, fallback, callback));
+    }
+
+    private <T> void run(Callable<T> task, T fallback, Callback<T> callback) {
+        T result;
+        try {
+            result = task.call();
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            Log.e(TAG, "Database task failed", e);
+            result = fallback;
+        }
+        if (callback != null) {
+            T delivered = result;
+            mainHandler.post(() -> callback.onResult(delivered));
+        }
+    }
+
+    public long getWriteCount() {
+        return writes.get();
+    }
+
+    public long getReadCount() {
+        return reads.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "DatabaseExecutor{writes=" + writes.get() + ", reads=" + reads.get()
+                + ", failures=" + failures.get() + "}";
+    }
+}
@@ -4,12 +4,11 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteOpenHelper;
 
-public class DatabaseHelper extends SQLiteOpenHelper {
-    
-    private static final String DATABASE_NAME = "ChatApp.db";
-    private static final int DATABASE_VERSION = 2; // Incrementado para agregar nuevas columnas
+/**
+ * Saved session (token, user) stored in the shared AppDatabase
+ */
+public class DatabaseHelper {
     
     // Table name
     private static final String TABLE_SESSION = "session";
@@ -33,19 +32,41 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         COLUMN_CREATED_AT + " DATETIME DEFAULT CURRENT_TIMESTAMP" +
         ")";
     
+    private final AppDatabase database;
+    
     public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.database = AppDatabase.getInstance(context);
     }
     
-    @Override
-    public void onCreate(SQLiteDatabase db) {
+    static void createTables(SQLiteDatabase db) {
         db.execSQL(CREATE_TABLE_SESSION);
     }
     
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SESSION);
-        onCreate(db);
+    /**
+     * Version 1 had no user_id/username columns; keep the saved token when adding them
+     */
+    static void upgradeTables(SQLiteDatabase db, int oldVersion) {
+        if (oldVersion < 2) {
+            addColumnIfMissing(db, COLUMN_USER_ID);
+            addColumnIfMissing(db, COLUMN_USERNAME);
+        }
+    }
+    
+    private static void addColumnIfMissing(SQLiteDatabase db, String column) {
+        try (Cursor cursor = db.rawQuery("SELECT * FROM " + TABLE_SESSION + " LIMIT 0", null)) {
+            if (cursor.getColumnIndex(column) != -1) {
+                return;
+            }
+        }
+        db.execSQL("ALTER TABLE " + TABLE_SESSION + " ADD COLUMN " + column + " TEXT");
+    }
+    
+    private SQLiteDatabase getWritableDatabase() {
+        return database.getWritableDatabase();
+    }
+    
+    private SQLiteDatabase getReadableDatabase() {
+        return database.getReadableDatabase();
     }
     
     /**
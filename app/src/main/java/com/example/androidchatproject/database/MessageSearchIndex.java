@@ -0,0 +1,278 @@
+package com.example.androidchatproject.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.example.androidchatproject.model.chats.MessageSearchHit;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Índice de texto completo (FTS4) sobre el contenido de los mensajes guardados
+ * Es una tabla FTS de contenido externo: el texto vive solo en messages y el índice se
+ * mantiene con triggers, así que cada mensaje nuevo o editado que escribe cacheChatDetail
+ * se indexa en la misma transacción y los que no cambiaron no cuestan nada.
+ * La búsqueda se hace en dos pasos: primero se ordenan los resultados por BM25 con los
+ * contadores de matchinfo (solo enteros, sin leer texto) y después se arman los fragmentos
+ * únicamente para la página pedida. El orden de la última búsqueda se reutiliza al paginar.
+ * Solo se ordenan por relevancia los MAX_CANDIDATES mensajes que coinciden con fecha
+ * (created_at) más reciente, sin importar cuándo se guardaron en la caché; los más antiguos
+ * no aparecen en los resultados. Los candidatos se eligen en una subconsulta que no lee
+ * matchinfo, así que una palabra muy común no lo calcula para toda la tabla.
+ */
+public class MessageSearchIndex {
+
+    private static final String TAG = "MessageSearchIndex";
+
+    static final String TABLE_MESSAGES_FTS = "messages_fts";
+
+    private static final String SNIPPET_START = "«";
+    private static final String SNIPPET_END = "»";
+    private static final String SNIPPET_ELLIPSIS = "…";
+    private static final int SNIPPET_TOKENS = 12;
+
+    // Mensajes que coinciden (los de created_at más reciente) que se ordenan por relevancia
+    static final int MAX_CANDIDATES = 2000;
+
+    // Parámetros habituales de BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final String MESSAGES = ChatsCacheHelper.TABLE_MESSAGES;
+    private static final String CONTENT = ChatsCacheHelper.COLUMN_CONTENT;
+
+    private static final String CANDIDATES_QUERY = "SELECT " + TABLE_MESSAGES_FTS + ".docid FROM " +
+            TABLE_MESSAGES_FTS + " JOIN " + MESSAGES + " ON " + MESSAGES + ".rowid = " + TABLE_MESSAGES_FTS +
+            ".docid WHERE " + TABLE_MESSAGES_FTS + " MATCH ?1 AND " + MESSAGES + "." +
+            ChatsCacheHelper.COLUMN_IS_DELETED + " = 0 ORDER BY " + MESSAGES + "." +
+            ChatsCacheHelper.COLUMN_CREATED_AT + " DESC, " + MESSAGES + ".rowid DESC LIMIT " + MAX_CANDIDATES;
+
+    private static final String RANK_QUERY = "SELECT docid, matchinfo(" + TABLE_MESSAGES_FTS +
+            ", 'pcnalx') FROM " + TABLE_MESSAGES_FTS + " WHERE " + TABLE_MESSAGES_FTS +
+            " MATCH ?1 AND docid IN (" + CANDIDATES_QUERY + ")";
+
+    private final AppDatabase database;
+
+    // Orden completo de la última búsqueda, para las páginas siguientes
+    private String rankedQuery;
+    private long[] rankedDocIds;
+    private double[] rankedScores;
+
+    public MessageSearchIndex(Context context) {
+        this.database = AppDatabase.getInstance(context);
+    }
+
+    /**
+     * Crea el índice y los triggers que lo mantienen (idempotente)
+     */
+    static void createIndex(SQLiteDatabase db) {
+        // unicode61 ignora mayúsculas y tildes: "cancion" encuentra "Canción"
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_MESSAGES_FTS + " USING fts4(" +
+                CONTENT + ", content=\"" + MESSAGES + "\", tokenize=unicode61)");
+        // Con contenido externo hay que borrar del índice antes de que cambie la fila
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TABLE_MESSAGES_FTS + "_bu BEFORE UPDATE OF " + CONTENT +
+                " ON " + MESSAGES + " BEGIN DELETE FROM " + TABLE_MESSAGES_FTS +
+                " WHERE docid = old.rowid; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TABLE_MESSAGES_FTS + "_bd BEFORE DELETE ON " + MESSAGES +
+                " BEGIN DELETE FROM " + TABLE_MESSAGES_FTS + " WHERE docid = old.rowid; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TABLE_MESSAGES_FTS + "_au AFTER UPDATE OF " + CONTENT +
+                " ON " + MESSAGES + " BEGIN INSERT INTO " + TABLE_MESSAGES_FTS + "(docid, " + CONTENT +
+                ") VALUES (new.rowid, new." + CONTENT + "); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TABLE_MESSAGES_FTS + "_ai AFTER INSERT ON " + MESSAGES +
+                " BEGIN INSERT INTO " + TABLE_MESSAGES_FTS + "(docid, " + CONTENT +
+                ") VALUES (new.rowid, new." + CONTENT + "); END");
+    }
+
+    /**
+     * Vuelve a indexar todos los mensajes guardados (al crear el índice sobre datos existentes)
+     */
+    static void rebuild(SQLiteDatabase db) {
+        db.execSQL("INSERT INTO " + TABLE_MESSAGES_FTS + "(" + TABLE_MESSAGES_FTS + ") VALUES ('rebuild')");
+    }
+
+    /**
+     * Buscar mensajes por contenido
+     * Cada palabra de la consulta debe aparecer (como prefijo) en el mensaje.
+     * @param query Texto escrito por el usuario
+     * @param offset Resultados a saltar (0 = nueva búsqueda)
+     * @param limit Tamaño de la página
+     * @return Resultados del más al menos relevante; vacía si no hay más
+     */
+    public List<MessageSearchHit> search(String query, int offset, int limit) {
+        String match = matchExpression(query);
+        if (match == null || limit <= 0 || offset < 0) {
+            return new ArrayList<>();
+        }
+
+        long start = System.nanoTime();
+        try {
+            SQLiteDatabase db = database.getReadableDatabase();
+            synchronized (this) {
+                if (offset == 0 || !match.equals(rankedQuery)) {
+                    rank(db, match);
+                }
+                if (offset >= rankedDocIds.length) {
+                    return new ArrayList<>();
+                }
+                int end = Math.min(rankedDocIds.length, offset + limit);
+                List<MessageSearchHit> hits = loadPage(db, match,
+                        Arrays.copyOfRange(rankedDocIds, offset, end),
+                        Arrays.copyOfRange(rankedScores, offset, end));
+                Log.d(TAG, "Search \"" + match + "\": " + rankedDocIds.length + " hits, page of " + hits.size() +
+                        " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                return hits;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error searching messages", e);
+            return new ArrayList<>();
+        }
+    }
+
+    private void rank(SQLiteDatabase db, String match) {
+        long[] docIds;
+        double[] scores;
+        int count = 0;
+        try (Cursor cursor = db.rawQuery(RANK_QUERY, new String[]{match})) {
+            docIds = new long[cursor.getCount()];
+            scores = new double[docIds.length];
+            while (cursor.moveToNext() && count < docIds.length) {
+                docIds[count] = cursor.getLong(0);
+                scores[count] = bm25(decodeMatchinfo(cursor.getBlob(1)));
+                count++;
+            }
+        }
+
+        // Por relevancia y, a igual relevancia, el último guardado primero
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byScore = Double.compare(scores[b], scores[a]);
+            return byScore != 0 ? byScore : Long.compare(docIds[b], docIds[a]);
+        });
+
+        rankedQuery = match;
+        rankedDocIds = new long[count];
+        rankedScores = new double[count];
+        for (int i = 0; i < count; i++) {
+            rankedDocIds[i] = docIds[order[i]];
+            rankedScores[i] = scores[order[i]];
+        }
+    }
+
+    private List<MessageSearchHit> loadPage(SQLiteDatabase db, String match, long[] docIds, double[] scores) {
+        StringBuilder ids = new StringBuilder();
+        for (long docId : docIds) {
+            if (ids.length() > 0) {
+                ids.append(',');
+            }
+            ids.append(docId);
+        }
+        String sql = "SELECT " + TABLE_MESSAGES_FTS + ".docid, " + MESSAGES + "." + ChatsCacheHelper.COLUMN_CHAT_ID +
+                ", " + MESSAGES + "." + ChatsCacheHelper.COLUMN_MESSAGE_ID + ", snippet(" + TABLE_MESSAGES_FTS +
+                ", '" + SNIPPET_START + "', '" + SNIPPET_END + "', '" + SNIPPET_ELLIPSIS + "', -1, " +
+                SNIPPET_TOKENS + ") FROM " + TABLE_MESSAGES_FTS + " JOIN " + MESSAGES + " ON " + MESSAGES +
+                ".rowid = " + TABLE_MESSAGES_FTS + ".docid WHERE " + TABLE_MESSAGES_FTS + " MATCH ? AND " +
+                TABLE_MESSAGES_FTS + ".docid IN (" + ids + ")";
+
+        Map<Long, MessageSearchHit> byDocId = new HashMap<>();
+        Map<Long, Double> scoreByDocId = new HashMap<>();
+        for (int i = 0; i < docIds.length; i++) {
+            scoreByDocId.put(docIds[i], scores[i]);
+        }
+        try (Cursor cursor = db.rawQuery(sql, new String[]{match})) {
+            while (cursor.moveToNext()) {
+                long docId = cursor.getLong(0);
+                byDocId.put(docId, new MessageSearchHit(cursor.getString(1), cursor.getString(2),
+                        cursor.getString(3), scoreByDocId.get(docId)));
+            }
+        }
+
+        // Mantener el orden del ranking (los mensajes borrados desde entonces se omiten)
+        List<MessageSearchHit> hits = new ArrayList<>(docIds.length);
+        for (long docId : docIds) {
+            MessageSearchHit hit = byDocId.get(docId);
+            if (hit != null) {
+                hits.add(hit);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Convierte el texto del usuario en una consulta MATCH de FTS4
+     * Cada palabra se busca como prefijo y todas deben aparecer; los operadores y comillas
+     * que escriba el usuario se tratan como texto, nunca como sintaxis.
+     * @return null si no queda ninguna palabra
+     */
+    static String matchExpression(String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        for (String word : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append('"').append(word).append("\"*");
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    /**
+     * Lee el resultado de matchinfo: enteros de 32 bits sin signo en el orden de bytes nativo
+     */
+    static int[] decodeMatchinfo(byte[] blob) {
+        ByteBuffer buffer = ByteBuffer.wrap(blob).order(ByteOrder.nativeOrder());
+        int[] values = new int[blob.length / 4];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getInt();
+        }
+        return values;
+    }
+
+    /**
+     * BM25 a partir de matchinfo 'pcnalx'
+     * p frases, c columnas, n filas, a[c] largo medio, l[c] largo de esta fila y,
+     * por cada frase y columna, x = (apariciones en la fila, en total, filas con aparición)
+     */
+    static double bm25(int[] info) {
+        int phrases = info[0];
+        int columns = info[1];
+        long rows = info[2] & 0xFFFFFFFFL;
+        int averageOffset = 3;
+        int lengthOffset = averageOffset + columns;
+        int hitsOffset = lengthOffset + columns;
+
+        double score = 0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns; column++) {
+                int base = hitsOffset + 3 * (phrase * columns + column);
+                double termFrequency = info[base] & 0xFFFFFFFFL;
+                if (termFrequency == 0) {
+                    continue;
+                }
+                double rowsWithHit = info[base + 2] & 0xFFFFFFFFL;
+                double idf = Math.log(1 + (rows - rowsWithHit + 0.5) / (rowsWithHit + 0.5));
+                double averageLength = Math.max(1, info[averageOffset + column] & 0xFFFFFFFFL);
+                double length = info[lengthOffset + column] & 0xFFFFFFFFL;
+                double norm = K1 * (1 - B + B * length / averageLength);
+                score += idf * termFrequency * (K1 + 1) / (termFrequency + norm);
+            }
+        }
+        return score;
+    }
+}
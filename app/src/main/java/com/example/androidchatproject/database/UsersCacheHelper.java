@@ -4,7 +4,6 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteOpenHelper;
 import android.util.Log;
 
 import com.example.androidchatproject.model.user.UserListItem;
@@ -13,16 +12,18 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Helper para base de datos de caché de usuarios
+ * Helper para la caché de usuarios
+ * La tabla vive en la base compartida AppDatabase.
  */
-public class UsersCacheHelper extends SQLiteOpenHelper {
+public class UsersCacheHelper {
     
     private static final String TAG = "UsersCacheHelper";
-    private static final String DATABASE_NAME = "users_cache.db";
-    private static final int DATABASE_VERSION = 1;
+    
+    // Archivo propio que usaban las versiones anteriores; AppDatabase lo importa una vez
+    static final String LEGACY_DATABASE_NAME = "users_cache.db";
     
     // Tabla de usuarios
-    private static final String TABLE_USERS = "users";
+    static final String TABLE_USERS = "users";
     private static final String COLUMN_USER_ID = "user_id";
     private static final String COLUMN_USERNAME = "username";
     private static final String COLUMN_PROFILE_IMAGE_URL = "profile_image_url";
@@ -37,21 +38,23 @@ public class UsersCacheHelper extends SQLiteOpenHelper {
                     COLUMN_CACHED_AT + " INTEGER NOT NULL" +
                     ")";
     
+    private final AppDatabase database;
+    
     public UsersCacheHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.database = AppDatabase.getInstance(context);
     }
     
-    @Override
-    public void onCreate(SQLiteDatabase db) {
+    static void createTables(SQLiteDatabase db) {
         db.execSQL(CREATE_TABLE_USERS);
         Log.d(TAG, "[SUCCESS] Tabla de usuarios creada");
     }
     
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_USERS);
-        onCreate(db);
-        Log.d(TAG, "🔄 Base de datos actualizada");
+    private SQLiteDatabase getWritableDatabase() {
+        return database.getWritableDatabase();
+    }
+    
+    private SQLiteDatabase getReadableDatabase() {
+        return database.getReadableDatabase();
     }
     
     /**
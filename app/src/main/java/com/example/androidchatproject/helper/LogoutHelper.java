@@ -19,7 +19,9 @@ public class LogoutHelper {
     private static final String TAG = "LogoutHelper";
     
     /**
-     * Ejecutar logout: llama al API, limpia sesión local y redirige al login
+     * Ejecutar logout: limpia la sesión local, redirige al login y avisa al API
+     * La sesión se limpia antes de la llamada, así no depende de que la pantalla siga viva;
+     * la llamada usa el contexto de la aplicación para no cancelarse al cerrar la Activity.
      */
     public static void performLogout(Activity activity) {
         SessionManager sessionManager = new SessionManager(activity);
@@ -33,38 +35,29 @@ public class LogoutHelper {
         
         Log.d(TAG, "Iniciando logout...");
         
-        // Mostrar indicador de carga (opcional)
-        Toast.makeText(activity, "Cerrando sesión...", Toast.LENGTH_SHORT).show();
+        Context appContext = activity.getApplicationContext();
         
-        ApiHttpClientUser apiClient = new ApiHttpClientUser(activity);
+        // Limpiar sesión local primero: aunque falle el API o se cierre la pantalla
+        sessionManager.clearSession();
+        
+        ApiHttpClientUser apiClient = new ApiHttpClientUser(appContext);
         
         apiClient.logout(token, new ApiHttpClientUser.LogoutCallback() {
             @Override
             public void onSuccess(LogoutResponse response) {
                 Log.d(TAG, "✅ Logout exitoso en el servidor");
-                
-                // Limpiar sesión local
-                sessionManager.clearSession();
-                
-                Toast.makeText(activity, "Sesión cerrada correctamente", Toast.LENGTH_SHORT).show();
-                
-                // Redirigir al login
-                redirectToLogin(activity);
+                Toast.makeText(appContext, "Sesión cerrada correctamente", Toast.LENGTH_SHORT).show();
             }
             
             @Override
             public void onError(Exception error) {
                 Log.e(TAG, "Error al cerrar sesión en el servidor", error);
-                
-                // Aunque falle el API, limpiar sesión local de todos modos
-                sessionManager.clearSession();
-                
-                Toast.makeText(activity, "Sesión cerrada localmente", Toast.LENGTH_SHORT).show();
-                
-                // Redirigir al login
-                redirectToLogin(activity);
+                Toast.makeText(appContext, "Sesión cerrada localmente", Toast.LENGTH_SHORT).show();
             }
         });
+        
+        // Redirigir al login
+        redirectToLogin(activity);
     }
     
     /**
@@ -0,0 +1,110 @@
+package com.example.androidchatproject.helper;
+
+import com.example.androidchatproject.model.chats.MessageResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ventana de mensajes de un chat que se muestra en pantalla
+ * Se abre con la última página de mensajes del almacenamiento local y crece hacia atrás
+ * de a una página cuando el usuario sube. Al refrescar se vuelve a leer desde el mensaje
+ * más antiguo de la ventana, así que las páginas ya cargadas se mantienen.
+ * Las cargas se serializan entre sí (leen SQLite en hilos de fondo); las lecturas del estado
+ * no toman el lock, para no bloquear el hilo principal mientras hay una carga en curso.
+ */
+public class MessageWindow {
+
+    /**
+     * Origen de las páginas (la cache SQLite en la app)
+     */
+    public interface PageSource {
+        /**
+         * Hasta limit mensajes anteriores a beforeMessageId (null = los más recientes), en orden cronológico
+         */
+        List<MessageResponse> loadBefore(String beforeMessageId, int limit);
+
+        /**
+         * Mensajes desde fromMessageId (incluido) hasta el más reciente; vacía si ya no está
+         */
+        List<MessageResponse> loadFrom(String fromMessageId);
+    }
+
+    private final PageSource source;
+    private final int pageSize;
+    // Se reemplaza la lista entera en cada carga, nunca se modifica después de publicarla
+    private volatile List<MessageResponse> messages = new ArrayList<>();
+    private volatile boolean hasOlder = true;
+
+    public MessageWindow(PageSource source, int pageSize) {
+        this.source = source;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Reemplaza la ventana por la página más reciente
+     * @return Mensajes de la ventana
+     */
+    public synchronized List<MessageResponse> loadLatest() {
+        messages = new ArrayList<>(source.loadBefore(null, pageSize));
+        hasOlder = messages.size() >= pageSize;
+        return getMessages();
+    }
+
+    /**
+     * Agrega al principio la página anterior al mensaje más antiguo de la ventana
+     * @return Número de mensajes agregados (0 si no hay más)
+     */
+    public synchronized int loadOlder() {
+        if (messages.isEmpty()) {
+            return loadLatest().size();
+        }
+        if (!hasOlder) {
+            return 0;
+        }
+        List<MessageResponse> page = source.loadBefore(messages.get(0).getId(), pageSize);
+        hasOlder = page.size() >= pageSize;
+        if (!page.isEmpty()) {
+            List<MessageResponse> merged = new ArrayList<>(page.size() + messages.size());
+            merged.addAll(page);
+            merged.addAll(messages);
+            messages = merged;
+        }
+        return page.size();
+    }
+
+    /**
+     * Vuelve a leer la ventana tras guardar mensajes nuevos o modificados
+     * @return Mensajes de la ventana
+     */
+    public synchronized List<MessageResponse> refresh() {
+        if (messages.isEmpty()) {
+            return loadLatest();
+        }
+        List<MessageResponse> current = source.loadFrom(messages.get(0).getId());
+        if (current.isEmpty()) {
+            // El mensaje más antiguo ya no está guardado (ej: se limpió la cache)
+            return loadLatest();
+        }
+        messages = new ArrayList<>(current);
+        return getMessages();
+    }
+
+    /**
+     * Copia de los mensajes de la ventana, del más antiguo al más reciente
+     */
+    public List<MessageResponse> getMessages() {
+        return new ArrayList<>(messages);
+    }
+
+    /**
+     * Si puede haber mensajes anteriores a la ventana
+     */
+    public boolean hasOlder() {
+        return hasOlder;
+    }
+
+    public int size() {
+        return messages.size();
+    }
+}
@@ -8,20 +8,30 @@ import android.os.Looper;
 import android.util.Log;
 import android.widget.ImageView;
 
+import androidx.lifecycle.LifecycleOwner;
+
 import com.example.androidchatproject.R;
 import com.example.androidchatproject.config.ApiConfig;
+import com.example.androidchatproject.network.HttpClient;
+import com.example.androidchatproject.network.HttpRequest;
+import com.example.androidchatproject.network.HttpResponse;
+import com.example.androidchatproject.network.RateLimiter;
+import com.example.androidchatproject.network.RequestDispatcher;
+import com.example.androidchatproject.network.RequestHandle;
+import com.example.androidchatproject.network.RequestScope;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.InputStream;
 import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * Helper para cargar imágenes de perfil desde URLs con cache
+ * Cada ImageView tiene como mucho una descarga activa: al reciclar la fila
+ * en un adapter se cancela la anterior, y al destruir la Activity se cancelan todas.
  */
 public class ProfileImageLoader {
     
@@ -33,8 +43,12 @@ public class ProfileImageLoader {
     
     private Context context;
     private File cacheDir;
-    private ExecutorService executorService;
+    private RequestDispatcher dispatcher;
     private Handler mainHandler;
+    private volatile boolean shutdown;
+    private RequestScope scope;
+    // Descarga en curso por ImageView (solo se toca desde el hilo principal)
+    private final Map<ImageView, RequestHandle> pendingLoads = new WeakHashMap<>();
     
     public ProfileImageLoader(Context context) {
         this.context = context.getApplicationContext();
@@ -42,8 +56,12 @@ public class ProfileImageLoader {
         if (!cacheDir.exists()) {
             cacheDir.mkdirs();
         }
-        this.executorService = Executors.newFixedThreadPool(3); // 3 hilos concurrentes
+        // Las descargas comparten el dispatcher de red en el carril de menor prioridad
+        this.dispatcher = RequestDispatcher.getInstance();
         this.mainHandler = new Handler(Looper.getMainLooper());
+        if (context instanceof LifecycleOwner) {
+            this.scope = RequestScope.of((LifecycleOwner) context);
+        }
     }
     
     /**
@@ -52,6 +70,9 @@ public class ProfileImageLoader {
     public void loadProfileImage(String imageUrl, ImageView imageView, String userId) {
         Log.d(TAG, "loadProfileImage called - userId: " + userId + ", imageUrl: " + imageUrl);
         
+        // La vista se reutiliza para otro elemento: la descarga anterior ya no sirve
+        cancelLoad(imageView);
+        
         if (imageUrl == null || imageUrl.isEmpty()) {
             Log.d(TAG, "No image URL provided, loading default");
             loadDefaultImage(imageView);
@@ -71,7 +92,13 @@ public class ProfileImageLoader {
         loadDefaultImage(imageView);
         
         // Descargar en background
-        executorService.execute(() -> {
+        RequestHandle handle = scope != null ? scope.newHandle() : new RequestHandle();
+        pendingLoads.put(imageView, handle);
+        dispatcher.execute(RequestDispatcher.Priority.BACKGROUND, handle.bind(() -> {
+            if (shutdown) {
+                return;
+            }
+            boolean posted = false;
             try {
                 // Construir URL completa - eliminar barra al final de BASE_URL si imageUrl empieza con /
                 String fullUrl;
@@ -93,8 +120,16 @@ public class ProfileImageLoader {
                     // Guardar en cache
                     saveToCache(bitmap, userId);
                     
-                    // Actualizar UI en el hilo principal
-                    mainHandler.post(() -> {
+                    // Actualizar UI en el hilo principal (se descarta si se canceló)
+                    posted = true;
+                    handle.post(mainHandler, () -> {
+                        if (pendingLoads.get(imageView) == handle) {
+                            pendingLoads.remove(imageView);
+                        }
+                        handle.complete();
+                        if (shutdown) {
+                            return;
+                        }
                         Log.d(TAG, "Updating ImageView with downloaded bitmap");
                         imageView.setImageBitmap(bitmap);
                     });
@@ -105,35 +140,40 @@ public class ProfileImageLoader {
             } catch (Exception e) {
                 Log.e(TAG, "Error loading profile image: " + e.getMessage());
                 e.printStackTrace();
+            } finally {
+                if (!posted) {
+                    handle.complete();
+                }
             }
-        });
+        }));
+    }
+    
+    /**
+     * Cancelar la descarga pendiente de una ImageView (ej: en onViewRecycled)
+     */
+    public void cancelLoad(ImageView imageView) {
+        RequestHandle previous = pendingLoads.remove(imageView);
+        if (previous != null) {
+            previous.cancel();
+        }
     }
     
     /**
      * Descargar bitmap desde URL
      */
     private Bitmap downloadBitmap(String imageUrl) {
-        HttpURLConnection connection = null;
-        InputStream inputStream = null;
+        Log.d(TAG, "Requesting image through shared transport: " + imageUrl);
+        HttpRequest request = new HttpRequest("GET", imageUrl)
+                .timeouts(CONNECT_TIMEOUT, READ_TIMEOUT)
+                .trafficClass(RateLimiter.TrafficClass.MEDIA);
         
-        try {
-            Log.d(TAG, "Creating connection to: " + imageUrl);
-            URL url = new URL(imageUrl);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setConnectTimeout(CONNECT_TIMEOUT);
-            connection.setReadTimeout(READ_TIMEOUT);
-            connection.setDoInput(true);
-            connection.setRequestMethod("GET");
-            
-            Log.d(TAG, "Connecting...");
-            connection.connect();
-            
-            int responseCode = connection.getResponseCode();
+        // El transporte compartido reutiliza las conexiones abiertas por la API
+        try (HttpResponse response = HttpClient.getDefaultTransport().execute(request)) {
+            int responseCode = response.getCode();
             Log.d(TAG, "Response code: " + responseCode);
             
             if (responseCode == HttpURLConnection.HTTP_OK) {
-                inputStream = connection.getInputStream();
-                Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
+                Bitmap bitmap = BitmapFactory.decodeStream(response.getBody());
                 if (bitmap != null) {
                     Log.d(TAG, "Bitmap decoded successfully - Width: " + bitmap.getWidth() + ", Height: " + bitmap.getHeight());
                 } else {
@@ -149,17 +189,6 @@ public class ProfileImageLoader {
             Log.e(TAG, "Error downloading bitmap from " + imageUrl + ": " + e.getMessage());
             e.printStackTrace();
             return null;
-        } finally {
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (Exception e) {
-                    // Ignorar
-                }
-            }
-            if (connection != null) {
-                connection.disconnect();
-            }
         }
     }
     
@@ -237,7 +266,7 @@ public class ProfileImageLoader {
      * Limpiar cache de imágenes
      */
     public void clearCache() {
-        executorService.execute(() -> {
+        dispatcher.execute(RequestDispatcher.Priority.BACKGROUND, () -> {
             try {
                 if (cacheDir.exists() && cacheDir.isDirectory()) {
                     File[] files = cacheDir.listFiles();
@@ -258,7 +287,7 @@ public class ProfileImageLoader {
      * Eliminar imagen específica del cache
      */
     public void removeFromCache(String userId) {
-        executorService.execute(() -> {
+        dispatcher.execute(RequestDispatcher.Priority.BACKGROUND, () -> {
             try {
                 File cacheFile = new File(cacheDir, userId + ".jpg");
                 if (cacheFile.exists()) {
@@ -292,11 +321,14 @@ public class ProfileImageLoader {
     }
     
     /**
-     * Cerrar el executor service (llamar cuando ya no se necesite)
+     * Descartar las descargas pendientes (llamar cuando ya no se necesite)
+     * El dispatcher es compartido, así que no se cierra aquí
      */
     public void shutdown() {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
+        shutdown = true;
+        for (RequestHandle handle : new ArrayList<>(pendingLoads.values())) {
+            handle.cancel();
         }
+        pendingLoads.clear();
     }
 }
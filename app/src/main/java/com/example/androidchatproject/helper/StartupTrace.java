@@ -0,0 +1,54 @@
+package com.example.androidchatproject.helper;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.androidchatproject.network.ConnectionPrewarmer;
+
+/**
+ * Mide el tiempo desde el arranque del proceso hasta la primera lista de chats en pantalla
+ * Junto con el estado del pre-calentamiento permite comparar arranques con y sin él
+ * (ApiConfig.PREWARM_CONNECTION).
+ */
+public class StartupTrace {
+
+    private static final String TAG = "StartupTrace";
+
+    private static final StartupTrace instance = new StartupTrace();
+
+    private long firstChatListMillis = -1;
+    private String firstChatListSource;
+
+    private StartupTrace() {
+    }
+
+    public static StartupTrace getInstance() {
+        return instance;
+    }
+
+    /**
+     * Marca que se mostró una lista de chats; solo cuenta la primera del proceso
+     * @param source Origen de los datos ("api" o "cache")
+     */
+    public synchronized void markFirstChatList(String source) {
+        if (firstChatListMillis >= 0) {
+            return;
+        }
+        firstChatListMillis = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+        firstChatListSource = source;
+        Log.d(TAG, "Time to first chat list: " + firstChatListMillis + " ms (" + source + ", "
+                + ConnectionPrewarmer.getInstance() + ")");
+    }
+
+    /**
+     * Milisegundos desde el arranque del proceso hasta la primera lista de chats, o -1
+     */
+    public synchronized long getTimeToFirstChatListMillis() {
+        return firstChatListMillis;
+    }
+
+    public synchronized String getFirstChatListSource() {
+        return firstChatListSource;
+    }
+}
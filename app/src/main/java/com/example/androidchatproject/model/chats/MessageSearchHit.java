@@ -0,0 +1,44 @@
+package com.example.androidchatproject.model.chats;
+
+/**
+ * Resultado de la búsqueda de mensajes en la caché
+ * El fragmento marca los términos encontrados entre « y »
+ */
+public class MessageSearchHit {
+
+    private final String chatId;
+    private final String messageId;
+    private final String snippet;
+    private final double score;
+
+    public MessageSearchHit(String chatId, String messageId, String snippet, double score) {
+        this.chatId = chatId;
+        this.messageId = messageId;
+        this.snippet = snippet;
+        this.score = score;
+    }
+
+    public String getChatId() {
+        return chatId;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    /**
+     * Relevancia (BM25); mayor es mejor
+     */
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageSearchHit{chatId=" + chatId + ", messageId=" + messageId + ", score=" + score + "}";
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.androidchatproject.network;
+
+import java.io.IOException;
+
+/**
+ * Llamada síncrona a la API que se ejecuta dentro del RequestDispatcher
+ */
+interface ApiCall<T> {
+    T execute() throws IOException;
+}
@@ -1,26 +1,39 @@
 package com.example.androidchatproject.network;
 
+import android.content.ContentResolver;
 import android.content.Context;
+import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
+import androidx.lifecycle.LifecycleOwner;
+
 import com.example.androidchatproject.config.ApiConfig;
 import com.example.androidchatproject.model.chats.*;
 import com.example.androidchatproject.utils.ErrorHandler;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Cliente HTTP para endpoints de Chats
- * Maneja los threads y callbacks en el hilo principal
+ * Las peticiones se ejecutan en el RequestDispatcher compartido y los callbacks en el hilo principal
+ * Cada método devuelve un RequestHandle; si el cliente se creó desde una Activity,
+ * sus peticiones se cancelan automáticamente al destruirla.
  */
 public class ApiHttpClientChats {
     
     private static final String TAG = "ApiHttpClientChats";
     private final HttpClient httpClient;
+    private final RequestDispatcher dispatcher;
+    private final RequestCoalescer coalescer;
     private final Handler mainHandler;
     private final Context context;
+    private final RequestScope scope;
     
     /**
      * Constructor
@@ -28,8 +41,15 @@ public class ApiHttpClientChats {
      */
     public ApiHttpClientChats(Context context) {
         this.httpClient = new HttpClient();
+        this.httpClient.setCompressRequestBodies(ApiConfig.GZIP_REQUEST_BODIES);
+        // Abrir un chat: se duplica la petición si tarda más que el p90 del endpoint
+        this.httpClient.setHedgingPolicy(HedgingPolicy.DEFAULT);
+        this.dispatcher = RequestDispatcher.getInstance();
+        this.coalescer = RequestCoalescer.getInstance();
         this.mainHandler = new Handler(Looper.getMainLooper());
         this.context = context.getApplicationContext();
+        // Creado desde una Activity: sus peticiones se cancelan al destruirla
+        this.scope = context instanceof LifecycleOwner ? RequestScope.of((LifecycleOwner) context) : null;
     }
     
     // ==================== CALLBACKS ====================
@@ -58,6 +78,16 @@ public class ApiHttpClientChats {
         void onError(Exception error);
     }
     
+    /**
+     * Callback para subidas reanudables de adjuntos
+     */
+    public interface ResumableUploadCallback {
+        void onProgress(long bytesUploaded, long totalBytes);
+        void onPaused(ResumableUpload upload);
+        void onSuccess(String uploadUrl);
+        void onError(Exception error);
+    }
+    
     /**
      * Callback para enviar un mensaje
      */
@@ -72,30 +102,22 @@ public class ApiHttpClientChats {
      * Obtener todos los chats del usuario autenticado
      * GET api/chats/all/
      */
-    public void getAllChats(String token, ChatsListCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/chats/all/";
-                ChatsListResponse response = httpClient.get(url, ChatsListResponse.class, token);
-                
-                Log.d(TAG, "Chats list retrieved successfully");
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "API Error getting chats list", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Network error getting chats list", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle getAllChats(String token, ChatsListCallback callback) {
+        return getAllChats(token, RequestDispatcher.Priority.NORMAL, callback);
+    }
+    
+    /**
+     * Obtener todos los chats con una prioridad concreta
+     * El polling en segundo plano usa BACKGROUND para no competir con la UI
+     */
+    public RequestHandle getAllChats(String token, RequestDispatcher.Priority priority, ChatsListCallback callback) {
+        String url = ApiConfig.BASE_URL + "api/chats/all/";
+        return enqueueShared(priority, "getting chats list", url, token, () -> {
+            ChatsListResponse response = httpClient.get(url, ChatsListResponse.class, token);
+            
+            Log.d(TAG, "Chats list retrieved successfully");
+            return response;
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
@@ -107,31 +129,15 @@ public class ApiHttpClientChats {
      * @param content Contenido del primer mensaje
      * @param callback Callback con el resultado
      */
-    public void createChat(String token, String userId, String content, CreateChatCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/chats/";
-                CreateChatRequest request = new CreateChatRequest(userId, content);
-                CreateChatResponse response = httpClient.post(url, request, CreateChatResponse.class, token);
-                
-                Log.d(TAG, "Chat created successfully");
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "API Error creating chat", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Network error creating chat", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle createChat(String token, String userId, String content, CreateChatCallback callback) {
+        return enqueue(RequestDispatcher.Priority.INTERACTIVE, "creating chat", () -> {
+            String url = ApiConfig.BASE_URL + "api/chats/";
+            CreateChatRequest request = new CreateChatRequest(userId, content);
+            CreateChatResponse response = httpClient.post(url, request, CreateChatResponse.class, token);
+            
+            Log.d(TAG, "Chat created successfully");
+            return response;
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
@@ -142,31 +148,15 @@ public class ApiHttpClientChats {
      * @param chatId ID del chat
      * @param callback Callback con el resultado
      */
-    public void getChatById(String token, String chatId, ChatDetailCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/chats/id/" + chatId + "/";
-                Log.d(TAG, "Getting chat detail from URL: " + url);
-                ChatDetailResponse response = httpClient.get(url, ChatDetailResponse.class, token);
-                
-                Log.d(TAG, "Chat detail retrieved successfully: " + response.getMessages().size() + " messages");
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "API Error getting chat detail", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Network error getting chat detail", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle getChatById(String token, String chatId, ChatDetailCallback callback) {
+        String url = ApiConfig.BASE_URL + "api/chats/id/" + chatId + "/";
+        return enqueueShared(RequestDispatcher.Priority.INTERACTIVE, "getting chat detail", url, token, () -> {
+            Log.d(TAG, "Getting chat detail from URL: " + url);
+            ChatDetailResponse response = httpClient.get(url, ChatDetailResponse.class, token);
+            
+            Log.d(TAG, "Chat detail retrieved successfully: " + response.getMessages().size() + " messages");
+            return response;
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
@@ -178,37 +168,21 @@ public class ApiHttpClientChats {
      * @param content Contenido del mensaje (texto)
      * @param callback Callback con el resultado
      */
-    public void sendMessage(String token, String chatId, String content, SendMessageCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/chats/messages";
-                Log.d(TAG, "Sending message to URL: " + url);
-                
-                // Usar multipart/form-data para consistencia con el endpoint
-                java.util.Map<String, Object> formData = new java.util.HashMap<>();
-                formData.put("chat_id", chatId);
-                formData.put("content", content);
-                
-                SendMessageResponse response = httpClient.postMultipart(url, formData, SendMessageResponse.class, token);
-                
-                Log.d(TAG, "Message sent successfully");
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "API Error sending message", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Network error sending message", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle sendMessage(String token, String chatId, String content, SendMessageCallback callback) {
+        return enqueue(RequestDispatcher.Priority.INTERACTIVE, "sending message", () -> {
+            String url = ApiConfig.BASE_URL + "api/chats/messages";
+            Log.d(TAG, "Sending message to URL: " + url);
+            
+            // Usar multipart/form-data para consistencia con el endpoint
+            java.util.Map<String, Object> formData = new java.util.HashMap<>();
+            formData.put("chat_id", chatId);
+            formData.put("content", content);
+            
+            SendMessageResponse response = httpClient.postMultipart(url, formData, SendMessageResponse.class, token);
+            
+            Log.d(TAG, "Message sent successfully");
+            return response;
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
@@ -223,101 +197,286 @@ public class ApiHttpClientChats {
      * @param attachmentMimeType MIME type del archivo (opcional, se detecta por extensión si es null)
      * @param callback Callback con el resultado
      */
-    public void sendMessageWithAttachment(String token, String chatId, String content, 
+    public RequestHandle sendMessageWithAttachment(String token, String chatId, String content, 
                                          byte[] attachmentBytes, String attachmentFileName, 
                                          String attachmentMimeType, SendMessageCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/chats/messages";
-                Log.d(TAG, "Sending message with attachment to URL: " + url);
-                
-                // Crear mapa con los datos del formulario
-                java.util.Map<String, Object> formData = new java.util.HashMap<>();
-                formData.put("chat_id", chatId);
-                
-                if (content != null && !content.isEmpty()) {
-                    formData.put("content", content);
-                }
-                
-                if (attachmentBytes != null && attachmentBytes.length > 0 && attachmentFileName != null) {
-                    // Usar el mimeType proporcionado, o detectar por extensión si no está disponible
-                    String mimeType = attachmentMimeType;
-                    if (mimeType == null || mimeType.isEmpty()) {
-                        mimeType = getMimeTypeFromFileName(attachmentFileName);
-                    }
-                    Log.d(TAG, "Attachment - FileName: " + attachmentFileName + ", MimeType: " + mimeType + ", Size: " + attachmentBytes.length);
-                    formData.put("attachment", new HttpClient.FileData(attachmentBytes, attachmentFileName, mimeType));
+        return enqueueUpload("sending message with attachment", () -> {
+            String url = ApiConfig.BASE_URL + "api/chats/messages";
+            Log.d(TAG, "Sending message with attachment to URL: " + url);
+            
+            // Crear mapa con los datos del formulario
+            java.util.Map<String, Object> formData = new java.util.HashMap<>();
+            formData.put("chat_id", chatId);
+            
+            if (content != null && !content.isEmpty()) {
+                formData.put("content", content);
+            }
+            
+            if (attachmentBytes != null && attachmentBytes.length > 0 && attachmentFileName != null) {
+                // Usar el mimeType proporcionado, o detectar por extensión si no está disponible
+                String mimeType = attachmentMimeType;
+                if (mimeType == null || mimeType.isEmpty()) {
+                    mimeType = MultipartBody.mimeTypeFor(attachmentFileName);
                 }
-                
-                // Usar el nuevo método postMultipart
-                SendMessageResponse response = httpClient.postMultipart(
-                    url, 
-                    formData, 
-                    SendMessageResponse.class, 
-                    token
-                );
-                
-                Log.d(TAG, "Message with attachment sent successfully");
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "API Error sending message with attachment", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Network error sending message with attachment", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
+                Log.d(TAG, "Attachment - FileName: " + attachmentFileName + ", MimeType: " + mimeType + ", Size: " + attachmentBytes.length);
+                formData.put("attachment", new HttpClient.FileData(attachmentBytes, attachmentFileName, mimeType));
             }
-        }).start();
+            
+            // Usar el nuevo método postMultipart
+            SendMessageResponse response = httpClient.postMultipart(
+                url, 
+                formData, 
+                SendMessageResponse.class, 
+                token
+            );
+            
+            Log.d(TAG, "Message with attachment sent successfully");
+            return response;
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
-     * Determina el MIME type basado en la extensión del archivo
+     * Enviar un mensaje con archivo adjunto leído directamente desde un content Uri
+     * El archivo se copia en streaming del ContentResolver al socket, sin cargarlo en memoria
+     * POST api/chats/messages (multipart/form-data)
+     * 
+     * @param token Token de autenticación
+     * @param chatId ID del chat
+     * @param content Contenido del mensaje (opcional)
+     * @param attachmentUri Uri del archivo adjunto
+     * @param attachmentFileName Nombre del archivo adjunto
+     * @param attachmentMimeType MIME type del archivo (opcional, se detecta por extensión si es null)
+     * @param attachmentSize Tamaño en bytes, o -1 si se desconoce (se envía chunked)
+     * @param callback Callback con el resultado
      */
-    private String getMimeTypeFromFileName(String fileName) {
-        if (fileName == null || fileName.isEmpty()) {
-            return "application/octet-stream";
-        }
-        
-        String lower = fileName.toLowerCase();
-        
-        // Imágenes
-        if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")) return "image/jpeg";
-        if (lower.endsWith(".png")) return "image/png";
-        if (lower.endsWith(".gif")) return "image/gif";
-        if (lower.endsWith(".webp")) return "image/webp";
-        if (lower.endsWith(".bmp")) return "image/bmp";
-        
-        // PDFs
-        if (lower.endsWith(".pdf")) return "application/pdf";
+    public RequestHandle sendMessageWithAttachment(String token, String chatId, String content,
+                                         Uri attachmentUri, String attachmentFileName,
+                                         String attachmentMimeType, long attachmentSize,
+                                         SendMessageCallback callback) {
+        return enqueueUpload("sending message with attachment", () -> {
+            String url = ApiConfig.BASE_URL + "api/chats/messages";
+            Log.d(TAG, "Streaming message attachment to URL: " + url);
+            
+            java.util.Map<String, Object> formData = new java.util.HashMap<>();
+            formData.put("chat_id", chatId);
+            
+            if (content != null && !content.isEmpty()) {
+                formData.put("content", content);
+            }
+            
+            String mimeType = attachmentMimeType;
+            if (mimeType == null || mimeType.isEmpty()) {
+                mimeType = MultipartBody.mimeTypeFor(attachmentFileName);
+            }
+            Log.d(TAG, "Attachment - FileName: " + attachmentFileName + ", MimeType: " + mimeType + ", Size: " + attachmentSize);
+            
+            ContentResolver resolver = context.getContentResolver();
+            HttpClient.FileData.StreamSource source = () -> {
+                InputStream in = resolver.openInputStream(attachmentUri);
+                if (in == null) {
+                    throw new FileNotFoundException("Cannot open " + attachmentUri);
+                }
+                return in;
+            };
+            // Si el proveedor no informó el tamaño, el límite se comprueba mientras se envía
+            formData.put("attachment", new HttpClient.FileData(source, attachmentSize,
+                    ApiConfig.MAX_ATTACHMENT_SIZE, attachmentFileName, mimeType));
+            
+            SendMessageResponse response = httpClient.postMultipart(url, formData, SendMessageResponse.class, token);
+            
+            Log.d(TAG, "Message with attachment sent successfully");
+            return response;
+        }, callback::onSuccess, callback::onError);
+    }
+    
+    /**
+     * Subir un adjunto por partes, con progreso y reanudación tras cortes de red
+     * Devuelve la subida para poder pausarla (pause) o cancelarla (cancel);
+     * una subida pausada se continúa con resumeAttachmentUpload.
+     * 
+     * @param token Token de autenticación
+     * @param attachmentUri Uri del archivo
+     * @param fileName Nombre del archivo
+     * @param mimeType MIME type (opcional)
+     * @param size Tamaño en bytes (obligatorio)
+     * @param callback Callback con progreso y resultado (en el hilo principal)
+     */
+    public ResumableUpload uploadAttachmentResumable(String token, Uri attachmentUri, String fileName,
+                                                     String mimeType, long size,
+                                                     ResumableUploadCallback callback) {
+        ContentResolver resolver = context.getContentResolver();
+        HttpClient.FileData.StreamSource source = () -> {
+            InputStream in = resolver.openInputStream(attachmentUri);
+            if (in == null) {
+                throw new FileNotFoundException("Cannot open " + attachmentUri);
+            }
+            return in;
+        };
         
-        // Audio
-        if (lower.endsWith(".mp3")) return "audio/mpeg";
-        if (lower.endsWith(".wav")) return "audio/wav";
-        if (lower.endsWith(".m4a")) return "audio/mp4";
-        if (lower.endsWith(".aac")) return "audio/aac";
-        if (lower.endsWith(".ogg")) return "audio/ogg";
-        if (lower.endsWith(".flac")) return "audio/flac";
+        String type = mimeType != null && !mimeType.isEmpty() ? mimeType : MultipartBody.mimeTypeFor(fileName);
+        ResumableUpload upload = new ResumableUpload(HttpClient.getDefaultTransport(),
+                ApiConfig.BASE_URL + ApiConfig.RESUMABLE_UPLOADS_PATH, source, size)
+                .authToken(token)
+                .metadata(fileName, type);
         
-        // Videos
-        if (lower.endsWith(".mp4")) return "video/mp4";
-        if (lower.endsWith(".avi")) return "video/x-msvideo";
-        if (lower.endsWith(".mov")) return "video/quicktime";
+        resumeAttachmentUpload(upload, callback);
+        return upload;
+    }
+    
+    /**
+     * Continuar una subida pausada o interrumpida desde el último offset confirmado
+     */
+    public RequestHandle resumeAttachmentUpload(ResumableUpload upload, ResumableUploadCallback callback) {
+        // Sigue aunque se cierre la pantalla; cancelar el handle la pausa y puede continuar desde el offset.
+        // Se configura antes de encolarla para no perder el progreso de los primeros trozos
+        RequestHandle handle = new RequestHandle();
+        upload.progressListener((uploaded, total) ->
+                handle.post(mainHandler, () -> callback.onProgress(uploaded, total)));
+        handle.addCancelAction(upload::pause);
+        return enqueueUpload(handle, "uploading attachment", () -> {
+            ResumableUpload.State state = upload.run();
+            Log.d(TAG, "Resumable upload finished with state " + state);
+            return state;
+        }, state -> {
+            if (state == ResumableUpload.State.COMPLETED) {
+                callback.onSuccess(upload.getUploadUrl());
+            } else if (state == ResumableUpload.State.PAUSED) {
+                callback.onPaused(upload);
+            } else {
+                callback.onError(new IOException("Upload cancelled"));
+            }
+        }, callback::onError);
+    }
+    
+    /**
+     * Ejecuta la llamada en el dispatcher y entrega el resultado en el hilo principal
+     * Los errores se muestran en Toast antes de notificar al callback,
+     * salvo en peticiones BACKGROUND (polling), que fallan en silencio.
+     * Es para operaciones que modifican el servidor (enviar, subir, cerrar sesión): no se ligan
+     * al scope de la pantalla, así que se completan y notifican aunque se cierre. Solo las
+     * lecturas idempotentes (enqueueRead, enqueueShared) se cancelan con la pantalla.
+     */
+    private <T> RequestHandle enqueue(RequestDispatcher.Priority priority, String action, ApiCall<T> call,
+                                      Consumer<T> onSuccess, Consumer<Exception> onError) {
+        return enqueue(new RequestHandle(), task -> dispatcher.execute(priority, task),
+                isUserVisible(priority), action, call, onSuccess, onError);
+    }
+    
+    /**
+     * Como enqueue, pero en el hilo de subidas del dispatcher: un adjunto grande
+     * no ocupa un hilo INTERACTIVE mientras se envía
+     */
+    private <T> RequestHandle enqueueUpload(String action, ApiCall<T> call,
+                                            Consumer<T> onSuccess, Consumer<Exception> onError) {
+        return enqueueUpload(new RequestHandle(), action, call, onSuccess, onError);
+    }
+    
+    /**
+     * Como enqueueUpload, con un handle ya configurado (ej: acciones de cancelación)
+     */
+    private <T> RequestHandle enqueueUpload(RequestHandle handle, String action, ApiCall<T> call,
+                                            Consumer<T> onSuccess, Consumer<Exception> onError) {
+        return enqueue(handle, dispatcher::executeUpload, true, action, call, onSuccess, onError);
+    }
+    
+    private <T> RequestHandle enqueue(RequestHandle handle, Executor executor, boolean userVisible,
+                                      String action, ApiCall<T> call,
+                                      Consumer<T> onSuccess, Consumer<Exception> onError) {
+        executor.execute(() -> {
+            try {
+                T response = call.execute();
+                deliver(handle, action, response, null, true, onSuccess, onError);
+            } catch (IOException e) {
+                deliver(handle, action, null, e, userVisible, onSuccess, onError);
+            }
+        });
+        return handle;
+    }
+    
+    /**
+     * Para GETs idempotentes, ligados al scope de la pantalla: si ya hay una petición igual (URL + token)
+     * en curso, se espera su respuesta en lugar de lanzar otra.
+     * La llamada de red solo se aborta cuando todos los que la esperaban se cancelaron.
+     */
+    private <T> RequestHandle enqueueShared(RequestDispatcher.Priority priority, String action, String url,
+                                            String token, ApiCall<T> call,
+                                            Consumer<T> onSuccess, Consumer<Exception> onError) {
+        RequestHandle handle = newHandle();
+        String key = RequestCoalescer.key(url, token);
+        RequestCoalescer.Listener<T> listener = (response, error, primary) ->
+                deliver(handle, action, response, error, primary && isUserVisible(priority), onSuccess, onError);
         
-        // Documentos
-        if (lower.endsWith(".doc")) return "application/msword";
-        if (lower.endsWith(".docx")) return "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
-        if (lower.endsWith(".xls")) return "application/vnd.ms-excel";
-        if (lower.endsWith(".xlsx")) return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
-        if (lower.endsWith(".txt")) return "text/plain";
+        RequestHandle networkHandle = new RequestHandle();
+        boolean leader = coalescer.join(key, listener, networkHandle);
+        handle.addCancelAction(() -> coalescer.leave(key, listener));
+        if (!leader) {
+            Log.d(TAG, "Joined in-flight request " + action);
+            return handle;
+        }
         
-        // Default
-        return "application/octet-stream";
+        dispatcher.execute(priority, networkHandle.bind(() -> {
+            T response = null;
+            IOException error = null;
+            try {
+                response = call.execute();
+            } catch (IOException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                // Nunca dejar la clave bloqueada: los que esperan deben recibir una respuesta
+                error = new IOException("Unexpected response: " + e.getMessage(), e);
+            }
+            coalescer.complete(key, networkHandle, response, error);
+            networkHandle.complete();
+        }));
+        return handle;
+    }
+    
+    private RequestHandle newHandle() {
+        return scope != null ? scope.newHandle() : new RequestHandle();
+    }
+    
+    /**
+     * Las peticiones en segundo plano no muestran Toast: el polling reintenta solo
+     */
+    private static boolean isUserVisible(RequestDispatcher.Priority priority) {
+        return priority != RequestDispatcher.Priority.BACKGROUND;
+    }
+    
+    /**
+     * Publica el resultado en el hilo principal
+     * showError = false evita repetir el Toast cuando varias llamadas comparten la misma respuesta
+     */
+    private <T> void deliver(RequestHandle handle, String action, T response, IOException error,
+                             boolean showError, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        if (handle.isCancelled()) {
+            // La pantalla ya no existe: ni Toast ni callback
+            CancellationStats.getInstance().recordDroppedCallback();
+            return;
+        }
+        if (error == null) {
+            handle.post(mainHandler, () -> {
+                onSuccess.accept(response);
+                handle.complete();
+            });
+        } else if (error instanceof ApiException) {
+            ApiException apiError = (ApiException) error;
+            Log.e(TAG, "API Error " + action, apiError);
+            handle.post(mainHandler, () -> {
+                if (showError) {
+                    ErrorHandler.showErrorToast(context, apiError.getErrorJson());
+                }
+                onError.accept(apiError);
+                handle.complete();
+            });
+        } else {
+            Log.e(TAG, "Network error " + action, error);
+            handle.post(mainHandler, () -> {
+                if (showError) {
+                    ErrorHandler.showNetworkError(context, error);
+                }
+                onError.accept(error);
+                handle.complete();
+            });
+        }
     }
 }
@@ -5,23 +5,31 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
+import androidx.lifecycle.LifecycleOwner;
+
 import com.example.androidchatproject.config.ApiConfig;
 import com.example.androidchatproject.model.user.*;
 import com.example.androidchatproject.utils.ErrorHandler;
 
 import java.io.IOException;
+import java.util.function.Consumer;
 
 /**
  * Cliente HTTP para endpoints de Usuario/Autenticación
- * Maneja los threads y callbacks en el hilo principal
+ * Las peticiones se ejecutan en el RequestDispatcher compartido y los callbacks en el hilo principal
  * Los errores se muestran automáticamente en Toast
+ * Cada método devuelve un RequestHandle; si el cliente se creó desde una Activity,
+ * sus peticiones se cancelan automáticamente al destruirla.
  */
 public class ApiHttpClientUser {
     
     private static final String TAG = "ApiHttpClient";
     private final HttpClient httpClient;
+    private final RequestDispatcher dispatcher;
+    private final RequestCoalescer coalescer;
     private final Handler mainHandler;
     private final Context context;
+    private final RequestScope scope;
     
     /**
      * Constructor
@@ -29,8 +37,13 @@ public class ApiHttpClientUser {
      */
     public ApiHttpClientUser(Context context) {
         this.httpClient = new HttpClient();
+        this.httpClient.setCompressRequestBodies(ApiConfig.GZIP_REQUEST_BODIES);
+        this.dispatcher = RequestDispatcher.getInstance();
+        this.coalescer = RequestCoalescer.getInstance();
         this.mainHandler = new Handler(Looper.getMainLooper());
         this.context = context.getApplicationContext();
+        // Creado desde una Activity: sus peticiones se cancelan al destruirla
+        this.scope = context instanceof LifecycleOwner ? RequestScope.of((LifecycleOwner) context) : null;
     }
     
     // ==================== CALLBACKS ====================
@@ -91,200 +104,80 @@ public class ApiHttpClientUser {
      * Registrar nuevo usuario
      * POST /api/users/
      */
-    public void registerUser(RegisterRequest request, RegisterCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/users/";
-                RegisterResponse response = httpClient.post(url, request, RegisterResponse.class, null);
-                
-                // Ejecutar callback en el hilo principal
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "Error API en registro", e);
-                // Mostrar error en Toast automáticamente
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Error de red en registro", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle registerUser(RegisterRequest request, RegisterCallback callback) {
+        return enqueue(RequestDispatcher.Priority.INTERACTIVE, "en registro", () -> {
+            String url = ApiConfig.BASE_URL + "api/users/";
+            return httpClient.post(url, request, RegisterResponse.class, null);
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
      * Login de usuario
      * POST /api/users/login
      */
-    public void login(AuthRequest request, LoginCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/users/login";
-                AuthResponse response = httpClient.post(url, request, AuthResponse.class, null);
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "Error API en login", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Error de red en login", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle login(AuthRequest request, LoginCallback callback) {
+        return enqueue(RequestDispatcher.Priority.INTERACTIVE, "en login", () -> {
+            String url = ApiConfig.BASE_URL + "api/users/login";
+            return httpClient.post(url, request, AuthResponse.class, null);
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
      * Logout de usuario
      * POST /api/users//logout
      */
-    public void logout(String authToken, LogoutCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/users//logout";
-                // POST sin body, solo con token
-                LogoutResponse response = httpClient.post(url, new Object(), LogoutResponse.class, authToken);
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "Error API en logout", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Error de red en logout", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle logout(String authToken, LogoutCallback callback) {
+        return enqueue(RequestDispatcher.Priority.INTERACTIVE, "en logout", () -> {
+            String url = ApiConfig.BASE_URL + "api/users//logout";
+            // POST sin body, solo con token
+            return httpClient.post(url, new Object(), LogoutResponse.class, authToken);
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
      * Validar sesión
      * POST /api/users/sessions/validate
      */
-    public void validateSession(SessionValidationRequest request, SessionValidationCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/users/sessions/validate";
-                TokenValidationResponse response = httpClient.post(url, request, TokenValidationResponse.class, null);
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "Error API en validación de sesión", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Error de red en validación de sesión", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle validateSession(SessionValidationRequest request, SessionValidationCallback callback) {
+        return enqueueRead(RequestDispatcher.Priority.NORMAL, "en validación de sesión", () -> {
+            String url = ApiConfig.BASE_URL + "api/users/sessions/validate";
+            // Validar no cambia nada en el servidor: se puede reintentar
+            return httpClient.postIdempotent(url, request, TokenValidationResponse.class, null);
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
      * Enviar código de verificación de email
      * POST /api/users/email/verify
      */
-    public void sendEmailVerification(String authToken, EmailVerificationCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/users/email/verify";
-                // POST sin body, solo con token
-                EmailVerificationResponse response = httpClient.post(url, new Object(), EmailVerificationResponse.class, authToken);
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "Error API al enviar verificación de email", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Error de red al enviar verificación de email", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle sendEmailVerification(String authToken, EmailVerificationCallback callback) {
+        return enqueue(RequestDispatcher.Priority.INTERACTIVE, "al enviar verificación de email", () -> {
+            String url = ApiConfig.BASE_URL + "api/users/email/verify";
+            // POST sin body, solo con token
+            return httpClient.post(url, new Object(), EmailVerificationResponse.class, authToken);
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
      * Validar código de verificación de email
      * POST /api/email/verify/validate
      */
-    public void validateEmailCode(String authToken, EmailVerificationCode code, EmailCodeValidationCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/users/email/verify/validate";
-                EmailVerificationValidationResponse response = httpClient.post(url, code, EmailVerificationValidationResponse.class, authToken);
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "Error API al validar código de email", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Error de red al validar código de email", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle validateEmailCode(String authToken, EmailVerificationCode code, EmailCodeValidationCallback callback) {
+        return enqueue(RequestDispatcher.Priority.INTERACTIVE, "al validar código de email", () -> {
+            String url = ApiConfig.BASE_URL + "api/users/email/verify/validate";
+            return httpClient.post(url, code, EmailVerificationValidationResponse.class, authToken);
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
      * Ejemplo de uso de GET (si tu API lo necesita)
      * Este es un ejemplo genérico
      */
-    public <T> void get(String endpoint, Class<T> responseClass, String authToken, GenericCallback<T> callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + endpoint;
-                T response = httpClient.get(url, responseClass, authToken);
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "Error API en petición GET", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Error de red en petición GET", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public <T> RequestHandle get(String endpoint, Class<T> responseClass, String authToken, GenericCallback<T> callback) {
+        String url = ApiConfig.BASE_URL + endpoint;
+        return enqueueShared(RequestDispatcher.Priority.NORMAL, "en petición GET", url, authToken, () -> {
+            return httpClient.get(url, responseClass, authToken);
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
@@ -294,236 +187,231 @@ public class ApiHttpClientUser {
      * @param token Token de autenticación
      * @param callback Callback con el perfil del usuario
      */
-    public void getUserProfile(String token, UserProfileCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/users/";
-                UserProfileResponse response = httpClient.get(url, UserProfileResponse.class, token);
-                
-                // Ejecutar callback en el hilo principal
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "Error al obtener perfil de usuario", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Error de red al obtener perfil", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle getUserProfile(String token, UserProfileCallback callback) {
+        String url = ApiConfig.BASE_URL + "api/users/";
+        return enqueueShared(RequestDispatcher.Priority.NORMAL, "al obtener perfil de usuario", url, token, () -> {
+            return httpClient.get(url, UserProfileResponse.class, token);
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
      * Verificar email con código de 6 dígitos
      * POST /api/verify-email
      */
-    public void verifyEmail(String token, VerifyEmailRequest request, VerifyEmailCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/users/email/verify/validate";
-                VerifyEmailResponse response = httpClient.post(url, request, VerifyEmailResponse.class, token);
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "Error API en verificación de email", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Error de red en verificación de email", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle verifyEmail(String token, VerifyEmailRequest request, VerifyEmailCallback callback) {
+        return enqueue(RequestDispatcher.Priority.INTERACTIVE, "en verificación de email", () -> {
+            String url = ApiConfig.BASE_URL + "api/users/email/verify/validate";
+            return httpClient.post(url, request, VerifyEmailResponse.class, token);
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
      * Reenviar código de verificación
      * POST /api/resend-verification
      */
-    public void resendVerification(String token, ResendVerificationCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/users/email/verify";
-                // POST sin body, solo con token
-                ResendVerificationResponse response = httpClient.post(url, null, ResendVerificationResponse.class, token);
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "Error API en reenvío de código", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Error de red en reenvío de código", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle resendVerification(String token, ResendVerificationCallback callback) {
+        return enqueue(RequestDispatcher.Priority.INTERACTIVE, "en reenvío de código", () -> {
+            String url = ApiConfig.BASE_URL + "api/users/email/verify";
+            // POST sin body, solo con token
+            return httpClient.post(url, null, ResendVerificationResponse.class, token);
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
      * Subir imagen de perfil
      * POST /api/users/upload/profile/image
      */
-    public void uploadProfileImage(String token, byte[] imageBytes, String fileName, UploadProfileImageCallback callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + "api/users/upload/profile/image";
-                UploadProfileImageResponse response = httpClient.uploadFile(
-                    url, 
-                    imageBytes, 
-                    fileName, 
-                    "image",  // nombre del campo según el endpoint
-                    UploadProfileImageResponse.class, 
-                    token
-                );
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "Error API en upload de imagen", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Error de red en upload de imagen", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public RequestHandle uploadProfileImage(String token, byte[] imageBytes, String fileName, UploadProfileImageCallback callback) {
+        return enqueue(RequestDispatcher.Priority.INTERACTIVE, "en upload de imagen", () -> {
+            String url = ApiConfig.BASE_URL + "api/users/upload/profile/image";
+            UploadProfileImageResponse response = httpClient.uploadFile(
+                url, 
+                imageBytes, 
+                fileName, 
+                "image",  // nombre del campo según el endpoint
+                UploadProfileImageResponse.class, 
+                token
+            );
+            return response;
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
      * Ejemplo de uso de PUT (si tu API lo necesita)
      * Este es un ejemplo genérico
      */
-    public <T> void put(String endpoint, Object requestBody, Class<T> responseClass, String authToken, GenericCallback<T> callback) {
-        new Thread(() -> {
-            try {
-                String url = ApiConfig.BASE_URL + endpoint;
-                T response = httpClient.put(url, requestBody, responseClass, authToken);
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "Error API en petición PUT", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "Error de red en petición PUT", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
-            }
-        }).start();
+    public <T> RequestHandle put(String endpoint, Object requestBody, Class<T> responseClass, String authToken, GenericCallback<T> callback) {
+        return enqueue(RequestDispatcher.Priority.NORMAL, "en petición PUT", () -> {
+            String url = ApiConfig.BASE_URL + endpoint;
+            return httpClient.put(url, requestBody, responseClass, authToken);
+        }, callback::onSuccess, callback::onError);
     }
     
     /**
      * Enviar email de recuperación de contraseña
      */
-    public void sendResetPasswordEmail(SendResetPasswordRequest request, SendResetPasswordCallback callback) {
-        new Thread(() -> {
+    public RequestHandle sendResetPasswordEmail(SendResetPasswordRequest request, SendResetPasswordCallback callback) {
+        return enqueue(RequestDispatcher.Priority.INTERACTIVE, "al enviar email de recuperación de contraseña", () -> {
+            String url = ApiConfig.BASE_URL + "api/users/password/reset";
+            SendResetPasswordResponse response = httpClient.post(url, request, SendResetPasswordResponse.class, null);
+            
+            Log.d(TAG, "Password reset email sent to: " + request.getEmail());
+            return response;
+        }, callback::onSuccess, callback::onError);
+    }
+    
+    /**
+     * Confirmar reset de contraseña con código
+     */
+    public RequestHandle confirmResetPassword(ResetPasswordConfirmRequest request, ResetPasswordConfirmCallback callback) {
+        return enqueue(RequestDispatcher.Priority.INTERACTIVE, "al confirmar reset de contraseña", () -> {
+            String url = ApiConfig.BASE_URL + "api/users/password/reset/confirm";
+            ResetPasswordConfirmResponse response = httpClient.put(url, request, ResetPasswordConfirmResponse.class, null);
+            
+            Log.d(TAG, "Password reset confirmed successfully");
+            return response;
+        }, callback::onSuccess, callback::onError);
+    }
+    
+    /**
+     * Obtener lista de todos los usuarios
+     */
+    public RequestHandle getAllUsers(String token, UsersListCallback callback) {
+        String url = ApiConfig.BASE_URL + "api/users/all/";
+        return enqueueShared(RequestDispatcher.Priority.NORMAL, "al obtener lista de usuarios", url, token, () -> {
+            UsersListResponse response = httpClient.get(url, UsersListResponse.class, token);
+            
+            Log.d(TAG, "Users list retrieved successfully");
+            return response;
+        }, callback::onSuccess, callback::onError);
+    }
+    
+    /**
+     * Ejecuta la llamada en el dispatcher y entrega el resultado en el hilo principal
+     * Los errores se muestran en Toast antes de notificar al callback,
+     * salvo en peticiones BACKGROUND (polling), que fallan en silencio.
+     * Es para operaciones que modifican el servidor (enviar, subir, cerrar sesión): no se ligan
+     * al scope de la pantalla, así que se completan y notifican aunque se cierre. Solo las
+     * lecturas idempotentes (enqueueRead, enqueueShared) se cancelan con la pantalla.
+     */
+    private <T> RequestHandle enqueue(RequestDispatcher.Priority priority, String action, ApiCall<T> call,
+                                      Consumer<T> onSuccess, Consumer<Exception> onError) {
+        RequestHandle handle = new RequestHandle();
+        dispatcher.execute(priority, () -> {
             try {
-                String url = ApiConfig.BASE_URL + "api/users/password/reset";
-                SendResetPasswordResponse response = httpClient.post(url, request, SendResetPasswordResponse.class, null);
-                
-                Log.d(TAG, "Password reset email sent to: " + request.getEmail());
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "API Error sending password reset email", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
+                T response = call.execute();
+                deliver(handle, action, response, null, true, onSuccess, onError);
             } catch (IOException e) {
-                Log.e(TAG, "Network error sending password reset email", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
+                deliver(handle, action, null, e, isUserVisible(priority), onSuccess, onError);
             }
-        }).start();
+        });
+        return handle;
     }
     
     /**
-     * Confirmar reset de contraseña con código
+     * Como enqueue, pero para lecturas: cancelar el handle también evita que se ejecute
+     * si sigue en cola y aborta la conexión si ya está en la red
      */
-    public void confirmResetPassword(ResetPasswordConfirmRequest request, ResetPasswordConfirmCallback callback) {
-        new Thread(() -> {
+    private <T> RequestHandle enqueueRead(RequestDispatcher.Priority priority, String action, ApiCall<T> call,
+                                          Consumer<T> onSuccess, Consumer<Exception> onError) {
+        RequestHandle handle = newHandle();
+        dispatcher.execute(priority, handle.bind(() -> {
             try {
-                String url = ApiConfig.BASE_URL + "api/users/password/reset/confirm";
-                ResetPasswordConfirmResponse response = httpClient.put(url, request, ResetPasswordConfirmResponse.class, null);
-                
-                Log.d(TAG, "Password reset confirmed successfully");
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "API Error confirming password reset", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
+                T response = call.execute();
+                deliver(handle, action, response, null, true, onSuccess, onError);
             } catch (IOException e) {
-                Log.e(TAG, "Network error confirming password reset", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
+                deliver(handle, action, null, e, isUserVisible(priority), onSuccess, onError);
             }
-        }).start();
+        }));
+        return handle;
     }
     
     /**
-     * Obtener lista de todos los usuarios
+     * Como enqueueRead, pero para GETs idempotentes: si ya hay una petición igual (URL + token)
+     * en curso, se espera su respuesta en lugar de lanzar otra.
+     * La llamada de red solo se aborta cuando todos los que la esperaban se cancelaron.
      */
-    public void getAllUsers(String token, UsersListCallback callback) {
-        new Thread(() -> {
+    private <T> RequestHandle enqueueShared(RequestDispatcher.Priority priority, String action, String url,
+                                            String token, ApiCall<T> call,
+                                            Consumer<T> onSuccess, Consumer<Exception> onError) {
+        RequestHandle handle = newHandle();
+        String key = RequestCoalescer.key(url, token);
+        RequestCoalescer.Listener<T> listener = (response, error, primary) ->
+                deliver(handle, action, response, error, primary && isUserVisible(priority), onSuccess, onError);
+        
+        RequestHandle networkHandle = new RequestHandle();
+        boolean leader = coalescer.join(key, listener, networkHandle);
+        handle.addCancelAction(() -> coalescer.leave(key, listener));
+        if (!leader) {
+            Log.d(TAG, "Joined in-flight request " + action);
+            return handle;
+        }
+        
+        dispatcher.execute(priority, networkHandle.bind(() -> {
+            T response = null;
+            IOException error = null;
             try {
-                String url = ApiConfig.BASE_URL + "api/users/all/";
-                UsersListResponse response = httpClient.get(url, UsersListResponse.class, token);
-                
-                Log.d(TAG, "Users list retrieved successfully");
-                
-                mainHandler.post(() -> callback.onSuccess(response));
-                
-            } catch (ApiException e) {
-                Log.e(TAG, "API Error getting users list", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showErrorToast(context, e.getErrorJson());
-                    callback.onError(e);
-                });
+                response = call.execute();
             } catch (IOException e) {
-                Log.e(TAG, "Network error getting users list", e);
-                mainHandler.post(() -> {
-                    ErrorHandler.showNetworkError(context, e);
-                    callback.onError(e);
-                });
+                error = e;
+            } catch (RuntimeException e) {
+                // Nunca dejar la clave bloqueada: los que esperan deben recibir una respuesta
+                error = new IOException("Unexpected response: " + e.getMessage(), e);
             }
-        }).start();
+            coalescer.complete(key, networkHandle, response, error);
+            networkHandle.complete();
+        }));
+        return handle;
+    }
+    
+    private RequestHandle newHandle() {
+        return scope != null ? scope.newHandle() : new RequestHandle();
+    }
+    
+    /**
+     * Las peticiones en segundo plano no muestran Toast: el polling reintenta solo
+     */
+    private static boolean isUserVisible(RequestDispatcher.Priority priority) {
+        return priority != RequestDispatcher.Priority.BACKGROUND;
+    }
+    
+    /**
+     * Publica el resultado en el hilo principal
+     * showError = false evita repetir el Toast cuando varias llamadas comparten la misma respuesta
+     */
+    private <T> void deliver(RequestHandle handle, String action, T response, IOException error,
+                             boolean showError, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        if (handle.isCancelled()) {
+            // La pantalla ya no existe: ni Toast ni callback
+            CancellationStats.getInstance().recordDroppedCallback();
+            return;
+        }
+        if (error == null) {
+            handle.post(mainHandler, () -> {
+                onSuccess.accept(response);
+                handle.complete();
+            });
+        } else if (error instanceof ApiException) {
+            ApiException apiError = (ApiException) error;
+            Log.e(TAG, "Error API " + action, apiError);
+            // Mostrar error en Toast automáticamente
+            handle.post(mainHandler, () -> {
+                if (showError) {
+                    ErrorHandler.showErrorToast(context, apiError.getErrorJson());
+                }
+                onError.accept(apiError);
+                handle.complete();
+            });
+        } else {
+            Log.e(TAG, "Error de red " + action, error);
+            handle.post(mainHandler, () -> {
+                if (showError) {
+                    ErrorHandler.showNetworkError(context, error);
+                }
+                onError.accept(error);
+                handle.complete();
+            });
+        }
     }
     
     // Callback genérico para GET y PUT
@@ -0,0 +1,92 @@
+package com.example.androidchatproject.network;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * InputStream que deja pasar el cuerpo de la respuesta sin modificarlo
+ * y guarda solo los primeros bytes para poder loguearlos
+ * También mide el tiempo bloqueado en read(), para separar la espera por la red del parseo
+ */
+class BodyPreviewInputStream extends FilterInputStream {
+
+    private final byte[] preview;
+    private int previewLength;
+    private long bytesRead;
+    private long readNanos;
+
+    BodyPreviewInputStream(InputStream in, int maxPreviewBytes) {
+        super(in);
+        this.preview = new byte[maxPreviewBytes];
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int b = super.read();
+        readNanos += System.nanoTime() - start;
+        if (b != -1) {
+            capture(b);
+            bytesRead++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        int count = super.read(buffer, offset, length);
+        readNanos += System.nanoTime() - start;
+        if (count > 0) {
+            int toCopy = Math.min(count, preview.length - previewLength);
+            if (toCopy > 0) {
+                System.arraycopy(buffer, offset, preview, previewLength, toCopy);
+                previewLength += toCopy;
+            }
+            bytesRead += count;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        bytesRead += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void capture(int b) {
+        if (previewLength < preview.length) {
+            preview[previewLength++] = (byte) b;
+        }
+    }
+
+    /**
+     * Bytes leídos del cuerpo hasta ahora
+     */
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Tiempo total esperando al stream subyacente
+     */
+    long getReadNanos() {
+        return readNanos;
+    }
+
+    /**
+     * Inicio del cuerpo como texto, marcado con "..." si se truncó
+     */
+    String getPreview() {
+        String text = new String(preview, 0, previewLength, StandardCharsets.UTF_8);
+        return bytesRead > previewLength ? text + "..." : text;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.androidchatproject.network;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiempos y bytes de una llamada en el cable, medidos por el transporte
+ * Los valores que no se midieron (ej: DNS con una conexión reutilizada) quedan en -1
+ */
+public class CallTimings {
+
+    volatile long dnsNanos = -1;
+    volatile long connectNanos = -1;
+    volatile long ttfbNanos = -1;
+    volatile long bodyNanos = -1;
+    volatile long requestBytes = -1;
+    volatile long responseBytes = -1;
+
+    /**
+     * Resolución DNS (solo en conexiones nuevas)
+     */
+    public double getDnsMillis() {
+        return toMillis(dnsNanos);
+    }
+
+    /**
+     * Conexión TCP + handshake TLS (solo en conexiones nuevas)
+     */
+    public double getConnectMillis() {
+        return toMillis(connectNanos);
+    }
+
+    /**
+     * Desde el inicio de la llamada hasta el primer byte de la respuesta
+     */
+    public double getTtfbMillis() {
+        return toMillis(ttfbNanos);
+    }
+
+    /**
+     * Desde las cabeceras de la respuesta hasta el último byte del cuerpo
+     */
+    public double getBodyMillis() {
+        return toMillis(bodyNanos);
+    }
+
+    /**
+     * Bytes enviados (cabeceras + cuerpo)
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * Bytes recibidos en el cable (cabeceras + cuerpo, antes de descomprimir)
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    static double toMillis(long nanos) {
+        return nanos < 0 ? -1 : nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return "CallTimings{" +
+                "dns=" + getDnsMillis() +
+                ", connect=" + getConnectMillis() +
+                ", ttfb=" + getTtfbMillis() +
+                ", body=" + getBodyMillis() +
+                ", requestBytes=" + requestBytes +
+                ", responseBytes=" + responseBytes +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.androidchatproject.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de cancelación de peticiones del proceso
+ * Permiten ver cuánto trabajo se ahorra al salir de una pantalla
+ */
+public class CancellationStats {
+
+    private static final CancellationStats instance = new CancellationStats();
+
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong abortedCallCount = new AtomicLong();
+    private final AtomicLong droppedCallbackCount = new AtomicLong();
+
+    private CancellationStats() {
+    }
+
+    public static CancellationStats getInstance() {
+        return instance;
+    }
+
+    void recordCancelled() {
+        cancelledCount.incrementAndGet();
+    }
+
+    void recordSkipped() {
+        skippedCount.incrementAndGet();
+    }
+
+    void recordAbortedCall() {
+        abortedCallCount.incrementAndGet();
+    }
+
+    void recordDroppedCallback() {
+        droppedCallbackCount.incrementAndGet();
+    }
+
+    /**
+     * Handles cancelados (por la pantalla o explícitamente)
+     */
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    /**
+     * Tareas que estaban en cola y ya no llegaron a ejecutarse
+     */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    /**
+     * Conexiones abortadas mientras enviaban o descargaban
+     */
+    public long getAbortedCallCount() {
+        return abortedCallCount.get();
+    }
+
+    /**
+     * Callbacks de UI descartados porque la pantalla ya no existe
+     */
+    public long getDroppedCallbackCount() {
+        return droppedCallbackCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "CancellationStats{" +
+                "cancelled=" + cancelledCount.get() +
+                ", skipped=" + skippedCount.get() +
+                ", abortedCalls=" + abortedCallCount.get() +
+                ", droppedCallbacks=" + droppedCallbackCount.get() +
+                '}';
+    }
+}
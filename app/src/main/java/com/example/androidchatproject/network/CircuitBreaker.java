@@ -0,0 +1,220 @@
+package com.example.androidchatproject.network;
+
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker por endpoint
+ * - CLOSED: las peticiones pasan; tras varios fallos seguidos (red o 5xx/429) se abre
+ * - OPEN: las peticiones fallan al instante con CircuitOpenException, sin tocar la red,
+ *   para que el polling no siga golpeando un dyno dormido o caído
+ * - HALF_OPEN: pasado el tiempo de espera se deja pasar una sola petición de prueba;
+ *   si funciona se cierra, si falla se vuelve a abrir con una espera mayor
+ * Compartido por todo el proceso, igual que RequestCoalescer.
+ */
+public class CircuitBreaker {
+
+    private static final String TAG = "CircuitBreaker";
+
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final long DEFAULT_OPEN_MILLIS = 30000; // 30 segundos
+    private static final long MAX_OPEN_MILLIS = 5 * 60000; // 5 minutos
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private final String endpoint;
+    private final int failureThreshold;
+    private final long baseOpenMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openMillis;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong openedCount = new AtomicLong();
+
+    CircuitBreaker(String endpoint, int failureThreshold, long openMillis) {
+        this.endpoint = endpoint;
+        this.failureThreshold = failureThreshold;
+        this.baseOpenMillis = openMillis;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Circuito de un endpoint (plantilla, ej: "GET api/chats/all/")
+     */
+    public static CircuitBreaker forEndpoint(String endpoint) {
+        CircuitBreaker breaker = breakers.get(endpoint);
+        if (breaker == null) {
+            breaker = new CircuitBreaker(endpoint, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS);
+            CircuitBreaker existing = breakers.putIfAbsent(endpoint, breaker);
+            if (existing != null) {
+                breaker = existing;
+            }
+        }
+        return breaker;
+    }
+
+    /**
+     * Reemplaza el circuito de un endpoint por uno con otros umbrales (ej: para pruebas)
+     */
+    static CircuitBreaker register(String endpoint, int failureThreshold, long openMillis) {
+        CircuitBreaker breaker = new CircuitBreaker(endpoint, failureThreshold, openMillis);
+        breakers.put(endpoint, breaker);
+        return breaker;
+    }
+
+    /**
+     * Todos los circuitos creados hasta ahora, ordenados por endpoint
+     */
+    public static Map<String, CircuitBreaker> getAll() {
+        return Collections.unmodifiableMap(new TreeMap<>(breakers));
+    }
+
+    /**
+     * Pide permiso para enviar una petición
+     * @throws CircuitOpenException si el circuito está abierto o ya hay una prueba en curso
+     */
+    public synchronized void acquire() throws CircuitOpenException {
+        if (state == State.CLOSED) {
+            return;
+        }
+
+        long now = now();
+        if (state == State.OPEN) {
+            long remaining = openedAt + openMillis - now;
+            if (remaining > 0) {
+                rejectedCount.incrementAndGet();
+                throw new CircuitOpenException(endpoint, remaining);
+            }
+            transition(State.HALF_OPEN);
+        }
+
+        // HALF_OPEN: solo una petición de prueba a la vez
+        if (probeInFlight) {
+            rejectedCount.incrementAndGet();
+            throw new CircuitOpenException(endpoint, 0);
+        }
+        probeInFlight = true;
+    }
+
+    /**
+     * El servidor respondió (aunque sea con un 4xx: está vivo)
+     */
+    public synchronized void recordSuccess() {
+        successCount.incrementAndGet();
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) {
+            openMillis = baseOpenMillis;
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * Fallo de red o error del servidor (5xx, 429)
+     */
+    public synchronized void recordFailure() {
+        failureCount.incrementAndGet();
+        consecutiveFailures++;
+        probeInFlight = false;
+
+        if (state == State.HALF_OPEN) {
+            // La prueba falló: esperar el doble antes de la siguiente
+            openMillis = Math.min(openMillis * 2, MAX_OPEN_MILLIS);
+            open();
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Libera la prueba en curso sin contarla (ej: petición cancelada)
+     */
+    public synchronized void release() {
+        probeInFlight = false;
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private void open() {
+        openedAt = now();
+        openedCount.incrementAndGet();
+        transition(State.OPEN);
+    }
+
+    private void transition(State newState) {
+        if (state != newState) {
+            Log.i(TAG, endpoint + ": " + state + " -> " + newState
+                    + (newState == State.OPEN ? " for " + openMillis + " ms" : ""));
+            state = newState;
+        }
+    }
+
+    // Métricas
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * Peticiones rechazadas sin salir a la red
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Veces que el circuito se abrió
+     */
+    public long getOpenedCount() {
+        return openedCount.get();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker{" +
+                "endpoint='" + endpoint + '\'' +
+                ", state=" + state +
+                ", consecutiveFailures=" + consecutiveFailures +
+                ", successes=" + successCount.get() +
+                ", failures=" + failureCount.get() +
+                ", rejected=" + rejectedCount.get() +
+                ", opened=" + openedCount.get() +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.androidchatproject.network;
+
+import java.io.IOException;
+
+/**
+ * La petición no se envió porque el circuito del endpoint está abierto
+ * (el servidor falló varias veces seguidas y se le está dejando descansar)
+ */
+public class CircuitOpenException extends IOException {
+
+    private final String endpoint;
+    private final long retryInMillis;
+
+    public CircuitOpenException(String endpoint, long retryInMillis) {
+        super("Circuit open for " + endpoint + ", retry in " + retryInMillis + " ms");
+        this.endpoint = endpoint;
+        this.retryInMillis = retryInMillis;
+    }
+
+    /**
+     * Endpoint (plantilla) cuyo circuito está abierto, ej: "GET api/chats/id/{id}/"
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Tiempo hasta que se permita la siguiente petición de prueba
+     */
+    public long getRetryInMillis() {
+        return retryInMillis;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.androidchatproject.network;
+
+import android.util.Log;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de compresión HTTP del proceso
+ * Registra, por petición, los bytes en el cable frente a los bytes reales del JSON
+ */
+public class CompressionStats {
+
+    private static final String TAG = "CompressionStats";
+
+    private static final CompressionStats instance = new CompressionStats();
+
+    private final AtomicLong responseCount = new AtomicLong();
+    private final AtomicLong compressedResponseCount = new AtomicLong();
+    private final AtomicLong responseWireBytes = new AtomicLong();
+    private final AtomicLong responseDecodedBytes = new AtomicLong();
+
+    private final AtomicLong compressedRequestCount = new AtomicLong();
+    private final AtomicLong requestRawBytes = new AtomicLong();
+    private final AtomicLong requestWireBytes = new AtomicLong();
+
+    private CompressionStats() {
+    }
+
+    public static CompressionStats getInstance() {
+        return instance;
+    }
+
+    /**
+     * Respuesta leída: bytes recibidos y bytes tras descomprimir
+     */
+    void recordResponse(String url, String encoding, long wireBytes, long decodedBytes) {
+        responseCount.incrementAndGet();
+        responseWireBytes.addAndGet(wireBytes);
+        responseDecodedBytes.addAndGet(decodedBytes);
+
+        if (encoding != null) {
+            compressedResponseCount.incrementAndGet();
+            Log.d(TAG, encoding + " response from " + url + ": " + wireBytes + " -> " + decodedBytes
+                    + " bytes (saved " + (decodedBytes - wireBytes) + ")");
+        }
+    }
+
+    /**
+     * Cuerpo de petición comprimido: bytes originales y bytes enviados
+     */
+    void recordRequest(String url, long rawBytes, long wireBytes) {
+        compressedRequestCount.incrementAndGet();
+        requestRawBytes.addAndGet(rawBytes);
+        requestWireBytes.addAndGet(wireBytes);
+
+        Log.d(TAG, "gzip request to " + url + ": " + rawBytes + " -> " + wireBytes
+                + " bytes (saved " + (rawBytes - wireBytes) + ")");
+    }
+
+    public long getResponseCount() {
+        return responseCount.get();
+    }
+
+    public long getCompressedResponseCount() {
+        return compressedResponseCount.get();
+    }
+
+    public long getResponseWireBytes() {
+        return responseWireBytes.get();
+    }
+
+    public long getResponseDecodedBytes() {
+        return responseDecodedBytes.get();
+    }
+
+    public long getCompressedRequestCount() {
+        return compressedRequestCount.get();
+    }
+
+    public long getRequestRawBytes() {
+        return requestRawBytes.get();
+    }
+
+    public long getRequestWireBytes() {
+        return requestWireBytes.get();
+    }
+
+    /**
+     * Bytes ahorrados en total (respuestas + peticiones)
+     */
+    public long getBytesSaved() {
+        return (responseDecodedBytes.get() - responseWireBytes.get())
+                + (requestRawBytes.get() - requestWireBytes.get());
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionStats{" +
+                "responses=" + responseCount.get() +
+                ", compressedResponses=" + compressedResponseCount.get() +
+                ", responseWireBytes=" + responseWireBytes.get() +
+                ", responseDecodedBytes=" + responseDecodedBytes.get() +
+                ", compressedRequests=" + compressedRequestCount.get() +
+                ", requestRawBytes=" + requestRawBytes.get() +
+                ", requestWireBytes=" + requestWireBytes.get() +
+                '}';
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.androidchatproject.network;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.util.Log;
+
+import com.example.androidchatproject.config.ApiConfig;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-calentamiento de la conexión con el backend al arrancar el proceso
+ * El backend es un dyno de Heroku: la primera petición tras un rato inactivo paga DNS,
+ * handshake TLS y el arranque del dyno. Aquí se adelanta ese coste, en paralelo con el
+ * inflado de la primera pantalla:
+ * 1. Resolver el host (queda en la cache DNS del sistema)
+ * 2. Petición HEAD barata a la raíz: abre la conexión TLS del pool compartido y despierta el dyno
+ * Así validar la sesión y cargar los chats encuentran una conexión lista. Corre en el carril
+ * BACKGROUND y el HEAD pasa por el transporte compartido (rate limiter, métricas) como el resto.
+ */
+public class ConnectionPrewarmer {
+
+    private static final String TAG = "ConnectionPrewarmer";
+
+    // Mientras el pool mantenga la conexión no tiene sentido repetirlo
+    private static final long REWARM_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private static final ConnectionPrewarmer instance = new ConnectionPrewarmer();
+
+    private final Object lock = new Object();
+    private boolean running;
+    private long lastStartNanos;
+
+    private volatile double dnsMillis = -1;
+    private volatile double connectMillis = -1;
+    private volatile double wakeUpMillis = -1;
+    private volatile int wakeUpStatus = -1;
+    private volatile long finishedAtNanos = -1;
+
+    private ConnectionPrewarmer() {
+    }
+
+    public static ConnectionPrewarmer getInstance() {
+        return instance;
+    }
+
+    /**
+     * Lanza el pre-calentamiento en segundo plano; no hace nada sin red,
+     * si ya está en curso o si se hizo hace poco
+     */
+    public void prewarm(Context context) {
+        if (!ApiConfig.PREWARM_CONNECTION || !isNetworkAvailable(context)) {
+            return;
+        }
+        synchronized (lock) {
+            long now = System.nanoTime();
+            if (running || (lastStartNanos != 0 && now - lastStartNanos < REWARM_INTERVAL_NANOS)) {
+                return;
+            }
+            running = true;
+            lastStartNanos = now;
+        }
+
+        // Con la cola vacía al arrancar empieza ya, y no pasa delante de las peticiones de la pantalla
+        RequestDispatcher.getInstance().execute(RequestDispatcher.Priority.BACKGROUND, () -> {
+            try {
+                run();
+            } finally {
+                synchronized (lock) {
+                    running = false;
+                }
+            }
+        });
+    }
+
+    private void run() {
+        String host = URI.create(ApiConfig.BASE_URL).getHost();
+
+        long start = System.nanoTime();
+        try {
+            InetAddress.getAllByName(host);
+            dnsMillis = CallTimings.toMillis(System.nanoTime() - start);
+        } catch (IOException e) {
+            Log.w(TAG, "DNS prewarm failed for " + host + ": " + e.getMessage());
+            return;
+        }
+
+        if (ApiConfig.PREWARM_WAKE_UP_REQUEST) {
+            wakeUp();
+        }
+        finishedAtNanos = System.nanoTime();
+        Log.d(TAG, "Prewarm done in " + CallTimings.toMillis(finishedAtNanos - start) + " ms: " + this);
+    }
+
+    private void wakeUp() {
+        // Los timeouts y reintentos (ej: 503 mientras arranca el dyno) los decide el HttpClient
+        long start = System.nanoTime();
+        try {
+            HttpResponse response = new HttpClient(HttpClient.getDefaultTransport()).head(ApiConfig.BASE_URL);
+            // Cualquier código vale (incluso 404): la conexión queda en el pool
+            wakeUpStatus = response.getCode();
+            CallTimings timings = response.getTimings();
+            if (timings != null) {
+                connectMillis = timings.getConnectMillis();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Wake-up request failed: " + e.getMessage());
+        }
+        wakeUpMillis = CallTimings.toMillis(System.nanoTime() - start);
+    }
+
+    private static boolean isNetworkAvailable(Context context) {
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager != null) {
+            NetworkInfo activeNetworkInfo = connectivityManager.getActiveNetworkInfo();
+            return activeNetworkInfo != null && activeNetworkInfo.isConnected();
+        }
+        return false;
+    }
+
+    /**
+     * Si el último pre-calentamiento terminó (con o sin petición de wake-up)
+     */
+    public boolean isFinished() {
+        return finishedAtNanos >= 0;
+    }
+
+    /**
+     * Resolución DNS del host, o -1
+     */
+    public double getDnsMillis() {
+        return dnsMillis;
+    }
+
+    /**
+     * Conexión TCP + TLS abierta por la petición de wake-up, o -1
+     */
+    public double getConnectMillis() {
+        return connectMillis;
+    }
+
+    /**
+     * Duración total de la petición de wake-up (incluye el arranque del dyno), o -1
+     */
+    public double getWakeUpMillis() {
+        return wakeUpMillis;
+    }
+
+    /**
+     * Código HTTP de la petición de wake-up, o -1
+     */
+    public int getWakeUpStatus() {
+        return wakeUpStatus;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPrewarmer{" +
+                "dns=" + dnsMillis +
+                ", connect=" + connectMillis +
+                ", wakeUp=" + wakeUpMillis +
+                ", status=" + wakeUpStatus +
+                '}';
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.androidchatproject.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Codificación gzip/deflate de los cuerpos HTTP
+ * Al pedir Accept-Encoding explícitamente, el transporte deja de descomprimir por su cuenta,
+ * así que la respuesta se decodifica aquí y se cuentan los bytes ahorrados.
+ */
+final class ContentEncoding {
+
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private ContentEncoding() {
+    }
+
+    /**
+     * Stream del cuerpo ya descomprimido según Content-Encoding
+     * Al cerrarlo se registran los bytes leídos en CompressionStats
+     */
+    static InputStream decode(HttpResponse response, String url) throws IOException {
+        String encoding = response.header("Content-Encoding");
+        if (encoding != null) {
+            encoding = encoding.trim().toLowerCase(java.util.Locale.US);
+            if (encoding.isEmpty() || "identity".equals(encoding)) {
+                encoding = null;
+            }
+        }
+
+        CountingInputStream wire = new CountingInputStream(response.getBody());
+        InputStream decoded;
+        if (encoding == null) {
+            decoded = wire;
+        } else if ("gzip".equals(encoding) || "x-gzip".equals(encoding)) {
+            PushbackInputStream in = new PushbackInputStream(wire, 2);
+            decoded = isEmpty(in) ? in : new GZIPInputStream(in, BUFFER_SIZE);
+        } else if ("deflate".equals(encoding)) {
+            PushbackInputStream in = new PushbackInputStream(wire, 2);
+            decoded = isEmpty(in) ? in : inflate(in);
+        } else {
+            throw new IOException("Unsupported Content-Encoding: " + encoding);
+        }
+
+        String recordedEncoding = encoding;
+        return new CountingInputStream(decoded) {
+            private boolean recorded;
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (!recorded) {
+                        recorded = true;
+                        CompressionStats.getInstance().recordResponse(
+                                url, recordedEncoding, wire.getCount(), getCount());
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Comprime un cuerpo con gzip
+     */
+    static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Un cuerpo vacío (ej: 204) no tiene cabecera gzip que leer
+     */
+    private static boolean isEmpty(PushbackInputStream in) throws IOException {
+        int first = in.read();
+        if (first == -1) {
+            return true;
+        }
+        in.unread(first);
+        return false;
+    }
+
+    /**
+     * "deflate" debería ser zlib (RFC 1950), pero algunos servidores envían deflate crudo
+     */
+    private static InputStream inflate(PushbackInputStream in) throws IOException {
+        byte[] header = new byte[2];
+        int read = in.read(header);
+        if (read > 0) {
+            in.unread(header, 0, read);
+        }
+        boolean zlib = read == 2
+                && (header[0] & 0x0F) == 8
+                && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(in, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    // Un Inflater propio no se libera al cerrar el stream
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Cuenta los bytes que pasan por el stream
+     */
+    static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.androidchatproject.network;
+
+import java.net.SocketTimeoutException;
+
+/**
+ * Se agotó el deadline de la petición (contando todos sus reintentos)
+ */
+public class DeadlineExceededException extends SocketTimeoutException {
+
+    private final String endpoint;
+    private final long elapsedMillis;
+
+    public DeadlineExceededException(String endpoint, long elapsedMillis, Throwable cause) {
+        super("Deadline exceeded for " + endpoint + " after " + elapsedMillis + " ms");
+        this.endpoint = endpoint;
+        this.elapsedMillis = elapsedMillis;
+        if (cause != null) {
+            initCause(cause);
+        }
+    }
+
+    /**
+     * Endpoint (plantilla), ej: "GET api/chats/all/"
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Tiempo desde el primer intento hasta que se abandonó la petición
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
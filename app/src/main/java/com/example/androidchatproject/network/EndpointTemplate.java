@@ -0,0 +1,57 @@
+package com.example.androidchatproject.network;
+
+import java.util.regex.Pattern;
+
+/**
+ * Nombre estable de un endpoint a partir de su URL
+ * Los identificadores se sustituyen por {id} para que todas las peticiones
+ * a "api/chats/id/<chat>" compartan circuito y métricas.
+ */
+final class EndpointTemplate {
+
+    // Números, UUIDs, ObjectIds/hashes y tokens largos con dígitos
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+            "\\d+|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}"
+                    + "|[0-9a-fA-F]{16,}|(?=[A-Za-z_-]*\\d)[A-Za-z0-9_-]{20,}");
+
+    private EndpointTemplate() {
+    }
+
+    /**
+     * Ej: ("GET", "https://host/api/chats/id/6650f0c2a1b2c3d4e5f60718/") -> "GET api/chats/id/{id}/"
+     */
+    static String of(String method, String url) {
+        String path = url;
+        int scheme = path.indexOf("://");
+        if (scheme >= 0) {
+            int slash = path.indexOf('/', scheme + 3);
+            path = slash >= 0 ? path.substring(slash + 1) : "";
+        }
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+
+        StringBuilder template = new StringBuilder(method).append(' ');
+        String previous = null;
+        int start = 0;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            String segment = path.substring(start, end);
+            if (!segment.isEmpty()) {
+                // Lo que sigue a "id" siempre es un identificador
+                boolean isId = "id".equals(previous) || ID_SEGMENT.matcher(segment).matches();
+                template.append(isId ? "{id}" : segment);
+            }
+            if (end < path.length()) {
+                template.append('/');
+            }
+            previous = segment;
+            start = end + 1;
+        }
+        return template.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.androidchatproject.network;
+
+import android.util.Log;
+
+import com.example.androidchatproject.model.ApiError;
+import com.example.androidchatproject.model.chats.ChatDetailResponse;
+import com.example.androidchatproject.model.chats.ChatsListResponse;
+import com.example.androidchatproject.model.chats.CreateChatResponse;
+import com.example.androidchatproject.model.chats.SendMessageResponse;
+import com.example.androidchatproject.model.chats.MessageResponse;
+import com.example.androidchatproject.model.user.AuthResponse;
+import com.example.androidchatproject.model.user.TokenValidationResponse;
+import com.example.androidchatproject.model.user.UserProfileResponse;
+import com.example.androidchatproject.model.user.UsersListResponse;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Instancia única de GSON para todo el proceso (API, cache y errores)
+ * Los modelos de chats y usuarios usan los TypeAdapters de JsonAdapters; el resto sigue
+ * con el binding reflexivo. Gson cachea los adapters por tipo, así que compartir la
+ * instancia evita repetir esa resolución en cada cliente.
+ */
+public final class GsonProvider {
+
+    private static final String TAG = "GsonProvider";
+
+    /**
+     * Tipo de la lista de mensajes guardada en la cache de detalle de chat
+     */
+    public static final Type MESSAGE_LIST_TYPE = new TypeToken<List<MessageResponse>>() { }.getType();
+
+    private static final Gson gson = JsonAdapters.register(new GsonBuilder())
+            .setLenient()
+            .create();
+
+    private GsonProvider() {
+    }
+
+    public static Gson getGson() {
+        return gson;
+    }
+
+    /**
+     * Resuelve de antemano los adapters de las respuestas más frecuentes
+     * (los reflexivos inspeccionan la clase la primera vez), fuera del hilo principal
+     */
+    public static void prewarm() {
+        RequestDispatcher.getInstance().execute(RequestDispatcher.Priority.BACKGROUND, () -> {
+            long start = System.nanoTime();
+            Class<?>[] types = {
+                    ChatsListResponse.class, ChatDetailResponse.class, UsersListResponse.class,
+                    UserProfileResponse.class, SendMessageResponse.class, CreateChatResponse.class,
+                    AuthResponse.class, TokenValidationResponse.class, ApiError.class
+            };
+            for (Class<?> type : types) {
+                gson.getAdapter(type);
+            }
+            gson.getAdapter(TypeToken.get(MESSAGE_LIST_TYPE));
+            Log.d(TAG, "Gson adapters ready in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        });
+    }
+}
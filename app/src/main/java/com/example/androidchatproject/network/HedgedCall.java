@@ -0,0 +1,223 @@
+package com.example.androidchatproject.network;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecución de una petición con posible duplicado (ver HedgingPolicy)
+ * La original corre en el hilo que llama (el del dispatcher); el duplicado, en un pool
+ * pequeño y acotado. Si el pool está lleno el duplicado no se lanza: nunca se encola.
+ * Cada una tiene su RequestHandle y gana la primera respuesta. La perdedora se cancela
+ * (aborta su conexión) y, si aun así llega a responder, su respuesta se cierra. Estas
+ * cancelaciones internas no cuentan en CancellationStats.
+ * Cancelar el handle del llamador cancela las dos.
+ */
+final class HedgedCall {
+
+    // Duplicados en curso a la vez, en todo el proceso
+    private static final int MAX_HEDGES = 2;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(0, MAX_HEDGES,
+            30, TimeUnit.SECONDS, new SynchronousQueue<>(), daemonThreads("api-hedge-"));
+    // Solo dispara el duplicado cuando vence la espera; no hace I/O
+    private static final ScheduledThreadPoolExecutor timer =
+            new ScheduledThreadPoolExecutor(1, daemonThreads("api-hedge-timer-"));
+
+    static {
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    private final HttpTransport transport;
+    private final HttpRequest request;
+    private final RequestHandle[] handles = new RequestHandle[2];
+
+    private boolean hedged;
+    private int pending;
+    private int winnerIndex = -1;
+    private HttpResponse winner;
+    private IOException firstError;
+    private boolean cancelled;
+
+    private HedgedCall(HttpTransport transport, HttpRequest request) {
+        this.transport = transport;
+        this.request = request;
+    }
+
+    /**
+     * Envía la petición y, si no hay respuesta en delayMillis y el presupuesto lo permite, un duplicado
+     */
+    static HttpResponse execute(HttpTransport transport, HttpRequest request, HedgingPolicy policy,
+                                long delayMillis) throws IOException {
+        return new HedgedCall(transport, request).run(policy, delayMillis);
+    }
+
+    private HttpResponse run(HedgingPolicy policy, long delayMillis) throws IOException {
+        RequestHandle parent = RequestHandle.current();
+        Runnable cancelAll = this::cancelAll;
+        if (parent != null) {
+            parent.throwIfCancelled();
+            parent.addCancelAction(cancelAll);
+        }
+        ScheduledFuture<?> hedgeTimer = null;
+        try {
+            RequestHandle original = new RequestHandle();
+            synchronized (this) {
+                handles[0] = original;
+                pending++;
+            }
+            hedgeTimer = timer.schedule(() -> startHedge(policy), delayMillis, TimeUnit.MILLISECONDS);
+            original.bind(() -> attempt(0)).run();
+
+            synchronized (this) {
+                awaitResult();
+
+                if (cancelled) {
+                    closeQuietly(winner);
+                    throw new InterruptedIOException("Canceled");
+                }
+                if (winnerIndex >= 0) {
+                    if (hedged) {
+                        policy.recordWinner(winnerIndex == 1);
+                    }
+                    return linkToParent(parent, winner, handles[winnerIndex]);
+                }
+                throw firstError;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAll();
+            throw new InterruptedIOException("Interrupted while waiting for " + request.getUrl());
+        } finally {
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel(false);
+            }
+            if (parent != null) {
+                parent.removeCancelAction(cancelAll);
+            }
+        }
+    }
+
+    /**
+     * Mientras se lee el cuerpo del ganador, cancelar al llamador sigue abortando la conexión
+     */
+    private static HttpResponse linkToParent(RequestHandle parent, HttpResponse response, RequestHandle handle) {
+        if (parent == null) {
+            return response;
+        }
+        Runnable abort = handle::abort;
+        parent.addCancelAction(abort);
+        return new HttpResponse(response.getCode(), response.getMessage(), response.getHeaders(),
+                response.getBody(), () -> {
+                    try {
+                        response.close();
+                    } finally {
+                        parent.removeCancelAction(abort);
+                    }
+                }).timings(response.getTimings());
+    }
+
+    /**
+     * Espera hasta que haya ganador, fallen todas las peticiones en curso o se cancele
+     */
+    private void awaitResult() throws InterruptedException {
+        while (winnerIndex < 0 && pending > 0 && !cancelled) {
+            wait();
+        }
+    }
+
+    /**
+     * Vence la espera: lanza el duplicado si la original sigue en curso, hay presupuesto
+     * y queda un hilo libre en el pool
+     */
+    private void startHedge(HedgingPolicy policy) {
+        RequestHandle handle = new RequestHandle();
+        synchronized (this) {
+            if (winnerIndex >= 0 || pending == 0 || cancelled || !policy.tryAcquire()) {
+                return;
+            }
+            try {
+                executor.execute(handle.bind(() -> attempt(1)));
+            } catch (RejectedExecutionException e) {
+                policy.release();
+                return;
+            }
+            handles[1] = handle;
+            hedged = true;
+            pending++;
+        }
+    }
+
+    private void attempt(int index) {
+        HttpResponse response = null;
+        IOException error = null;
+        try {
+            response = transport.execute(request);
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException(e);
+        }
+        finish(index, response, error);
+    }
+
+    private void finish(int index, HttpResponse response, IOException error) {
+        RequestHandle loser = null;
+        synchronized (this) {
+            pending--;
+            if (winnerIndex >= 0 || cancelled) {
+                closeQuietly(response);
+            } else if (response != null) {
+                winnerIndex = index;
+                winner = response;
+                loser = handles[1 - index];
+            } else if (firstError == null) {
+                firstError = error;
+            }
+            notifyAll();
+        }
+        if (loser != null) {
+            loser.abort();
+        }
+    }
+
+    private void cancelAll() {
+        RequestHandle[] toCancel;
+        synchronized (this) {
+            cancelled = true;
+            toCancel = handles.clone();
+            notifyAll();
+        }
+        for (RequestHandle handle : toCancel) {
+            if (handle != null) {
+                handle.abort();
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static void closeQuietly(HttpResponse response) {
+        if (response != null) {
+            try {
+                response.close();
+            } catch (IOException ignored) {
+                // Respuesta descartada
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.androidchatproject.network;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Peticiones "hedged" para GETs idempotentes sensibles a la latencia
+ * Si no llega respuesta dentro del p90 observado del endpoint (tiempo al primer byte),
+ * se lanza una segunda petición idéntica; gana la primera respuesta y la otra se cancela.
+ * Solo para endpoints registrados con hedge(). Un presupuesto limita los duplicados a una
+ * fracción de las peticiones elegibles (10% por defecto), así que nunca duplica la carga.
+ */
+public class HedgingPolicy {
+
+    /**
+     * Abrir un chat (getChatById): la latencia de cola del backend se nota al usuario
+     */
+    public static final HedgingPolicy DEFAULT = new HedgingPolicy(0.9, 0.1, 5)
+            .hedge("GET api/chats/id/{id}/");
+
+    /**
+     * Sin hedging
+     */
+    public static final HedgingPolicy NONE = new HedgingPolicy(0.9, 0, 0);
+
+    // Muestras necesarias antes de confiar en el percentil
+    private static final long MIN_SAMPLES = 20;
+    // No duplicar peticiones que suelen resolverse casi al instante
+    private static final long MIN_DELAY_MILLIS = 50;
+
+    private final double percentile;
+    private final double maxHedgeRatio;
+    private final double maxTokens;
+    private final Set<String> endpoints = ConcurrentHashMap.newKeySet();
+    private final HttpMetrics metrics;
+
+    private double tokens;
+
+    private final AtomicLong eligibleCount = new AtomicLong();
+    private final AtomicLong hedgedCount = new AtomicLong();
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+    private final AtomicLong budgetDeniedCount = new AtomicLong();
+    private final AtomicLong saturatedCount = new AtomicLong();
+
+    /**
+     * @param percentile Percentil de latencia tras el que se lanza el duplicado (ej: 0.9)
+     * @param maxHedgeRatio Duplicados como máximo por petición elegible, a la larga (ej: 0.1)
+     * @param maxBurst Duplicados seguidos permitidos cuando el presupuesto está lleno
+     */
+    public HedgingPolicy(double percentile, double maxHedgeRatio, int maxBurst) {
+        this(percentile, maxHedgeRatio, maxBurst, HttpMetrics.getInstance());
+    }
+
+    HedgingPolicy(double percentile, double maxHedgeRatio, int maxBurst, HttpMetrics metrics) {
+        this.percentile = percentile;
+        this.maxHedgeRatio = Math.max(0, Math.min(1, maxHedgeRatio));
+        this.maxTokens = Math.max(0, maxBurst);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Activa el hedging para un endpoint (plantilla, ej: "GET api/chats/id/{id}/")
+     */
+    public HedgingPolicy hedge(String endpoint) {
+        endpoints.add(endpoint);
+        return this;
+    }
+
+    /**
+     * Espera antes del duplicado, o -1 si la petición no se debe duplicar
+     * (endpoint no registrado, no es un GET idempotente o aún no hay latencias suficientes)
+     */
+    long hedgeDelayMillis(String endpoint, HttpRequest request) {
+        if (maxHedgeRatio <= 0 || !endpoints.contains(endpoint)
+                || !"GET".equals(request.getMethod()) || !request.isIdempotent()) {
+            return -1;
+        }
+        double delay = metrics.percentile(endpoint, HttpMetrics.Phase.TTFB, percentile, MIN_SAMPLES);
+        if (delay < 0) {
+            return -1;
+        }
+        eligibleCount.incrementAndGet();
+        synchronized (this) {
+            tokens = Math.min(maxTokens, tokens + maxHedgeRatio);
+        }
+        return Math.max(MIN_DELAY_MILLIS, (long) Math.ceil(delay));
+    }
+
+    /**
+     * Reserva presupuesto para un duplicado; false si ya se gastó
+     */
+    boolean tryAcquire() {
+        synchronized (this) {
+            if (tokens >= 1) {
+                tokens -= 1;
+                hedgedCount.incrementAndGet();
+                return true;
+            }
+        }
+        budgetDeniedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Devuelve el presupuesto de un duplicado que no se lanzó porque no había hilo libre
+     */
+    void release() {
+        synchronized (this) {
+            tokens = Math.min(maxTokens, tokens + 1);
+        }
+        hedgedCount.decrementAndGet();
+        saturatedCount.incrementAndGet();
+    }
+
+    /**
+     * Resultado de una petición duplicada: true si respondió antes el duplicado
+     */
+    void recordWinner(boolean hedgeWon) {
+        if (hedgeWon) {
+            hedgeWinCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Peticiones que se podían duplicar (endpoint registrado y con latencias conocidas)
+     */
+    public long getEligibleCount() {
+        return eligibleCount.get();
+    }
+
+    /**
+     * Duplicados lanzados
+     */
+    public long getHedgedCount() {
+        return hedgedCount.get();
+    }
+
+    /**
+     * Duplicados que respondieron antes que la petición original
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount.get();
+    }
+
+    /**
+     * Duplicados no lanzados por falta de presupuesto
+     */
+    public long getBudgetDeniedCount() {
+        return budgetDeniedCount.get();
+    }
+
+    /**
+     * Duplicados no lanzados porque el pool de duplicados estaba lleno
+     */
+    public long getSaturatedCount() {
+        return saturatedCount.get();
+    }
+
+    /**
+     * Fracción de peticiones elegibles que se duplicaron
+     */
+    public double getHedgeRate() {
+        long eligible = eligibleCount.get();
+        return eligible > 0 ? hedgedCount.get() / (double) eligible : 0;
+    }
+
+    /**
+     * Fracción de duplicados que ganaron
+     */
+    public double getHedgeWinRate() {
+        long hedged = hedgedCount.get();
+        return hedged > 0 ? hedgeWinCount.get() / (double) hedged : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "HedgingPolicy{eligible=%d, hedged=%d (%.1f%%), wins=%d (%.1f%%), budgetDenied=%d, saturated=%d}",
+                eligibleCount.get(), hedgedCount.get(), getHedgeRate() * 100,
+                hedgeWinCount.get(), getHedgeWinRate() * 100, budgetDeniedCount.get(), saturatedCount.get());
+    }
+}
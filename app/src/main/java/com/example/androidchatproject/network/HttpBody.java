@@ -0,0 +1,50 @@
+package com.example.androidchatproject.network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Cuerpo de una petición HTTP
+ * Se escribe directamente sobre el stream del transporte, sin copias intermedias
+ */
+public abstract class HttpBody {
+
+    /**
+     * Content-Type del cuerpo (ej: "application/json; charset=UTF-8")
+     */
+    public abstract String contentType();
+
+    /**
+     * Longitud exacta en bytes, o -1 si no se conoce (se enviará en modo chunked)
+     */
+    public long contentLength() {
+        return -1;
+    }
+
+    /**
+     * Escribe el cuerpo en el stream. No debe cerrar el stream.
+     */
+    public abstract void writeTo(OutputStream out) throws IOException;
+
+    /**
+     * Crea un cuerpo a partir de bytes ya armados
+     */
+    public static HttpBody create(byte[] content, String contentType) {
+        return new HttpBody() {
+            @Override
+            public String contentType() {
+                return contentType;
+            }
+
+            @Override
+            public long contentLength() {
+                return content.length;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                out.write(content, 0, content.length);
+            }
+        };
+    }
+}
@@ -3,36 +3,115 @@ package com.example.androidchatproject.network;
 import android.util.Log;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
 
 /**
  * Cliente HTTP manual para hacer peticiones GET, POST, PUT
- * Utiliza HttpURLConnection y GSON para parsear respuestas JSON
+ * Delega el envío en un HttpTransport (por defecto OkHttp con pool de conexiones)
+ * y utiliza GSON para parsear respuestas JSON
  */
 public class HttpClient {
 
-    private static final int CONNECT_TIMEOUT = 15000; // 15 segundos
-    private static final int READ_TIMEOUT = 15000; // 15 segundos
+    private static final String TAG = "HttpClient";
+    private static final int LOG_PREVIEW_BYTES = 512;
+    private static final int MIN_COMPRESS_BYTES = 1024; // no vale la pena comprimir cuerpos pequeños
     private static final String CONTENT_TYPE_JSON = "application/json; charset=UTF-8";
 
+    private static volatile HttpTransport defaultTransport;
+
     private final Gson gson;
+    private final HttpTransport transport;
+    // Con el constructor por defecto se toma la cache instalada en cuanto esté lista
+    private final boolean useInstalledCache;
+    private volatile HttpResponseCache responseCache;
+    private volatile boolean compressRequestBodies;
+    private volatile RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+    private volatile TimeoutPolicy timeoutPolicy = TimeoutPolicy.DEFAULT;
+    private volatile HedgingPolicy hedgingPolicy = HedgingPolicy.NONE;
+    private final HttpMetrics metrics = HttpMetrics.getInstance();
 
+    /**
+     * Cliente con el transporte compartido y la cache HTTP (la toma en cuanto se instale)
+     */
     public HttpClient() {
-        this.gson = new GsonBuilder()
-                .setLenient()
-                .create();
+        this(getDefaultTransport(), HttpResponseCache.getInstalled(), true);
+    }
+
+    public HttpClient(HttpTransport transport) {
+        this(transport, null);
+    }
+
+    public HttpClient(HttpTransport transport, HttpResponseCache responseCache) {
+        this(transport, responseCache, false);
+    }
+
+    private HttpClient(HttpTransport transport, HttpResponseCache responseCache, boolean useInstalledCache) {
+        this.transport = transport;
+        this.responseCache = responseCache;
+        this.useInstalledCache = useInstalledCache;
+        this.gson = GsonProvider.getGson();
+    }
+
+    /**
+     * Activa el envío de cuerpos JSON comprimidos con gzip (Content-Encoding: gzip)
+     * Solo para servidores que lo acepten; los cuerpos pequeños se envían sin comprimir
+     */
+    public void setCompressRequestBodies(boolean compressRequestBodies) {
+        this.compressRequestBodies = compressRequestBodies;
+    }
+
+    /**
+     * Política de reintentos para peticiones idempotentes (RetryPolicy.NONE para desactivarlos)
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy != null ? retryPolicy : RetryPolicy.NONE;
+    }
+
+    /**
+     * Timeouts y deadline de cada petición (por defecto, perfiles por endpoint y adaptativos)
+     */
+    public void setTimeoutPolicy(TimeoutPolicy timeoutPolicy) {
+        this.timeoutPolicy = timeoutPolicy != null ? timeoutPolicy : TimeoutPolicy.DEFAULT;
+    }
+
+    /**
+     * Duplica GETs lentos de los endpoints registrados (desactivado por defecto)
+     */
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy != null ? hedgingPolicy : HedgingPolicy.NONE;
+    }
+
+    /**
+     * Transporte compartido por todos los clientes del proceso
+     * (API y descargas de imágenes), para reutilizar conexiones y sesiones TLS
+     * y repartir un mismo presupuesto de peticiones (ver RateLimiter)
+     */
+    public static HttpTransport getDefaultTransport() {
+        HttpTransport transport = defaultTransport;
+        return transport != null ? transport : RateLimitedTransport.getInstance();
+    }
+
+    /**
+     * Reemplaza el transporte compartido (ej: para pruebas)
+     */
+    public static void setDefaultTransport(HttpTransport transport) {
+        defaultTransport = transport;
     }
 
     /**
      * Realiza una petición GET
+     * Si hay cache HTTP, se envía como GET condicional y un 304 devuelve el objeto guardado
      *
      * @param urlString URL del endpoint
      * @param responseClass Clase del objeto de respuesta
@@ -42,48 +121,16 @@ public class HttpClient {
      * @throws IOException Si hay error de red o conexión
      */
     public <T> T get(String urlString, Class<T> responseClass, String authToken) throws IOException {
-        HttpURLConnection connection = null;
-
-        try {
-            URL url = new URL(urlString);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(CONNECT_TIMEOUT);
-            connection.setReadTimeout(READ_TIMEOUT);
-            connection.setRequestProperty("Content-Type", CONTENT_TYPE_JSON);
-            connection.setRequestProperty("Accept", "application/json");
-
-            // Agregar token de autenticación si existe
-            if (authToken != null && !authToken.isEmpty()) {
-                connection.setRequestProperty("Authorization", authToken);
-            }
-
-            // Realizar la conexión
-            connection.connect();
-
-            // Verificar código de respuesta
-            int responseCode = connection.getResponseCode();
-            if (responseCode < 200 || responseCode >= 300) {
-                // Leer el JSON de error del servidor
-                String errorJson = readErrorResponse(connection);
-                // Lanzar excepción con el JSON completo para que pueda ser parseado
-                throw new ApiException(responseCode, errorJson);
-            }
+        HttpRequest request = newRequest("GET", urlString, authToken)
+                .header("Content-Type", CONTENT_TYPE_JSON);
 
-            // Leer la respuesta
-            String jsonResponse = readResponse(connection);
-
-            // Log raw response for debugging
-            Log.d("HttpClient", "Raw response from " + urlString + ": " + jsonResponse);
-
-            // Parsear JSON a objeto usando GSON
-            return gson.fromJson(jsonResponse, responseClass);
-
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
+        if (responseCache == null && useInstalledCache) {
+            responseCache = HttpResponseCache.getInstalled();
+        }
+        if (responseCache == null) {
+            return execute(request, responseClass);
         }
+        return executeCached(request, responseClass, HttpResponseCache.key(urlString, authToken));
     }
 
     /**
@@ -98,7 +145,16 @@ public class HttpClient {
      * @throws IOException Si hay error de red o conexión
      */
     public <T> T post(String urlString, Object requestBody, Class<T> responseClass, String authToken) throws IOException {
-        return sendRequestWithBody("POST", urlString, requestBody, responseClass, authToken, CONTENT_TYPE_JSON);
+        return sendRequestWithBody("POST", urlString, requestBody, responseClass, authToken, CONTENT_TYPE_JSON, false);
+    }
+
+    /**
+     * Realiza una petición POST sin efectos secundarios (ej: validar sesión)
+     * A diferencia de post, se reintenta ante fallos de red o del servidor
+     */
+    public <T> T postIdempotent(String urlString, Object requestBody, Class<T> responseClass,
+                                String authToken) throws IOException {
+        return sendRequestWithBody("POST", urlString, requestBody, responseClass, authToken, CONTENT_TYPE_JSON, true);
     }
 
     /**
@@ -114,78 +170,19 @@ public class HttpClient {
      */
     public <T> T postMultipart(String urlString, java.util.Map<String, Object> formData,
                                Class<T> responseClass, String authToken) throws IOException {
-        HttpURLConnection connection = null;
-        String boundary = "Boundary-" + System.currentTimeMillis();
-        String LINE_FEED = "\r\n";
-
-        try {
-            URL url = new URL(urlString);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setConnectTimeout(CONNECT_TIMEOUT);
-            connection.setReadTimeout(READ_TIMEOUT);
-            connection.setDoOutput(true);
-            connection.setDoInput(true);
-
-            // Headers para multipart/form-data
-            connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
-            connection.setRequestProperty("Accept", "application/json");
-
-            // Agregar token de autenticación
-            if (authToken != null && !authToken.isEmpty()) {
-                connection.setRequestProperty("Authorization", authToken);
-            }
-
-            // Escribir el cuerpo multipart
-            OutputStream outputStream = connection.getOutputStream();
-
-            // Procesar cada campo del formulario
-            for (java.util.Map.Entry<String, Object> entry : formData.entrySet()) {
-                String fieldName = entry.getKey();
-                Object value = entry.getValue();
-
-                if (value instanceof FileData) {
-                    // Es un archivo
-                    FileData fileData = (FileData) value;
-                    outputStream.write(("--" + boundary + LINE_FEED).getBytes());
-                    outputStream.write(("Content-Disposition: form-data; name=\"" + fieldName +
-                            "\"; filename=\"" + fileData.fileName + "\"" + LINE_FEED).getBytes());
-                    outputStream.write(("Content-Type: " + fileData.mimeType + LINE_FEED).getBytes());
-                    outputStream.write(LINE_FEED.getBytes());
-                    outputStream.write(fileData.data);
-                    outputStream.write(LINE_FEED.getBytes());
-                } else {
-                    // Es un campo de texto
-                    outputStream.write(("--" + boundary + LINE_FEED).getBytes());
-                    outputStream.write(("Content-Disposition: form-data; name=\"" + fieldName + "\"" + LINE_FEED).getBytes());
-                    outputStream.write(LINE_FEED.getBytes());
-                    outputStream.write((value.toString() + LINE_FEED).getBytes());
-                }
-            }
-
-            // Fin del multipart
-            outputStream.write(("--" + boundary + "--" + LINE_FEED).getBytes());
-            outputStream.flush();
-            outputStream.close();
-
-            // Verificar código de respuesta
-            int responseCode = connection.getResponseCode();
-            if (responseCode < 200 || responseCode >= 300) {
-                String errorJson = readErrorResponse(connection);
-                throw new ApiException(responseCode, errorJson);
-            }
-
-            // Leer la respuesta
-            String jsonResponse = readResponse(connection);
-
-            // Parsear JSON a objeto
-            return gson.fromJson(jsonResponse, responseClass);
-
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
+        // Archivos como FileData, el resto como campos de texto
+        MultipartBody body = new MultipartBody();
+        for (java.util.Map.Entry<String, Object> entry : formData.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof FileData) {
+                body.file(entry.getKey(), (FileData) value);
+            } else {
+                body.field(entry.getKey(), String.valueOf(value));
             }
         }
+
+        HttpRequest request = newRequest("POST", urlString, authToken).body(body);
+        return execute(request, responseClass);
     }
 
     /**
@@ -200,90 +197,378 @@ public class HttpClient {
      * @throws IOException Si hay error de red o conexión
      */
     public <T> T put(String urlString, Object requestBody, Class<T> responseClass, String authToken) throws IOException {
-        return sendRequestWithBody("PUT", urlString, requestBody, responseClass, authToken, CONTENT_TYPE_JSON);
+        return sendRequestWithBody("PUT", urlString, requestBody, responseClass, authToken, CONTENT_TYPE_JSON, false);
     }
 
     /**
      * Método genérico para enviar peticiones con body (POST, PUT)
      */
     private <T> T sendRequestWithBody(String method, String urlString, Object requestBody,
-                                      Class<T> responseClass, String authToken, String contentType) throws IOException {
-        HttpURLConnection connection = null;
+                                      Class<T> responseClass, String authToken, String contentType,
+                                      boolean idempotent) throws IOException {
+        // Convertir el objeto request a JSON usando GSON
+        String jsonBody = gson.toJson(requestBody);
+        byte[] input = jsonBody.getBytes(StandardCharsets.UTF_8);
+
+        HttpRequest request = newRequest(method, urlString, authToken);
+        if (idempotent) {
+            request.idempotent();
+        }
 
-        try {
-            URL url = new URL(urlString);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod(method);
-            connection.setConnectTimeout(CONNECT_TIMEOUT);
-            connection.setReadTimeout(READ_TIMEOUT);
-            connection.setRequestProperty("Content-Type", contentType);
-            connection.setRequestProperty("Accept", "application/json");
-            connection.setDoOutput(true); // Permite enviar body
-
-            // Agregar token de autenticación si existe
-            if (authToken != null && !authToken.isEmpty()) {
-                connection.setRequestProperty("Authorization", authToken);
+        // Comprimir solo si está activado y compensa
+        if (compressRequestBodies && input.length >= MIN_COMPRESS_BYTES) {
+            byte[] compressed = ContentEncoding.gzip(input);
+            if (compressed.length < input.length) {
+                CompressionStats.getInstance().recordRequest(urlString, input.length, compressed.length);
+                request.header("Content-Encoding", "gzip");
+                input = compressed;
             }
+        }
+
+        request.body(HttpBody.create(input, contentType));
+        return execute(request, responseClass);
+    }
 
-            // Convertir el objeto request a JSON usando GSON
-            String jsonBody = gson.toJson(requestBody);
+    /**
+     * HEAD sin autenticación, con reintentos, circuit breaker y métricas como el resto
+     * @return Respuesta ya cerrada: solo sirven el código y los tiempos
+     */
+    HttpResponse head(String urlString) throws IOException {
+        HttpRequest request = newRequest("HEAD", urlString, null);
+        HttpMetrics.Sample sample = metrics.start(request);
+        try (HttpResponse response = send(request)) {
+            sample.response(response);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            sample.finish();
+        }
+    }
+
+    /**
+     * Crea una petición con los headers comunes (Accept y Authorization)
+     * Los timeouts se fijan en cada intento, según el TimeoutPolicy
+     */
+    private HttpRequest newRequest(String method, String urlString, String authToken) {
+        HttpRequest request = new HttpRequest(method, urlString)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", ContentEncoding.ACCEPT_ENCODING);
+
+        // Agregar token de autenticación si existe
+        if (authToken != null && !authToken.isEmpty()) {
+            request.header("Authorization", authToken);
+        }
+        return request;
+    }
 
-            // Escribir el body
-            try (OutputStream os = connection.getOutputStream()) {
-                byte[] input = jsonBody.getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
-                os.flush();
+    /**
+     * Envía la petición, verifica el código de respuesta y parsea el JSON
+     * El JSON se decodifica directamente del stream, sin pasar por un String intermedio
+     */
+    private <T> T execute(HttpRequest request, Class<T> responseClass) throws IOException {
+        HttpMetrics.Sample sample = metrics.start(request);
+        try (HttpResponse response = send(request)) {
+            sample.response(response);
+            throwIfUnsuccessful(request, response);
+            try (InputStream body = ContentEncoding.decode(response, request.getUrl())) {
+                return parseBody(request, body, responseClass, sample);
             }
+        } catch (IOException | RuntimeException e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            // La respuesta ya está cerrada: el cuerpo quedó medido
+            sample.finish();
+        }
+    }
 
-            // Verificar código de respuesta
-            int responseCode = connection.getResponseCode();
-            if (responseCode < 200 || responseCode >= 300) {
-                // Leer el JSON de error del servidor
-                String errorJson = readErrorResponse(connection);
-                // Lanzar excepción con el JSON completo para que pueda ser parseado
-                throw new ApiException(responseCode, errorJson);
+    /**
+     * Envía la petición a través del circuit breaker de su endpoint
+     * Las peticiones idempotentes se reintentan ante errores de red y 408/429/502/503/504,
+     * con backoff exponencial y jitter (o lo que indique Retry-After).
+     * Todos los intentos comparten el deadline del perfil de timeouts del endpoint:
+     * cada uno recibe como mucho lo que queda, y no se reintenta si ya no alcanza.
+     * Devuelve la última respuesta aunque no sea 2xx; el llamador decide qué hacer con ella.
+     */
+    private HttpResponse send(HttpRequest request) throws IOException {
+        String endpoint = EndpointTemplate.of(request.getMethod(), request.getUrl());
+        CircuitBreaker breaker = CircuitBreaker.forEndpoint(endpoint);
+        RetryPolicy policy = retryPolicy;
+        boolean retryable = policy.canRetry(request);
+
+        TimeoutPolicy timeouts = timeoutPolicy;
+        TimeoutProfile profile = timeouts.profileFor(endpoint, request);
+        long startNanos = System.nanoTime();
+        long deadlineNanos = timeouts.deadlineNanos(profile, request);
+
+        RequestHandle handle = RequestHandle.current();
+        for (int attempt = 1; ; attempt++) {
+            if (handle != null) {
+                handle.throwIfCancelled();
             }
+            if (System.nanoTime() >= deadlineNanos) {
+                throw new DeadlineExceededException(endpoint, elapsedMillis(startNanos), null);
+            }
+            breaker.acquire();
 
-            // Leer la respuesta
-            String jsonResponse = readResponse(connection);
+            HttpResponse response;
+            try {
+                timeouts.apply(request, endpoint, profile, attempt, deadlineNanos);
+                response = executeAttempt(request, endpoint);
+            } catch (RuntimeException e) {
+                // Error de programación (ej: URL inválida): sin liberar, la prueba de HALF_OPEN
+                // quedaría en curso para siempre y el endpoint rechazaría todo
+                breaker.release();
+                throw e;
+            } catch (IOException e) {
+                boolean expired = System.nanoTime() >= deadlineNanos;
+                if ((e.getClass() == InterruptedIOException.class && !expired)
+                        || (handle != null && handle.isCancelled())) {
+                    // Interrumpida o cancelada: no es culpa del servidor ni se reintenta
+                    breaker.release();
+                    throw e;
+                }
+                breaker.recordFailure();
+                if (expired) {
+                    throw new DeadlineExceededException(endpoint, elapsedMillis(startNanos), e);
+                }
+                if (!retryable) {
+                    throw e;
+                }
+                backoff(request, policy.nextDelayMillis(attempt, null), attempt, e, deadlineNanos);
+                continue;
+            }
 
-            // Parsear JSON a objeto usando GSON
-            return gson.fromJson(jsonResponse, responseClass);
+            int code = response.getCode();
+            if (code >= 500 || code == 429) {
+                breaker.recordFailure();
+            } else {
+                breaker.recordSuccess();
+            }
 
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
+            if (!retryable || !RetryPolicy.isRetryableStatus(code)) {
+                return response;
+            }
+            long delay = policy.nextDelayMillis(attempt, response.header("Retry-After"));
+            if (delay < 0 || !fitsBefore(deadlineNanos, delay)) {
+                return response;
             }
+            response.close();
+            backoff(request, delay, attempt, new ApiException(code, response.getMessage()), deadlineNanos);
         }
     }
 
     /**
-     * Lee la respuesta exitosa del servidor
+     * Un intento en el transporte, con duplicado si el HedgingPolicy lo pide
      */
-    private String readResponse(HttpURLConnection connection) throws IOException {
-        StringBuilder response = new StringBuilder();
+    private HttpResponse executeAttempt(HttpRequest request, String endpoint) throws IOException {
+        HedgingPolicy hedging = hedgingPolicy;
+        long hedgeDelay = hedging.hedgeDelayMillis(endpoint, request);
+        if (hedgeDelay < 0) {
+            return transport.execute(request);
+        }
+        return HedgedCall.execute(transport, request, hedging, hedgeDelay);
+    }
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+    /**
+     * Espera antes del siguiente intento, o relanza el error si no hay que reintentar
+     * (sin más intentos, o sin tiempo antes del deadline)
+     */
+    private void backoff(HttpRequest request, long delayMillis, int attempt, IOException error,
+                         long deadlineNanos) throws IOException {
+        if (delayMillis < 0 || !fitsBefore(deadlineNanos, delayMillis)) {
+            throw error;
+        }
+        Log.w(TAG, "Attempt " + attempt + " for " + request.getUrl() + " failed (" + error.getMessage()
+                + "), retrying in " + delayMillis + " ms");
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry " + request.getUrl());
+        }
+    }
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
+    /**
+     * Si tras esperar delayMillis todavía queda tiempo para un intento
+     */
+    private static boolean fitsBefore(long deadlineNanos, long delayMillis) {
+        return deadlineNanos == Long.MAX_VALUE
+                || System.nanoTime() + delayMillis * 1_000_000L < deadlineNanos;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+
+    /**
+     * GET condicional contra la cache HTTP
+     * - 304: devuelve el objeto en memoria o, si no está, lo parsea desde disco
+     * - 200 con ETag/Last-Modified: parsea y guarda el cuerpo en disco al mismo tiempo
+     */
+    private <T> T executeCached(HttpRequest request, Class<T> responseClass, String cacheKey) throws IOException {
+        HttpResponseCache.Validators validators = responseCache.getValidators(cacheKey);
+        if (validators != null) {
+            request.header("If-None-Match", validators.etag)
+                    .header("If-Modified-Since", validators.lastModified);
+        }
+
+        HttpMetrics.Sample sample = metrics.start(request);
+        try (HttpResponse response = send(request)) {
+            sample.response(response);
+            if (response.getCode() == HttpURLConnection.HTTP_NOT_MODIFIED && validators != null) {
+                T cached = readNotModified(cacheKey, responseClass, sample);
+                if (cached != null) {
+                    return cached;
+                }
+            } else {
+                throwIfUnsuccessful(request, response);
+                responseCache.recordMiss();
+                return parseAndStore(request, response, responseClass, cacheKey, sample);
             }
+        } catch (IOException | RuntimeException e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            sample.finish();
+        }
+
+        // El cuerpo guardado desapareció entre la validación y la lectura: pedirlo completo
+        Log.d(TAG, "Cached body missing for " + request.getUrl() + ", retrying without validators");
+        responseCache.remove(cacheKey);
+        HttpRequest unconditional = newRequest("GET", request.getUrl(), request.getHeader("Authorization"))
+                .header("Content-Type", CONTENT_TYPE_JSON);
+        return executeCached(unconditional, responseClass, cacheKey);
+    }
+
+    /**
+     * Resuelve un 304 con la cache, o null si el cuerpo ya no está en disco
+     */
+    private <T> T readNotModified(String cacheKey, Class<T> responseClass,
+                                  HttpMetrics.Sample sample) throws IOException {
+        T parsed = responseCache.getParsed(cacheKey, responseClass);
+        if (parsed != null) {
+            responseCache.recordHit();
+            return parsed;
         }
 
-        return response.toString();
+        InputStream body = responseCache.openBody(cacheKey);
+        if (body == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try (InputStream in = body) {
+            parsed = readResponse(in, responseClass);
+        }
+        sample.parsed(System.nanoTime() - start);
+        responseCache.recordRevalidate();
+        responseCache.putParsed(cacheKey, parsed);
+        return parsed;
+    }
+
+    /**
+     * Parsea una respuesta completa y, si trae validadores, la guarda en la cache
+     */
+    private <T> T parseAndStore(HttpRequest request, HttpResponse response, Class<T> responseClass,
+                                String cacheKey, HttpMetrics.Sample sample) throws IOException {
+        String etag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+        String cacheControl = response.header("Cache-Control");
+        boolean storable = response.getCode() == HttpURLConnection.HTTP_OK
+                && (etag != null || lastModified != null)
+                && (cacheControl == null || !cacheControl.contains("no-store"));
+
+        try (InputStream decoded = ContentEncoding.decode(response, request.getUrl())) {
+            if (!storable) {
+                responseCache.remove(cacheKey);
+                return parseBody(request, decoded, responseClass, sample);
+            }
+
+            // En disco se guarda el JSON ya descomprimido
+            HttpResponseCache.Editor editor = responseCache.edit(cacheKey);
+            T result;
+            try {
+                InputStream body = editor.wrap(decoded);
+                result = parseBody(request, body, responseClass, sample);
+                editor.commit(body, new HttpResponseCache.Validators(etag, lastModified));
+            } catch (IOException | RuntimeException e) {
+                editor.abort();
+                throw e;
+            }
+            responseCache.putParsed(cacheKey, result);
+            return result;
+        }
+    }
+
+    /**
+     * Lanza ApiException con el JSON de error si el código no es 2xx
+     */
+    private void throwIfUnsuccessful(HttpRequest request, HttpResponse response) throws ApiException {
+        int responseCode = response.getCode();
+        if (responseCode < 200 || responseCode >= 300) {
+            // Leer el JSON de error del servidor
+            String errorJson = readErrorResponse(request, response);
+            // Lanzar excepción con el JSON completo para que pueda ser parseado
+            throw new ApiException(responseCode, errorJson);
+        }
+    }
+
+    /**
+     * Parsea el cuerpo y loguea solo el inicio para depuración
+     * El tiempo de parseo registrado descuenta la espera por la red
+     */
+    private <T> T parseBody(HttpRequest request, InputStream in, Class<T> responseClass,
+                            HttpMetrics.Sample sample) throws IOException {
+        BodyPreviewInputStream body = new BodyPreviewInputStream(in, LOG_PREVIEW_BYTES);
+        T result;
+        long start = System.nanoTime();
+        try {
+            result = readResponse(body, responseClass);
+        } catch (JsonParseException e) {
+            Log.e(TAG, "Invalid JSON from " + request.getUrl() + ": " + body.getPreview());
+            throw e;
+        } finally {
+            sample.parsed(System.nanoTime() - start - body.getReadNanos());
+        }
+
+        // Log de depuración con solo el inicio del cuerpo
+        if ("GET".equals(request.getMethod())) {
+            Log.d(TAG, "Response from " + request.getUrl() + " (" + body.getBytesRead() + " bytes): "
+                    + body.getPreview());
+        }
+
+        return result;
+    }
+
+    /**
+     * Parsea la respuesta exitosa del servidor leyendo el stream con JsonReader
+     */
+    private <T> T readResponse(InputStream body, Class<T> responseClass) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        reader.setLenient(true);
+        try {
+            return gson.fromJson(reader, responseClass);
+        } catch (JsonParseException e) {
+            // GSON envuelve los errores de lectura del socket; se propagan como error de red
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException && !(cause instanceof MalformedJsonException)) {
+                throw (IOException) cause;
+            }
+            throw e;
+        }
     }
 
     /**
      * Lee la respuesta de error del servidor
      */
-    private String readErrorResponse(HttpURLConnection connection) {
+    private String readErrorResponse(HttpRequest request, HttpResponse httpResponse) {
         try {
             StringBuilder response = new StringBuilder();
 
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(connection.getErrorStream(), StandardCharsets.UTF_8))) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    ContentEncoding.decode(httpResponse, request.getUrl()), StandardCharsets.UTF_8))) {
 
                 String line;
                 while ((line = reader.readLine()) != null) {
@@ -294,11 +579,7 @@ public class HttpClient {
             return response.toString();
 
         } catch (Exception e) {
-            try {
-                return connection.getResponseMessage();
-            } catch (IOException ioException) {
-                return "Error: " + e.getMessage();
-            }
+            return httpResponse.getMessage() != null ? httpResponse.getMessage() : "Error: " + e.getMessage();
         }
     }
 
@@ -317,65 +598,16 @@ public class HttpClient {
      */
     public <T> T uploadFile(String urlString, byte[] fileBytes, String fileName,
                             String fieldName, Class<T> responseClass, String authToken) throws IOException {
-        HttpURLConnection connection = null;
-        String boundary = "----WebKitFormBoundary" + System.currentTimeMillis();
-        String LINE_FEED = "\r\n";
-
-        try {
-            URL url = new URL(urlString);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setConnectTimeout(CONNECT_TIMEOUT);
-            connection.setReadTimeout(READ_TIMEOUT);
-            connection.setDoOutput(true);
-            connection.setDoInput(true);
-
-            // Headers para multipart/form-data
-            connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
-            connection.setRequestProperty("Accept", "application/json");
-
-            // Agregar token de autenticación
-            if (authToken != null && !authToken.isEmpty()) {
-                connection.setRequestProperty("Authorization", authToken);
-            }
-
-            // Escribir el cuerpo multipart
-            OutputStream outputStream = connection.getOutputStream();
-
-            // Inicio del campo de archivo
-            outputStream.write(("--" + boundary + LINE_FEED).getBytes());
-            outputStream.write(("Content-Disposition: form-data; name=\"" + fieldName +
-                    "\"; filename=\"" + fileName + "\"" + LINE_FEED).getBytes());
-            outputStream.write(("Content-Type: image/*" + LINE_FEED).getBytes());
-            outputStream.write(LINE_FEED.getBytes());
-
-            // Escribir bytes del archivo
-            outputStream.write(fileBytes);
-            outputStream.write(LINE_FEED.getBytes());
-
-            // Fin del multipart
-            outputStream.write(("--" + boundary + "--" + LINE_FEED).getBytes());
-            outputStream.flush();
-            outputStream.close();
-
-            // Verificar código de respuesta
-            int responseCode = connection.getResponseCode();
-            if (responseCode < 200 || responseCode >= 300) {
-                String errorJson = readErrorResponse(connection);
-                throw new ApiException(responseCode, errorJson);
-            }
-
-            // Leer la respuesta
-            String jsonResponse = readResponse(connection);
-
-            // Parsear JSON a objeto
-            return gson.fromJson(jsonResponse, responseClass);
-
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
+        // Sin extensión conocida se envía como imagen, igual que antes
+        String mimeType = MultipartBody.mimeTypeFor(fileName);
+        if ("application/octet-stream".equals(mimeType)) {
+            mimeType = "image/*";
         }
+        MultipartBody body = new MultipartBody()
+                .file(fieldName, new FileData(fileBytes, fileName, mimeType));
+
+        HttpRequest request = newRequest("POST", urlString, authToken).body(body);
+        return execute(request, responseClass);
     }
 
     /**
@@ -396,81 +628,23 @@ public class HttpClient {
     public <T> T postMultipartWithChatMessage(String urlString, String chatId, String content,
                                               byte[] attachmentBytes, String attachmentFileName,
                                               Class<T> responseClass, String authToken) throws IOException {
-        HttpURLConnection connection = null;
-
-        try {
-            URL url = new URL(urlString);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setConnectTimeout(CONNECT_TIMEOUT);
-            connection.setReadTimeout(READ_TIMEOUT);
-            connection.setDoOutput(true);
-            connection.setDoInput(true);
-
-            // Configurar multipart
-            String boundary = "Boundary-" + System.currentTimeMillis();
-            connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
-            connection.setRequestProperty("Accept", "application/json");
-
-            // Agregar token de autenticación
-            if (authToken != null && !authToken.isEmpty()) {
-                connection.setRequestProperty("Authorization", authToken);
-            }
-
-            String LINE_FEED = "\r\n";
-
-            // Escribir el cuerpo multipart
-            OutputStream outputStream = connection.getOutputStream();
-
-            // Campo chat_id (requerido)
-            if (chatId != null && !chatId.isEmpty()) {
-                outputStream.write(("--" + boundary + LINE_FEED).getBytes());
-                outputStream.write(("Content-Disposition: form-data; name=\"chat_id\"" + LINE_FEED).getBytes());
-                outputStream.write(LINE_FEED.getBytes());
-                outputStream.write((chatId + LINE_FEED).getBytes());
-            }
-
-            // Campo content (opcional)
-            if (content != null && !content.isEmpty()) {
-                outputStream.write(("--" + boundary + LINE_FEED).getBytes());
-                outputStream.write(("Content-Disposition: form-data; name=\"content\"" + LINE_FEED).getBytes());
-                outputStream.write(LINE_FEED.getBytes());
-                outputStream.write((content + LINE_FEED).getBytes());
-            }
-
-            // Campo attachment (opcional)
-            if (attachmentBytes != null && attachmentBytes.length > 0 && attachmentFileName != null && !attachmentFileName.isEmpty()) {
-                outputStream.write(("--" + boundary + LINE_FEED).getBytes());
-                outputStream.write(("Content-Disposition: form-data; name=\"attachment\"; filename=\"" + attachmentFileName + "\"" + LINE_FEED).getBytes());
-                outputStream.write(("Content-Type: image/*" + LINE_FEED).getBytes());
-                outputStream.write(LINE_FEED.getBytes());
-                outputStream.write(attachmentBytes);
-                outputStream.write(LINE_FEED.getBytes());
-            }
-
-            // Fin del multipart
-            outputStream.write(("--" + boundary + "--" + LINE_FEED).getBytes());
-            outputStream.flush();
-            outputStream.close();
-
-            // Verificar código de respuesta
-            int responseCode = connection.getResponseCode();
-            if (responseCode < 200 || responseCode >= 300) {
-                String errorJson = readErrorResponse(connection);
-                throw new ApiException(responseCode, errorJson);
-            }
-
-            // Leer la respuesta
-            String jsonResponse = readResponse(connection);
-
-            // Parsear JSON a objeto
-            return gson.fromJson(jsonResponse, responseClass);
-
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
+        MultipartBody body = new MultipartBody();
+        // Campo chat_id (requerido)
+        if (chatId != null && !chatId.isEmpty()) {
+            body.field("chat_id", chatId);
+        }
+        // Campo content (opcional)
+        if (content != null && !content.isEmpty()) {
+            body.field("content", content);
+        }
+        // Campo attachment (opcional)
+        if (attachmentBytes != null && attachmentBytes.length > 0 && attachmentFileName != null && !attachmentFileName.isEmpty()) {
+            body.file("attachment", new FileData(attachmentBytes, attachmentFileName,
+                    MultipartBody.mimeTypeFor(attachmentFileName)));
         }
+
+        HttpRequest request = newRequest("POST", urlString, authToken).body(body);
+        return execute(request, responseClass);
     }
 
     /**
@@ -483,17 +657,87 @@ public class HttpClient {
 
     /**
      * Clase auxiliar para representar datos de archivo en multipart/form-data
+     * El contenido puede venir de un byte[] o de un stream que se abre al enviar
+     * (ej: un content Uri), para no cargar el archivo en memoria
      */
     public static class FileData {
         public final byte[] data;
         public final String fileName;
         public final String mimeType;
+        private final StreamSource source;
+        private final long length;
+        private final long maxLength;
+
+        /**
+         * Origen del contenido de un archivo; se puede abrir más de una vez si el transporte reintenta
+         */
+        public interface StreamSource {
+            InputStream open() throws IOException;
+        }
 
         public FileData(byte[] data, String fileName, String mimeType) {
             this.data = data;
             this.fileName = fileName;
             this.mimeType = mimeType;
+            this.source = null;
+            this.length = data.length;
+            this.maxLength = -1;
+        }
+
+        /**
+         * @param length Tamaño en bytes, o -1 si se desconoce (el cuerpo se enviará chunked)
+         */
+        public FileData(StreamSource source, long length, String fileName, String mimeType) {
+            this(source, length, -1, fileName, mimeType);
+        }
+
+        /**
+         * @param length Tamaño en bytes, o -1 si se desconoce (el cuerpo se enviará chunked)
+         * @param maxLength Bytes como máximo que se envían, o -1 sin límite; si el stream
+         *                  trae más, el envío falla con IOException al pasar el límite
+         */
+        public FileData(StreamSource source, long length, long maxLength, String fileName, String mimeType) {
+            this.data = null;
+            this.fileName = fileName;
+            this.mimeType = mimeType;
+            this.source = source;
+            this.length = length;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * Tamaño del contenido en bytes, o -1 si se desconoce
+         */
+        public long length() {
+            return length;
+        }
+
+        /**
+         * Copia el contenido al stream de salida usando el buffer recibido
+         */
+        void writeTo(OutputStream outputStream, byte[] buffer) throws IOException {
+            if (data != null) {
+                outputStream.write(data);
+                return;
+            }
+
+            long written = 0;
+            try (InputStream in = source.open()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (maxLength >= 0 && written + read > maxLength) {
+                        throw new IOException("File " + fileName + " exceeds the maximum size of "
+                                + maxLength + " bytes");
+                    }
+                    outputStream.write(buffer, 0, read);
+                    written += read;
+                }
+            }
+            if (length >= 0 && written != length) {
+                // El Content-Length ya se envió: un tamaño distinto corrompería la petición
+                throw new IOException("File " + fileName + " changed while uploading: expected "
+                        + length + " bytes, read " + written);
+            }
         }
     }
 }
-
@@ -0,0 +1,286 @@
+package com.example.androidchatproject.network;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Métricas de red por endpoint (plantilla, ej: "GET api/chats/id/{id}/")
+ * - Histogramas de latencia total y por fase: DNS, conexión, primer byte, cuerpo y parseo
+ * - Bytes enviados y recibidos
+ * - Distribución de códigos de estado y errores de red
+ * HttpClient registra cada petición; los tests y una pantalla de depuración leen snapshot().
+ */
+public class HttpMetrics {
+
+    public enum Phase {
+        TOTAL,
+        DNS,
+        CONNECT,
+        TTFB,
+        BODY,
+        PARSE
+    }
+
+    private static final HttpMetrics instance = new HttpMetrics();
+
+    private final ConcurrentHashMap<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    private HttpMetrics() {
+    }
+
+    public static HttpMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Empieza a medir una petición; se cierra con Sample.finish()
+     */
+    Sample start(HttpRequest request) {
+        return new Sample(this, request);
+    }
+
+    /**
+     * Estadísticas de un endpoint (copia), o null si no hubo peticiones
+     */
+    public EndpointStats getStats(String endpoint) {
+        EndpointStats stats = endpoints.get(endpoint);
+        return stats != null ? stats.copy() : null;
+    }
+
+    /**
+     * Copia de las estadísticas de todos los endpoints, ordenadas por nombre
+     */
+    public Map<String, EndpointStats> snapshot() {
+        Map<String, EndpointStats> snapshot = new TreeMap<>();
+        for (Map.Entry<String, EndpointStats> entry : endpoints.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().copy());
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * Percentil de una fase del endpoint sin copiar sus estadísticas,
+     * o -1 si todavía no hay minSamples muestras
+     */
+    double percentile(String endpoint, Phase phase, double p, long minSamples) {
+        EndpointStats stats = endpoints.get(endpoint);
+        return stats != null ? stats.percentile(phase, p, minSamples) : -1;
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private EndpointStats statsFor(String endpoint) {
+        EndpointStats stats = endpoints.get(endpoint);
+        if (stats == null) {
+            stats = new EndpointStats(endpoint);
+            EndpointStats existing = endpoints.putIfAbsent(endpoint, stats);
+            if (existing != null) {
+                stats = existing;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Medición de una petición en curso (incluye reintentos)
+     */
+    static final class Sample {
+        private final HttpMetrics metrics;
+        private final HttpRequest request;
+        private final String endpoint;
+        private final long startNanos = System.nanoTime();
+        private HttpResponse response;
+        private long parseNanos = -1;
+        private Throwable error;
+
+        private Sample(HttpMetrics metrics, HttpRequest request) {
+            this.metrics = metrics;
+            this.request = request;
+            this.endpoint = EndpointTemplate.of(request.getMethod(), request.getUrl());
+        }
+
+        /**
+         * Respuesta final (tras los reintentos)
+         */
+        void response(HttpResponse response) {
+            this.response = response;
+        }
+
+        /**
+         * Tiempo de CPU del parseo, sin contar la espera por la red
+         */
+        void parsed(long nanos) {
+            parseNanos = parseNanos < 0 ? nanos : parseNanos + nanos;
+        }
+
+        void failed(Throwable error) {
+            this.error = error;
+        }
+
+        /**
+         * Registra la petición; llamar después de cerrar la respuesta para que el cuerpo esté medido
+         */
+        void finish() {
+            if (error instanceof CircuitOpenException) {
+                // No salió a la red: ya se cuenta en CircuitBreaker
+                return;
+            }
+            RequestHandle handle = RequestHandle.current();
+            if (error != null && handle != null && handle.isCancelled()) {
+                // Cancelada por el usuario: ya se cuenta en CancellationStats
+                return;
+            }
+            long totalNanos = System.nanoTime() - startNanos;
+            metrics.statsFor(endpoint).record(this, totalNanos);
+        }
+    }
+
+    /**
+     * Estadísticas acumuladas de un endpoint
+     */
+    public static final class EndpointStats {
+        private final String endpoint;
+        private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+        private final Map<Integer, Long> statusCounts = new TreeMap<>();
+        private long requestCount;
+        private long networkErrorCount;
+        private long requestBytes;
+        private long responseBytes;
+
+        private EndpointStats(String endpoint) {
+            this.endpoint = endpoint;
+            for (Phase phase : Phase.values()) {
+                histograms.put(phase, new LatencyHistogram());
+            }
+        }
+
+        private synchronized void record(Sample sample, long totalNanos) {
+            requestCount++;
+            histograms.get(Phase.TOTAL).record(CallTimings.toMillis(totalNanos));
+            histograms.get(Phase.PARSE).record(CallTimings.toMillis(sample.parseNanos));
+
+            HttpResponse response = sample.response;
+            if (response == null) {
+                networkErrorCount++;
+            } else {
+                Long current = statusCounts.get(response.getCode());
+                statusCounts.put(response.getCode(), current != null ? current + 1 : 1);
+            }
+
+            CallTimings timings = response != null ? response.getTimings() : null;
+            if (timings != null) {
+                histograms.get(Phase.DNS).record(timings.getDnsMillis());
+                histograms.get(Phase.CONNECT).record(timings.getConnectMillis());
+                histograms.get(Phase.TTFB).record(timings.getTtfbMillis());
+                histograms.get(Phase.BODY).record(timings.getBodyMillis());
+                requestBytes += Math.max(0, timings.getRequestBytes());
+                responseBytes += Math.max(0, timings.getResponseBytes());
+            } else {
+                // Transporte sin medición propia: lo que se sabe por las longitudes declaradas
+                HttpBody body = sample.request.getBody();
+                if (body != null && body.contentLength() > 0) {
+                    requestBytes += body.contentLength();
+                }
+                String contentLength = response != null ? response.header("Content-Length") : null;
+                if (contentLength != null) {
+                    try {
+                        responseBytes += Long.parseLong(contentLength.trim());
+                    } catch (NumberFormatException ignored) {
+                        // Header inválido: no se cuenta
+                    }
+                }
+            }
+        }
+
+        private synchronized double percentile(Phase phase, double p, long minSamples) {
+            LatencyHistogram histogram = histograms.get(phase);
+            return histogram.getCount() >= minSamples ? histogram.percentile(p) : -1;
+        }
+
+        private synchronized EndpointStats copy() {
+            EndpointStats copy = new EndpointStats(endpoint);
+            for (Phase phase : Phase.values()) {
+                copy.histograms.put(phase, histograms.get(phase).copy());
+            }
+            copy.statusCounts.putAll(statusCounts);
+            copy.requestCount = requestCount;
+            copy.networkErrorCount = networkErrorCount;
+            copy.requestBytes = requestBytes;
+            copy.responseBytes = responseBytes;
+            return copy;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public synchronized LatencyHistogram getHistogram(Phase phase) {
+            return histograms.get(phase).copy();
+        }
+
+        /**
+         * Respuestas por código HTTP
+         */
+        public synchronized Map<Integer, Long> getStatusCounts() {
+            return Collections.unmodifiableMap(new TreeMap<>(statusCounts));
+        }
+
+        public synchronized long getRequestCount() {
+            return requestCount;
+        }
+
+        /**
+         * Peticiones sin respuesta (timeout, sin conexión, etc.)
+         */
+        public synchronized long getNetworkErrorCount() {
+            return networkErrorCount;
+        }
+
+        /**
+         * Fracción de peticiones que fallaron por red o con código >= 400
+         */
+        public synchronized double getErrorRate() {
+            if (requestCount == 0) {
+                return 0;
+            }
+            long failed = networkErrorCount;
+            for (Map.Entry<Integer, Long> entry : statusCounts.entrySet()) {
+                if (entry.getKey() >= 400) {
+                    failed += entry.getValue();
+                }
+            }
+            return failed / (double) requestCount;
+        }
+
+        public synchronized long getRequestBytes() {
+            return requestBytes;
+        }
+
+        public synchronized long getResponseBytes() {
+            return responseBytes;
+        }
+
+        @Override
+        public synchronized String toString() {
+            StringBuilder text = new StringBuilder(endpoint)
+                    .append(": requests=").append(requestCount)
+                    .append(", errorRate=").append(String.format(java.util.Locale.US, "%.3f", getErrorRate()))
+                    .append(", status=").append(statusCounts)
+                    .append(", networkErrors=").append(networkErrorCount)
+                    .append(", sent=").append(requestBytes)
+                    .append(", received=").append(responseBytes);
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = histograms.get(phase);
+                if (histogram.getCount() > 0) {
+                    text.append("\n  ").append(phase).append(' ').append(histogram);
+                }
+            }
+            return text.toString();
+        }
+    }
+}
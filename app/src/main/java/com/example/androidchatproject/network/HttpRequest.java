@@ -0,0 +1,148 @@
+package com.example.androidchatproject.network;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Petición HTTP independiente del transporte
+ */
+public class HttpRequest {
+
+    private final String method;
+    private final String url;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private HttpBody body;
+    private int connectTimeoutMillis;
+    private int readTimeoutMillis;
+    private int writeTimeoutMillis;
+    private int callTimeoutMillis;
+    private boolean idempotent;
+    private RateLimiter.TrafficClass trafficClass = RateLimiter.TrafficClass.API;
+
+    public HttpRequest(String method, String url) {
+        this.method = method;
+        this.url = url;
+    }
+
+    // Getters
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    public String getHeader(String name) {
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    public HttpBody getBody() {
+        return body;
+    }
+
+    /**
+     * Timeout de conexión en milisegundos (0 = valor por defecto del transporte)
+     */
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    /**
+     * Timeout de lectura en milisegundos (0 = valor por defecto del transporte)
+     */
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    /**
+     * Timeout de escritura en milisegundos (0 = valor por defecto del transporte)
+     */
+    public int getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    /**
+     * Tiempo máximo de la llamada completa, incluido leer el cuerpo (0 = sin límite)
+     */
+    public int getCallTimeoutMillis() {
+        return callTimeoutMillis;
+    }
+
+    /**
+     * Si la petición se puede repetir sin efectos secundarios (GET, HEAD o marcada con idempotent())
+     */
+    public boolean isIdempotent() {
+        return idempotent || "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    /**
+     * Presupuesto del RateLimiter que consume la petición (API por defecto)
+     */
+    public RateLimiter.TrafficClass getTrafficClass() {
+        return trafficClass;
+    }
+
+    // Setters encadenables
+    public HttpRequest header(String name, String value) {
+        if (value != null) {
+            headers.put(name, value);
+        }
+        return this;
+    }
+
+    public HttpRequest body(HttpBody body) {
+        this.body = body;
+        return this;
+    }
+
+    public HttpRequest timeouts(int connectTimeoutMillis, int readTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        return this;
+    }
+
+    public HttpRequest timeouts(int connectTimeoutMillis, int readTimeoutMillis, int writeTimeoutMillis) {
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        return timeouts(connectTimeoutMillis, readTimeoutMillis);
+    }
+
+    public HttpRequest callTimeout(int callTimeoutMillis) {
+        this.callTimeoutMillis = callTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Marca una petición con cuerpo como repetible (ej: validar sesión)
+     */
+    public HttpRequest idempotent() {
+        this.idempotent = true;
+        return this;
+    }
+
+    /**
+     * Marca la petición como descarga o subida de imágenes/adjuntos (ver RateLimiter)
+     */
+    public HttpRequest trafficClass(RateLimiter.TrafficClass trafficClass) {
+        this.trafficClass = trafficClass;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpRequest{" +
+                "method='" + method + '\'' +
+                ", url='" + url + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.androidchatproject.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Respuesta HTTP independiente del transporte
+ * Debe cerrarse siempre para devolver la conexión al pool
+ */
+public class HttpResponse implements Closeable {
+
+    private final int code;
+    private final String message;
+    private final Map<String, List<String>> headers;
+    private final InputStream body;
+    private final Closeable onClose;
+    private CallTimings timings;
+
+    public HttpResponse(int code, String message, Map<String, List<String>> headers,
+                        InputStream body, Closeable onClose) {
+        this.code = code;
+        this.message = message;
+        this.headers = headers != null ? headers : Collections.emptyMap();
+        this.body = body != null ? body : new ByteArrayInputStream(new byte[0]);
+        this.onClose = onClose;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isSuccessful() {
+        return code >= 200 && code < 300;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Primer valor de un header (sin distinguir mayúsculas), o null si no existe
+     */
+    public String header(String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey() != null && entry.getKey().equalsIgnoreCase(name)
+                    && !entry.getValue().isEmpty()) {
+                return entry.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tiempos de la llamada medidos por el transporte, o null si no los mide
+     * Los del cuerpo se completan al terminar de leerlo
+     */
+    public CallTimings getTimings() {
+        return timings;
+    }
+
+    HttpResponse timings(CallTimings timings) {
+        this.timings = timings;
+        return this;
+    }
+
+    /**
+     * Stream del cuerpo de la respuesta (se lee una sola vez)
+     */
+    public InputStream getBody() {
+        return body;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            body.close();
+        } finally {
+            if (onClose != null) {
+                onClose.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package com.example.androidchatproject.network;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache HTTP en disco para peticiones GET condicionales
+ * Guarda el cuerpo y los validadores (ETag / Last-Modified) de cada respuesta,
+ * y mantiene en memoria los últimos objetos parseados para responder a un 304 sin parsear JSON.
+ *
+ * Contadores:
+ * - hit: 304 respondido con el objeto ya parseado en memoria
+ * - revalidate: 304 respondido leyendo el cuerpo guardado en disco
+ * - miss: respuesta completa descargada de la red
+ */
+public class HttpResponseCache {
+
+    private static final String TAG = "HttpResponseCache";
+    private static final String CACHE_DIR = "http_cache";
+    private static final long DEFAULT_MAX_SIZE_BYTES = 10 * 1024 * 1024; // 10 MB
+    private static final int MAX_MEMORY_ENTRIES = 32;
+
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".meta";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static volatile HttpResponseCache installed;
+
+    private final File directory;
+    private final long maxSizeBytes;
+    private final Map<String, Object> parsedEntries;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong revalidateCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public HttpResponseCache(File directory, long maxSizeBytes) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        this.parsedEntries = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                return size() > MAX_MEMORY_ENTRIES;
+            }
+        };
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        deleteFiles(TMP_SUFFIX); // restos de escrituras interrumpidas
+    }
+
+    /**
+     * Instala la cache compartida del proceso en el directorio de cache de la app
+     * Llamadas repetidas devuelven la misma instancia
+     */
+    public static HttpResponseCache install(Context context) {
+        if (installed == null) {
+            synchronized (HttpResponseCache.class) {
+                if (installed == null) {
+                    File dir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR);
+                    installed = new HttpResponseCache(dir, DEFAULT_MAX_SIZE_BYTES);
+                }
+            }
+        }
+        return installed;
+    }
+
+    /**
+     * Instala la cache en un hilo propio: abrirla toca el disco y no debe ir en el hilo principal
+     * Las peticiones que se hagan antes de que termine van sin cache.
+     */
+    public static void installInBackground(Context context) {
+        Context appContext = context.getApplicationContext();
+        Thread thread = new Thread(() -> install(appContext), "http-cache-install");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Cache instalada, o null si todavía no se instaló
+     */
+    public static HttpResponseCache getInstalled() {
+        return installed;
+    }
+
+    /**
+     * Clave de cache: SHA-1 de la URL y el token (cada sesión tiene sus propias entradas)
+     */
+    static String key(String url, String authToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(url.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            if (authToken != null) {
+                digest.update(authToken.getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ==================== LECTURA ====================
+
+    /**
+     * Validadores guardados para una clave, o null si no hay entrada en disco
+     */
+    synchronized Validators getValidators(String key) {
+        File meta = new File(directory, key + META_SUFFIX);
+        File body = new File(directory, key + BODY_SUFFIX);
+        if (!meta.exists() || !body.exists()) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(meta)) {
+            properties.load(in);
+        } catch (IOException e) {
+            Log.w(TAG, "Unreadable cache metadata, dropping entry: " + e.getMessage());
+            remove(key);
+            return null;
+        }
+
+        String etag = properties.getProperty("etag");
+        String lastModified = properties.getProperty("last_modified");
+        if (etag == null && lastModified == null) {
+            return null;
+        }
+        return new Validators(etag, lastModified);
+    }
+
+    /**
+     * Objeto parseado en memoria para la clave, si es del tipo esperado
+     */
+    synchronized <T> T getParsed(String key, Class<T> type) {
+        Object value = parsedEntries.get(key);
+        if (type.isInstance(value)) {
+            touch(key);
+            return type.cast(value);
+        }
+        return null;
+    }
+
+    synchronized void putParsed(String key, Object value) {
+        if (value != null) {
+            parsedEntries.put(key, value);
+        }
+    }
+
+    /**
+     * Abre el cuerpo guardado en disco, o null si ya no existe (ej: expulsado por tamaño)
+     */
+    synchronized InputStream openBody(String key) {
+        File body = new File(directory, key + BODY_SUFFIX);
+        try {
+            InputStream in = new FileInputStream(body);
+            touch(key);
+            return in;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // ==================== ESCRITURA ====================
+
+    /**
+     * Empieza a escribir una entrada nueva en un archivo temporal
+     */
+    Editor edit(String key) throws IOException {
+        File tmp = File.createTempFile(key, TMP_SUFFIX, directory);
+        return new Editor(key, tmp);
+    }
+
+    /**
+     * Elimina una entrada (memoria y disco)
+     */
+    synchronized void remove(String key) {
+        parsedEntries.remove(key);
+        new File(directory, key + BODY_SUFFIX).delete();
+        new File(directory, key + META_SUFFIX).delete();
+    }
+
+    /**
+     * Vacía toda la cache (ej: al cerrar sesión)
+     */
+    public synchronized void clear() {
+        parsedEntries.clear();
+        deleteFiles(BODY_SUFFIX);
+        deleteFiles(META_SUFFIX);
+    }
+
+    private void deleteFiles(String suffix) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(suffix));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private synchronized void commit(String key, File tmp, Validators validators) throws IOException {
+        Properties properties = new Properties();
+        if (validators.etag != null) {
+            properties.setProperty("etag", validators.etag);
+        }
+        if (validators.lastModified != null) {
+            properties.setProperty("last_modified", validators.lastModified);
+        }
+
+        File body = new File(directory, key + BODY_SUFFIX);
+        File meta = new File(directory, key + META_SUFFIX);
+        try (OutputStream out = new FileOutputStream(meta)) {
+            properties.store(out, null);
+        }
+        body.delete();
+        if (!tmp.renameTo(body)) {
+            tmp.delete();
+            meta.delete();
+            throw new IOException("Could not store cache entry " + key);
+        }
+        trimToSize();
+    }
+
+    /**
+     * Marca la entrada como usada recientemente (el orden LRU en disco usa lastModified)
+     */
+    private void touch(String key) {
+        long now = System.currentTimeMillis();
+        new File(directory, key + BODY_SUFFIX).setLastModified(now);
+        new File(directory, key + META_SUFFIX).setLastModified(now);
+    }
+
+    /**
+     * Expulsa las entradas menos usadas hasta quedar por debajo del tamaño máximo
+     */
+    private void trimToSize() {
+        File[] bodies = directory.listFiles((dir, name) -> name.endsWith(BODY_SUFFIX));
+        if (bodies == null) {
+            return;
+        }
+
+        long total = 0;
+        for (File file : bodies) {
+            total += file.length();
+        }
+        if (total <= maxSizeBytes) {
+            return;
+        }
+
+        Arrays.sort(bodies, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : bodies) {
+            if (total <= maxSizeBytes) {
+                break;
+            }
+            String name = file.getName();
+            String key = name.substring(0, name.length() - BODY_SUFFIX.length());
+            total -= file.length();
+            remove(key);
+            Log.d(TAG, "Evicted cache entry " + key);
+        }
+    }
+
+    // ==================== ESTADÍSTICAS ====================
+
+    void recordHit() {
+        hitCount.incrementAndGet();
+    }
+
+    void recordRevalidate() {
+        revalidateCount.incrementAndGet();
+    }
+
+    void recordMiss() {
+        missCount.incrementAndGet();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getRevalidateCount() {
+        return revalidateCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Tamaño de los cuerpos guardados en disco
+     */
+    public synchronized long size() {
+        long total = 0;
+        File[] bodies = directory.listFiles((dir, name) -> name.endsWith(BODY_SUFFIX));
+        if (bodies != null) {
+            for (File file : bodies) {
+                total += file.length();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpResponseCache{" +
+                "hits=" + hitCount.get() +
+                ", revalidations=" + revalidateCount.get() +
+                ", misses=" + missCount.get() +
+                '}';
+    }
+
+    // ==================== CLASES AUXILIARES ====================
+
+    /**
+     * Validadores de una respuesta guardada
+     */
+    static class Validators {
+        final String etag;
+        final String lastModified;
+
+        Validators(String etag, String lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Escritura de una entrada: copia el cuerpo a disco mientras se parsea
+     */
+    class Editor {
+        private final String key;
+        private final File tmp;
+        private OutputStream out;
+
+        Editor(String key, File tmp) throws IOException {
+            this.key = key;
+            this.tmp = tmp;
+            this.out = new FileOutputStream(tmp);
+        }
+
+        /**
+         * Envuelve el cuerpo de la respuesta para que todo lo leído se escriba también en disco
+         */
+        InputStream wrap(InputStream source) {
+            return new FilterInputStream(source) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b != -1) {
+                        out.write(b);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int count = super.read(buffer, offset, length);
+                    if (count > 0) {
+                        out.write(buffer, offset, count);
+                    }
+                    return count;
+                }
+
+                @Override
+                public long skip(long n) throws IOException {
+                    // Leer en lugar de saltar para no dejar huecos en el archivo
+                    byte[] buffer = new byte[(int) Math.min(n, 8192)];
+                    int count = read(buffer, 0, buffer.length);
+                    return Math.max(count, 0);
+                }
+
+                @Override
+                public boolean markSupported() {
+                    return false;
+                }
+            };
+        }
+
+        /**
+         * Termina de leer el cuerpo y publica la entrada
+         */
+        void commit(InputStream wrapped, Validators validators) throws IOException {
+            byte[] buffer = new byte[8192];
+            while (wrapped.read(buffer) != -1) {
+                // Consumir el resto del cuerpo para que el archivo quede completo
+            }
+            out.close();
+            HttpResponseCache.this.commit(key, tmp, validators);
+        }
+
+        /**
+         * Descarta la entrada a medio escribir
+         */
+        void abort() {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+            tmp.delete();
+        }
+    }
+}
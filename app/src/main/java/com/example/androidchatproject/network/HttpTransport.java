@@ -0,0 +1,20 @@
+package com.example.androidchatproject.network;
+
+import java.io.IOException;
+
+/**
+ * Transporte HTTP sobre el que trabaja HttpClient
+ * Separa el armado de peticiones/parseo de la forma en que viajan por la red,
+ * de modo que se pueda cambiar la implementación (pool de conexiones, mocks, etc.)
+ */
+public interface HttpTransport {
+
+    /**
+     * Ejecuta la petición de forma síncrona
+     *
+     * @param request Petición a enviar
+     * @return Respuesta del servidor; el llamador debe cerrarla
+     * @throws IOException Si hay error de red o conexión
+     */
+    HttpResponse execute(HttpRequest request) throws IOException;
+}
@@ -0,0 +1,341 @@
+package com.example.androidchatproject.network;
+
+import com.example.androidchatproject.model.chats.ChatDetailResponse;
+import com.example.androidchatproject.model.chats.ChatItem;
+import com.example.androidchatproject.model.chats.ChatsListResponse;
+import com.example.androidchatproject.model.chats.MessageResponse;
+import com.example.androidchatproject.model.user.UserListItem;
+import com.example.androidchatproject.model.user.UserProfileResponse;
+import com.example.androidchatproject.model.user.UsersListResponse;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TypeAdapters escritos a mano para los modelos de chats y usuarios
+ * Leen y escriben con el JsonReader/JsonWriter en streaming, sin reflexión: los nombres
+ * de campo son los mismos que los @SerializedName de cada modelo, los campos desconocidos
+ * se ignoran y null se trata igual que con el binding reflexivo de GSON.
+ * Si se agrega un campo a uno de estos modelos, hay que agregarlo también aquí.
+ */
+final class JsonAdapters {
+
+    private JsonAdapters() {
+    }
+
+    /**
+     * Registra los adapters de los modelos en el builder
+     */
+    static GsonBuilder register(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapter(ChatItem.class, CHAT_ITEM.nullSafe())
+                .registerTypeAdapter(ChatsListResponse.class, CHATS_LIST.nullSafe())
+                .registerTypeAdapter(MessageResponse.class, MESSAGE.nullSafe())
+                .registerTypeAdapter(ChatDetailResponse.class, CHAT_DETAIL.nullSafe())
+                .registerTypeAdapter(GsonProvider.MESSAGE_LIST_TYPE, MESSAGE_LIST.nullSafe())
+                .registerTypeAdapter(UserListItem.class, USER_LIST_ITEM.nullSafe())
+                .registerTypeAdapter(UsersListResponse.class, USERS_LIST.nullSafe())
+                .registerTypeAdapter(UserProfileResponse.class, USER_PROFILE.nullSafe());
+    }
+
+    static final TypeAdapter<ChatItem> CHAT_ITEM = new TypeAdapter<ChatItem>() {
+        @Override
+        public void write(JsonWriter out, ChatItem chat) throws IOException {
+            out.beginObject();
+            out.name("id").value(chat.getId());
+            out.name("user").value(chat.getUser());
+            out.name("username").value(chat.getUsername());
+            out.name("profile_img").value(chat.getProfileImg());
+            out.name("last_message").value(chat.getLastMessage());
+            out.name("last_message_id").value(chat.getLastMessageId());
+            out.name("last_message_time").value(chat.getLastMessageTime());
+            out.name("created_at").value(chat.getCreatedAt());
+            out.name("updated_at").value(chat.getUpdatedAt());
+            out.endObject();
+        }
+
+        @Override
+        public ChatItem read(JsonReader in) throws IOException {
+            ChatItem chat = new ChatItem();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": chat.setId(readString(in)); break;
+                    case "user": chat.setUser(readString(in)); break;
+                    case "username": chat.setUsername(readString(in)); break;
+                    case "profile_img": chat.setProfileImg(readString(in)); break;
+                    case "last_message": chat.setLastMessage(readString(in)); break;
+                    case "last_message_id": chat.setLastMessageId(readString(in)); break;
+                    case "last_message_time": chat.setLastMessageTime(readString(in)); break;
+                    case "created_at": chat.setCreatedAt(readString(in)); break;
+                    case "updated_at": chat.setUpdatedAt(readString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return chat;
+        }
+    };
+
+    static final TypeAdapter<ChatsListResponse> CHATS_LIST = new TypeAdapter<ChatsListResponse>() {
+        @Override
+        public void write(JsonWriter out, ChatsListResponse response) throws IOException {
+            out.beginObject();
+            out.name("chats");
+            writeList(out, response.getChats(), CHAT_ITEM);
+            out.endObject();
+        }
+
+        @Override
+        public ChatsListResponse read(JsonReader in) throws IOException {
+            ChatsListResponse response = new ChatsListResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("chats".equals(in.nextName())) {
+                    response.setChats(readList(in, CHAT_ITEM));
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+    };
+
+    static final TypeAdapter<MessageResponse> MESSAGE = new TypeAdapter<MessageResponse>() {
+        @Override
+        public void write(JsonWriter out, MessageResponse message) throws IOException {
+            out.beginObject();
+            out.name("id").value(message.getId());
+            out.name("sender_id").value(message.getSenderId());
+            out.name("content").value(message.getContent());
+            out.name("attachment_url").value(message.getAttachmentUrl());
+            out.name("mime_type").value(message.getMimeType());
+            out.name("is_deleted").value(message.isDeleted());
+            out.name("created_at").value(message.getCreatedAt());
+            out.name("updated_at").value(message.getUpdatedAt());
+            out.endObject();
+        }
+
+        @Override
+        public MessageResponse read(JsonReader in) throws IOException {
+            MessageResponse message = new MessageResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": message.setId(readString(in)); break;
+                    case "sender_id": message.setSenderId(readString(in)); break;
+                    case "content": message.setContent(readString(in)); break;
+                    case "attachment_url": message.setAttachmentUrl(readString(in)); break;
+                    case "mime_type": message.setMimeType(readString(in)); break;
+                    case "is_deleted": message.setDeleted(readBoolean(in)); break;
+                    case "created_at": message.setCreatedAt(readString(in)); break;
+                    case "updated_at": message.setUpdatedAt(readString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return message;
+        }
+    };
+
+    static final TypeAdapter<List<MessageResponse>> MESSAGE_LIST = new TypeAdapter<List<MessageResponse>>() {
+        @Override
+        public void write(JsonWriter out, List<MessageResponse> messages) throws IOException {
+            writeList(out, messages, MESSAGE);
+        }
+
+        @Override
+        public List<MessageResponse> read(JsonReader in) throws IOException {
+            return readList(in, MESSAGE);
+        }
+    };
+
+    static final TypeAdapter<ChatDetailResponse> CHAT_DETAIL = new TypeAdapter<ChatDetailResponse>() {
+        @Override
+        public void write(JsonWriter out, ChatDetailResponse chat) throws IOException {
+            out.beginObject();
+            out.name("id").value(chat.getId());
+            out.name("user").value(chat.getUser());
+            out.name("username").value(chat.getUsername());
+            out.name("profile_img").value(chat.getProfileImg());
+            out.name("messages");
+            writeList(out, chat.getMessages(), MESSAGE);
+            out.name("created_at").value(chat.getCreatedAt());
+            out.name("updated_at").value(chat.getUpdatedAt());
+            out.endObject();
+        }
+
+        @Override
+        public ChatDetailResponse read(JsonReader in) throws IOException {
+            ChatDetailResponse chat = new ChatDetailResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": chat.setId(readString(in)); break;
+                    case "user": chat.setUser(readString(in)); break;
+                    case "username": chat.setUsername(readString(in)); break;
+                    case "profile_img": chat.setProfileImg(readString(in)); break;
+                    case "messages": chat.setMessages(readList(in, MESSAGE)); break;
+                    case "created_at": chat.setCreatedAt(readString(in)); break;
+                    case "updated_at": chat.setUpdatedAt(readString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return chat;
+        }
+    };
+
+    static final TypeAdapter<UserListItem> USER_LIST_ITEM = new TypeAdapter<UserListItem>() {
+        @Override
+        public void write(JsonWriter out, UserListItem user) throws IOException {
+            out.beginObject();
+            out.name("username").value(user.getUsername());
+            out.name("user_id").value(user.getUserId());
+            out.name("profile_image_url").value(user.getProfileImageUrl());
+            out.endObject();
+        }
+
+        @Override
+        public UserListItem read(JsonReader in) throws IOException {
+            UserListItem user = new UserListItem();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "username": user.setUsername(readString(in)); break;
+                    case "user_id": user.setUserId(readString(in)); break;
+                    case "profile_image_url": user.setProfileImageUrl(readString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return user;
+        }
+    };
+
+    static final TypeAdapter<UsersListResponse> USERS_LIST = new TypeAdapter<UsersListResponse>() {
+        @Override
+        public void write(JsonWriter out, UsersListResponse response) throws IOException {
+            out.beginObject();
+            out.name("users");
+            writeList(out, response.getUsers(), USER_LIST_ITEM);
+            out.endObject();
+        }
+
+        @Override
+        public UsersListResponse read(JsonReader in) throws IOException {
+            UsersListResponse response = new UsersListResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("users".equals(in.nextName())) {
+                    response.setUsers(readList(in, USER_LIST_ITEM));
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+    };
+
+    static final TypeAdapter<UserProfileResponse> USER_PROFILE = new TypeAdapter<UserProfileResponse>() {
+        @Override
+        public void write(JsonWriter out, UserProfileResponse profile) throws IOException {
+            out.beginObject();
+            out.name("id").value(profile.getId());
+            out.name("username").value(profile.getUsername());
+            out.name("email_is_verified").value(profile.isEmailVerified());
+            out.name("profile_image_url").value(profile.getProfileImageUrl());
+            out.endObject();
+        }
+
+        @Override
+        public UserProfileResponse read(JsonReader in) throws IOException {
+            UserProfileResponse profile = new UserProfileResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": profile.setId(readString(in)); break;
+                    case "username": profile.setUsername(readString(in)); break;
+                    case "email_is_verified": profile.setEmailVerified(readBoolean(in)); break;
+                    case "profile_image_url": profile.setProfileImageUrl(readString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return profile;
+        }
+    };
+
+    /**
+     * Igual que el adapter de String de GSON: acepta números y booleanos como texto
+     */
+    private static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    /**
+     * Igual que el binding de un boolean primitivo: null deja false, acepta "true" como texto
+     */
+    private static boolean readBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        }
+        if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+
+    private static <T> List<T> readList(JsonReader in, TypeAdapter<T> itemAdapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<T> items = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                items.add(null);
+            } else {
+                items.add(itemAdapter.read(in));
+            }
+        }
+        in.endArray();
+        return items;
+    }
+
+    private static <T> void writeList(JsonWriter out, List<T> items, TypeAdapter<T> itemAdapter) throws IOException {
+        if (items == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (T item : items) {
+            if (item == null) {
+                out.nullValue();
+            } else {
+                itemAdapter.write(out, item);
+            }
+        }
+        out.endArray();
+    }
+}
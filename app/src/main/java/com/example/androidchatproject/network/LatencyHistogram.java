@@ -0,0 +1,106 @@
+package com.example.androidchatproject.network;
+
+import java.util.Arrays;
+
+/**
+ * Histograma de latencias con cubetas fijas en escala logarítmica (ms)
+ * Ocupa memoria constante sin importar cuántas muestras reciba;
+ * los percentiles se interpolan dentro de la cubeta.
+ */
+public class LatencyHistogram {
+
+    // Límite superior de cada cubeta; la última cubeta recoge todo lo que pase de 30 s
+    private static final double[] BOUNDS = {
+            1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000
+    };
+
+    private final long[] counts = new long[BOUNDS.length + 1];
+    private long count;
+    private double sum;
+    private double max;
+
+    /**
+     * Añade una muestra en milisegundos (las negativas se ignoran)
+     */
+    public synchronized void record(double millis) {
+        if (millis < 0) {
+            return;
+        }
+        int bucket = 0;
+        while (bucket < BOUNDS.length && millis > BOUNDS[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        count++;
+        sum += millis;
+        max = Math.max(max, millis);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getMean() {
+        return count > 0 ? sum / count : 0;
+    }
+
+    public synchronized double getMax() {
+        return max;
+    }
+
+    /**
+     * Percentil aproximado (ej: 0.9 para p90), o 0 si no hay muestras
+     */
+    public synchronized double percentile(double p) {
+        if (count == 0) {
+            return 0;
+        }
+        double rank = Math.max(1, Math.ceil(p * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (seen + counts[i] >= rank) {
+                double lower = i == 0 ? 0 : BOUNDS[i - 1];
+                double upper = i < BOUNDS.length ? Math.min(BOUNDS[i], max) : max;
+                double fraction = (rank - seen) / counts[i];
+                return lower + (Math.max(upper, lower) - lower) * fraction;
+            }
+            seen += counts[i];
+        }
+        return max;
+    }
+
+    /**
+     * Copia independiente (para leer sin bloquear al que registra)
+     */
+    public synchronized LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        copy.count = count;
+        copy.sum = sum;
+        copy.max = max;
+        return copy;
+    }
+
+    /**
+     * Límites superiores de las cubetas (ms)
+     */
+    public static double[] getBounds() {
+        return BOUNDS.clone();
+    }
+
+    /**
+     * Muestras por cubeta; tiene una posición más que getBounds() para el desborde
+     */
+    public synchronized long[] getBucketCounts() {
+        return Arrays.copyOf(counts, counts.length);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(java.util.Locale.US, "n=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f max=%.1f",
+                count, getMean(), percentile(0.5), percentile(0.9), percentile(0.99), max);
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.androidchatproject.network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cuerpo multipart/form-data que se escribe en streaming sobre el stream del transporte
+ * El boundary y las cabeceras de cada parte se codifican una sola vez al armar el cuerpo:
+ * la longitud exacta se conoce antes de enviar (Content-Length fijo, salvo archivos de
+ * tamaño desconocido) y un reintento reescribe los mismos bytes sin volver a generarlos.
+ * Los archivos se copian con buffers reutilizados de un pool pequeño.
+ */
+public class MultipartBody extends HttpBody {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] DASH_DASH = {'-', '-'};
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED_BUFFERS = 4;
+    private static final ArrayDeque<byte[]> bufferPool = new ArrayDeque<>();
+
+    private final String boundary;
+    private final byte[] delimiter;
+    private final byte[] closeDelimiter;
+    private final List<Part> parts = new ArrayList<>();
+    private long contentLength;
+
+    public MultipartBody() {
+        this("Boundary-" + Long.toHexString(ThreadLocalRandom.current().nextLong())
+                + Long.toHexString(System.nanoTime()));
+    }
+
+    MultipartBody(String boundary) {
+        this.boundary = boundary;
+        byte[] boundaryBytes = boundary.getBytes(StandardCharsets.US_ASCII);
+        // "--boundary\r\n" abre cada parte; "--boundary--\r\n" cierra el cuerpo
+        this.delimiter = concat(DASH_DASH, boundaryBytes, CRLF);
+        this.closeDelimiter = concat(DASH_DASH, boundaryBytes, DASH_DASH, CRLF);
+        this.contentLength = closeDelimiter.length;
+    }
+
+    /**
+     * Agrega un campo de texto
+     */
+    public MultipartBody field(String name, String value) {
+        byte[] headers = ("Content-Disposition: form-data; name=\"" + escape(name) + "\"\r\n\r\n")
+                .getBytes(StandardCharsets.UTF_8);
+        return add(new Part(headers, value.getBytes(StandardCharsets.UTF_8), null));
+    }
+
+    /**
+     * Agrega un archivo; su contenido se lee al escribir el cuerpo
+     */
+    public MultipartBody file(String name, HttpClient.FileData file) {
+        String mimeType = file.mimeType != null ? file.mimeType : "application/octet-stream";
+        byte[] headers = ("Content-Disposition: form-data; name=\"" + escape(name)
+                + "\"; filename=\"" + escape(file.fileName) + "\"\r\n"
+                + "Content-Type: " + mimeType + "\r\n\r\n")
+                .getBytes(StandardCharsets.UTF_8);
+        return add(new Part(headers, null, file));
+    }
+
+    private MultipartBody add(Part part) {
+        parts.add(part);
+        long partLength = part.length();
+        if (partLength < 0 || contentLength < 0) {
+            contentLength = -1;
+        } else {
+            contentLength += delimiter.length + part.headers.length + partLength + CRLF.length;
+        }
+        return this;
+    }
+
+    public String getBoundary() {
+        return boundary;
+    }
+
+    @Override
+    public String contentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        byte[] buffer = null;
+        try {
+            for (Part part : parts) {
+                out.write(delimiter);
+                out.write(part.headers);
+                if (part.file != null) {
+                    if (buffer == null) {
+                        buffer = obtainBuffer();
+                    }
+                    part.file.writeTo(out, buffer);
+                } else {
+                    out.write(part.value);
+                }
+                out.write(CRLF);
+            }
+            out.write(closeDelimiter);
+        } finally {
+            if (buffer != null) {
+                recycleBuffer(buffer);
+            }
+        }
+    }
+
+    /**
+     * Determina el MIME type basado en la extensión del archivo
+     */
+    public static String mimeTypeFor(String fileName) {
+        if (fileName == null || fileName.isEmpty()) {
+            return "application/octet-stream";
+        }
+
+        String lower = fileName.toLowerCase();
+
+        // Imágenes
+        if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")) return "image/jpeg";
+        if (lower.endsWith(".png")) return "image/png";
+        if (lower.endsWith(".gif")) return "image/gif";
+        if (lower.endsWith(".webp")) return "image/webp";
+        if (lower.endsWith(".bmp")) return "image/bmp";
+
+        // PDFs
+        if (lower.endsWith(".pdf")) return "application/pdf";
+
+        // Audio
+        if (lower.endsWith(".mp3")) return "audio/mpeg";
+        if (lower.endsWith(".wav")) return "audio/wav";
+        if (lower.endsWith(".m4a")) return "audio/mp4";
+        if (lower.endsWith(".aac")) return "audio/aac";
+        if (lower.endsWith(".ogg")) return "audio/ogg";
+        if (lower.endsWith(".flac")) return "audio/flac";
+
+        // Videos
+        if (lower.endsWith(".mp4")) return "video/mp4";
+        if (lower.endsWith(".avi")) return "video/x-msvideo";
+        if (lower.endsWith(".mov")) return "video/quicktime";
+
+        // Documentos
+        if (lower.endsWith(".doc")) return "application/msword";
+        if (lower.endsWith(".docx")) return "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+        if (lower.endsWith(".xls")) return "application/vnd.ms-excel";
+        if (lower.endsWith(".xlsx")) return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+        if (lower.endsWith(".txt")) return "text/plain";
+
+        // Default
+        return "application/octet-stream";
+    }
+
+    /**
+     * Comillas y saltos de línea romperían la cabecera Content-Disposition
+     */
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+    }
+
+    private static byte[] concat(byte[]... chunks) {
+        int length = 0;
+        for (byte[] chunk : chunks) {
+            length += chunk.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] chunk : chunks) {
+            System.arraycopy(chunk, 0, result, offset, chunk.length);
+            offset += chunk.length;
+        }
+        return result;
+    }
+
+    private static byte[] obtainBuffer() {
+        synchronized (bufferPool) {
+            byte[] buffer = bufferPool.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+        return new byte[BUFFER_SIZE];
+    }
+
+    private static void recycleBuffer(byte[] buffer) {
+        synchronized (bufferPool) {
+            if (bufferPool.size() < MAX_POOLED_BUFFERS) {
+                bufferPool.push(buffer);
+            }
+        }
+    }
+
+    /**
+     * Parte ya codificada: cabeceras y, para campos de texto, el valor
+     */
+    private static final class Part {
+        final byte[] headers;
+        final byte[] value;
+        final HttpClient.FileData file;
+
+        Part(byte[] headers, byte[] value, HttpClient.FileData file) {
+            this.headers = headers;
+            this.value = value;
+            this.file = file;
+        }
+
+        long length() {
+            return file != null ? file.length() : value.length;
+        }
+    }
+}
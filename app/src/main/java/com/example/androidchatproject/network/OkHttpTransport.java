@@ -0,0 +1,283 @@
+package com.example.androidchatproject.network;
+
+import com.example.androidchatproject.config.ApiConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+
+/**
+ * Transporte basado en OkHttp
+ * Una sola instancia por proceso: las conexiones keep-alive y las sesiones TLS
+ * se reutilizan entre ApiHttpClientChats, ApiHttpClientUser y los cargadores de imágenes.
+ * Negocia HTTP/2 vía ALPN cuando el servidor lo soporta.
+ * Mide cada llamada (DNS, conexión, primer byte, cuerpo y bytes) con un EventListener.
+ */
+public class OkHttpTransport implements HttpTransport {
+
+    private static final long DEFAULT_CONNECT_TIMEOUT = TimeUnit.SECONDS.toMillis(ApiConfig.CONNECT_TIMEOUT);
+    private static final long DEFAULT_READ_TIMEOUT = TimeUnit.SECONDS.toMillis(ApiConfig.READ_TIMEOUT);
+    private static final long DEFAULT_WRITE_TIMEOUT = TimeUnit.SECONDS.toMillis(ApiConfig.WRITE_TIMEOUT);
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private static volatile OkHttpTransport instance;
+
+    private final OkHttpClient client;
+
+    public OkHttpTransport(OkHttpClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Instancia compartida con pool de conexiones
+     */
+    public static OkHttpTransport getInstance() {
+        if (instance == null) {
+            synchronized (OkHttpTransport.class) {
+                if (instance == null) {
+                    OkHttpClient client = new OkHttpClient.Builder()
+                            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                            .connectTimeout(DEFAULT_CONNECT_TIMEOUT, TimeUnit.MILLISECONDS)
+                            .readTimeout(DEFAULT_READ_TIMEOUT, TimeUnit.MILLISECONDS)
+                            .writeTimeout(DEFAULT_WRITE_TIMEOUT, TimeUnit.MILLISECONDS)
+                            .retryOnConnectionFailure(true)
+                            .eventListenerFactory(OkHttpTransport::listenerFor)
+                            .build();
+                    instance = new OkHttpTransport(client);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Cliente OkHttp subyacente (comparte pool y dispatcher)
+     */
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        CallTimings timings = new CallTimings();
+        Request.Builder builder = new Request.Builder()
+                .url(request.getUrl())
+                .tag(CallTimings.class, timings);
+
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+
+        HttpBody body = request.getBody();
+        builder.method(request.getMethod(), body != null ? new BodyAdapter(body) : null);
+
+        Call call = clientFor(request).newCall(builder.build());
+
+        // Si la tarea tiene un RequestHandle, cancelarlo aborta la conexión
+        // (también mientras se descarga el cuerpo, hasta que se cierre la respuesta)
+        RequestHandle handle = RequestHandle.current();
+        Runnable abort = null;
+        if (handle != null) {
+            handle.throwIfCancelled();
+            abort = () -> {
+                if (!handle.wasAborted()) {
+                    CancellationStats.getInstance().recordAbortedCall();
+                }
+                call.cancel();
+            };
+            handle.addCancelAction(abort);
+        }
+
+        Response response;
+        try {
+            response = call.execute();
+        } catch (IOException | RuntimeException e) {
+            if (handle != null) {
+                handle.removeCancelAction(abort);
+            }
+            throw e;
+        }
+        ResponseBody responseBody = response.body();
+
+        Runnable registeredAbort = abort;
+        return new HttpResponse(
+                response.code(),
+                response.message(),
+                response.headers().toMultimap(),
+                responseBody != null ? responseBody.byteStream() : null,
+                () -> {
+                    try {
+                        response.close();
+                    } finally {
+                        if (handle != null) {
+                            handle.removeCancelAction(registeredAbort);
+                        }
+                    }
+                }
+        ).timings(timings);
+    }
+
+    /**
+     * Aplica los timeouts de la petición sin perder el pool compartido
+     */
+    private OkHttpClient clientFor(HttpRequest request) {
+        int connectTimeout = request.getConnectTimeoutMillis();
+        int readTimeout = request.getReadTimeoutMillis();
+        int writeTimeout = request.getWriteTimeoutMillis();
+        int callTimeout = request.getCallTimeoutMillis();
+
+        if ((connectTimeout <= 0 || connectTimeout == client.connectTimeoutMillis())
+                && (readTimeout <= 0 || readTimeout == client.readTimeoutMillis())
+                && (writeTimeout <= 0 || writeTimeout == client.writeTimeoutMillis())
+                && (callTimeout <= 0 || callTimeout == client.callTimeoutMillis())) {
+            return client;
+        }
+
+        OkHttpClient.Builder builder = client.newBuilder();
+        if (connectTimeout > 0) {
+            builder.connectTimeout(connectTimeout, TimeUnit.MILLISECONDS);
+        }
+        if (readTimeout > 0) {
+            builder.readTimeout(readTimeout, TimeUnit.MILLISECONDS);
+        }
+        if (writeTimeout > 0) {
+            builder.writeTimeout(writeTimeout, TimeUnit.MILLISECONDS);
+        }
+        if (callTimeout > 0) {
+            // Cubre toda la llamada, incluida la lectura del cuerpo hasta cerrar la respuesta
+            builder.callTimeout(callTimeout, TimeUnit.MILLISECONDS);
+        }
+        return builder.build();
+    }
+
+    private static EventListener listenerFor(Call call) {
+        CallTimings timings = call.request().tag(CallTimings.class);
+        return timings != null ? new TimingListener(timings) : EventListener.NONE;
+    }
+
+    /**
+     * Registra en CallTimings las fases de una llamada
+     * Si OkHttp repite la llamada internamente (ej: conexión del pool caída), se acumulan
+     */
+    private static class TimingListener extends EventListener {
+        private final CallTimings timings;
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        private long headersEnd;
+
+        TimingListener(CallTimings timings) {
+            this.timings = timings;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+            timings.dnsNanos = add(timings.dnsNanos, System.nanoTime() - dnsStart);
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+            timings.connectNanos = add(timings.connectNanos, System.nanoTime() - connectStart);
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol,
+                                  IOException e) {
+            timings.connectNanos = add(timings.connectNanos, System.nanoTime() - connectStart);
+        }
+
+        @Override
+        public void requestHeadersEnd(Call call, Request request) {
+            timings.requestBytes = add(timings.requestBytes, request.headers().byteCount());
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            timings.requestBytes = add(timings.requestBytes, byteCount);
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            timings.ttfbNanos = System.nanoTime() - callStart;
+        }
+
+        @Override
+        public void responseHeadersEnd(Call call, Response response) {
+            headersEnd = System.nanoTime();
+            timings.responseBytes = add(timings.responseBytes, response.headers().byteCount());
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            timings.bodyNanos = System.nanoTime() - headersEnd;
+            timings.responseBytes = add(timings.responseBytes, byteCount);
+        }
+
+        private static long add(long current, long value) {
+            return current < 0 ? value : current + value;
+        }
+    }
+
+    /**
+     * Adapta HttpBody al RequestBody de OkHttp
+     */
+    private static class BodyAdapter extends RequestBody {
+        private final HttpBody body;
+
+        BodyAdapter(HttpBody body) {
+            this.body = body;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return body.contentType() != null ? MediaType.parse(body.contentType()) : null;
+        }
+
+        @Override
+        public long contentLength() {
+            return body.contentLength();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            OutputStream out = sink.outputStream();
+            body.writeTo(out);
+            out.flush();
+        }
+    }
+}
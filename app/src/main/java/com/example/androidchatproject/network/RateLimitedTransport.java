@@ -0,0 +1,51 @@
+package com.example.androidchatproject.network;
+
+import java.io.IOException;
+
+/**
+ * Transporte que pasa cada petición por el RateLimiter antes de enviarla
+ * Cada intento (reintentos y duplicados incluidos) consume un token del tipo de tráfico
+ * de la petición. Un 429 reduce el ritmo de ese tipo; las respuestas correctas lo recuperan.
+ */
+public class RateLimitedTransport implements HttpTransport {
+
+    private static volatile RateLimitedTransport instance;
+
+    private final HttpTransport delegate;
+    private final RateLimiter limiter;
+
+    public RateLimitedTransport(HttpTransport delegate, RateLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    /**
+     * OkHttpTransport compartido detrás del RateLimiter del proceso
+     */
+    public static RateLimitedTransport getInstance() {
+        if (instance == null) {
+            synchronized (RateLimitedTransport.class) {
+                if (instance == null) {
+                    instance = new RateLimitedTransport(OkHttpTransport.getInstance(), RateLimiter.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        TokenBucket bucket = limiter.getBucket(request.getTrafficClass());
+        // La espera por un token cuenta dentro del tiempo máximo de la llamada
+        bucket.acquire(request.getCallTimeoutMillis(), RequestHandle.current());
+
+        HttpResponse response = delegate.execute(request);
+        int code = response.getCode();
+        if (code == 429) {
+            bucket.onThrottled(RetryPolicy.parseRetryAfter(response.header("Retry-After")));
+        } else if (code < 500) {
+            bucket.onSuccess();
+        }
+        return response;
+    }
+}
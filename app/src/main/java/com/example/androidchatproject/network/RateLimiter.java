@@ -0,0 +1,58 @@
+package com.example.androidchatproject.network;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Límite de peticiones salientes del proceso, con presupuestos separados por tipo de tráfico
+ * Polling, refresco de chats, avatares y subidas pueden coincidir en el tiempo: así no salen
+ * todos a la vez contra el backend, y una ráfaga de imágenes no se come el presupuesto de la API.
+ */
+public class RateLimiter {
+
+    /**
+     * Tipos de tráfico con presupuesto propio
+     */
+    public enum TrafficClass {
+        // Llamadas JSON a la API
+        API,
+        // Imágenes y adjuntos
+        MEDIA
+    }
+
+    private static final double API_RATE = 8;
+    private static final int API_BURST = 16;
+    private static final double MEDIA_RATE = 8;
+    private static final int MEDIA_BURST = 16;
+
+    private static final RateLimiter instance = new RateLimiter(API_RATE, API_BURST, MEDIA_RATE, MEDIA_BURST);
+
+    private final Map<TrafficClass, TokenBucket> buckets = new EnumMap<>(TrafficClass.class);
+
+    /**
+     * @param apiRate Peticiones por segundo de la API
+     * @param apiBurst Ráfaga máxima de la API
+     * @param mediaRate Peticiones por segundo de imágenes y adjuntos
+     * @param mediaBurst Ráfaga máxima de imágenes y adjuntos
+     */
+    public RateLimiter(double apiRate, int apiBurst, double mediaRate, int mediaBurst) {
+        buckets.put(TrafficClass.API, new TokenBucket("api", apiRate, apiBurst));
+        buckets.put(TrafficClass.MEDIA, new TokenBucket("media", mediaRate, mediaBurst));
+    }
+
+    /**
+     * Limitador compartido por el transporte por defecto
+     */
+    public static RateLimiter getInstance() {
+        return instance;
+    }
+
+    public TokenBucket getBucket(TrafficClass trafficClass) {
+        return buckets.get(trafficClass != null ? trafficClass : TrafficClass.API);
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimiter" + buckets.values();
+    }
+}
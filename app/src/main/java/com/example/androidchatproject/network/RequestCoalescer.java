@@ -0,0 +1,156 @@
+package com.example.androidchatproject.network;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agrupa peticiones GET idénticas que están en curso al mismo tiempo
+ * La primera petición para una clave (URL + token) sale a la red; las que llegan
+ * mientras tanto esperan y reciben la misma respuesta.
+ * Compartido por todo el proceso: MainActivity, el servicio de polling y el Worker
+ * usan instancias distintas de los clientes de API.
+ * Si todos los interesados se retiran (ej: sus pantallas se cerraron), se cancela la petición.
+ */
+public class RequestCoalescer {
+
+    /**
+     * Interesado en el resultado de una petición en curso
+     * primary es true solo para el primero, que es quien debe mostrar el error al usuario
+     */
+    interface Listener<T> {
+        void onResult(T response, IOException error, boolean primary);
+    }
+
+    private static final RequestCoalescer instance = new RequestCoalescer();
+
+    /**
+     * Petición en curso: quienes esperan y el handle de la llamada de red
+     */
+    private static final class InFlight {
+        final List<Listener<?>> listeners = new ArrayList<>();
+        final RequestHandle handle;
+
+        InFlight(RequestHandle handle) {
+            this.handle = handle;
+        }
+    }
+
+    private final Map<String, InFlight> inFlight = new HashMap<>();
+    private final AtomicLong executedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong abandonedCount = new AtomicLong();
+
+    private RequestCoalescer() {
+    }
+
+    public static RequestCoalescer getInstance() {
+        return instance;
+    }
+
+    /**
+     * Clave de una petición idempotente
+     */
+    static String key(String url, String authToken) {
+        return "GET " + url + "\n" + (authToken != null ? authToken : "");
+    }
+
+    /**
+     * Registra al interesado en la clave
+     * @param networkHandle Handle con el que se ejecutará la llamada si este llamador es el primero
+     * @return true si no había ninguna petición en curso y el llamador debe ejecutarla con networkHandle
+     */
+    synchronized boolean join(String key, Listener<?> listener, RequestHandle networkHandle) {
+        InFlight entry = inFlight.get(key);
+        if (entry != null) {
+            entry.listeners.add(listener);
+            coalescedCount.incrementAndGet();
+            return false;
+        }
+
+        entry = new InFlight(networkHandle);
+        entry.listeners.add(listener);
+        inFlight.put(key, entry);
+        executedCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Retira a un interesado; si era el último, la petición se cancela y la clave queda libre
+     */
+    void leave(String key, Listener<?> listener) {
+        InFlight abandoned = null;
+        synchronized (this) {
+            InFlight entry = inFlight.get(key);
+            if (entry == null || !entry.listeners.remove(listener)) {
+                return;
+            }
+            if (entry.listeners.isEmpty()) {
+                inFlight.remove(key);
+                abandoned = entry;
+            }
+        }
+        if (abandoned != null) {
+            abandonedCount.incrementAndGet();
+            abandoned.handle.cancel();
+        }
+    }
+
+    /**
+     * Entrega el resultado a todos los que esperaban la clave y la libera
+     * Solo si la clave sigue perteneciendo a networkHandle (no fue abandonada y reutilizada)
+     */
+    @SuppressWarnings("unchecked")
+    <T> void complete(String key, RequestHandle networkHandle, T response, IOException error) {
+        List<Listener<?>> listeners;
+        synchronized (this) {
+            InFlight entry = inFlight.get(key);
+            if (entry == null || entry.handle != networkHandle) {
+                return;
+            }
+            inFlight.remove(key);
+            listeners = entry.listeners;
+        }
+
+        for (int i = 0; i < listeners.size(); i++) {
+            ((Listener<T>) listeners.get(i)).onResult(response, error, i == 0);
+        }
+    }
+
+    /**
+     * Peticiones que salieron a la red
+     */
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    /**
+     * Peticiones que se resolvieron con la respuesta de otra
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Peticiones canceladas porque ya nadie esperaba su respuesta
+     */
+    public long getAbandonedCount() {
+        return abandonedCount.get();
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    @Override
+    public String toString() {
+        return "RequestCoalescer{" +
+                "executed=" + executedCount.get() +
+                ", coalesced=" + coalescedCount.get() +
+                ", abandoned=" + abandonedCount.get() +
+                '}';
+    }
+}
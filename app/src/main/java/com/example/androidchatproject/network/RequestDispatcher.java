@@ -0,0 +1,252 @@
+package com.example.androidchatproject.network;
+
+import android.util.Log;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dispatcher compartido para todas las peticiones de red del proceso
+ * Número de hilos acotado y cola con prioridades: el trabajo interactivo
+ * (enviar mensaje, abrir un chat) se atiende antes que el polling en segundo plano
+ * y las descargas de avatares.
+ * Las subidas de adjuntos van aparte, en un hilo propio (executeUpload): pueden tardar
+ * minutos y no deben ocupar uno de los hilos del pool mientras tanto.
+ */
+public class RequestDispatcher {
+
+    private static final String TAG = "RequestDispatcher";
+    private static final int POOL_SIZE = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Carriles de prioridad (de mayor a menor)
+     */
+    public enum Priority {
+        INTERACTIVE,
+        NORMAL,
+        BACKGROUND
+    }
+
+    private static volatile RequestDispatcher instance;
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor uploadExecutor;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Lane[] lanes;
+
+    private RequestDispatcher() {
+        lanes = new Lane[Priority.values().length];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "api-dispatcher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        executor = new ThreadPoolExecutor(
+                POOL_SIZE,
+                POOL_SIZE,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(),
+                threadFactory
+        );
+        executor.allowCoreThreadTimeOut(true);
+
+        uploadExecutor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "api-upload");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        uploadExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Instancia única del proceso
+     */
+    public static RequestDispatcher getInstance() {
+        if (instance == null) {
+            synchronized (RequestDispatcher.class) {
+                if (instance == null) {
+                    instance = new RequestDispatcher();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Encola una tarea en el carril indicado
+     */
+    public void execute(Priority priority, Runnable task) {
+        Lane lane = lanes[priority.ordinal()];
+        lane.queued.incrementAndGet();
+        executor.execute(new PrioritizedTask(priority, sequence.getAndIncrement(), task));
+    }
+
+    /**
+     * Encola una subida en el hilo de subidas; se atienden de a una, en orden de llegada
+     */
+    public void executeUpload(Runnable task) {
+        uploadExecutor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Unhandled error in upload task", e);
+            }
+        });
+    }
+
+    /**
+     * Subidas encoladas que todavía no empezaron
+     */
+    public int getUploadQueueDepth() {
+        return uploadExecutor.getQueue().size();
+    }
+
+    /**
+     * Tareas encoladas que todavía no empezaron en un carril
+     */
+    public int getQueueDepth(Priority priority) {
+        return lanes[priority.ordinal()].queued.get();
+    }
+
+    /**
+     * Tareas encoladas en total
+     */
+    public int getQueueDepth() {
+        int total = 0;
+        for (Lane lane : lanes) {
+            total += lane.queued.get();
+        }
+        return total;
+    }
+
+    /**
+     * Estadísticas de espera en cola de un carril
+     */
+    public LaneStats getStats(Priority priority) {
+        Lane lane = lanes[priority.ordinal()];
+        return new LaneStats(
+                priority,
+                lane.queued.get(),
+                lane.started.get(),
+                lane.totalWaitMillis.get(),
+                lane.maxWaitMillis.get()
+        );
+    }
+
+    /**
+     * Contadores internos de un carril
+     */
+    private static class Lane {
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicLong started = new AtomicLong();
+        final AtomicLong totalWaitMillis = new AtomicLong();
+        final AtomicLong maxWaitMillis = new AtomicLong();
+    }
+
+    /**
+     * Tarea ordenada por prioridad y, dentro del mismo carril, por orden de llegada
+     */
+    private class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final Priority priority;
+        private final long sequenceNumber;
+        private final Runnable task;
+        private final long enqueuedAt;
+
+        PrioritizedTask(Priority priority, long sequenceNumber, Runnable task) {
+            this.priority = priority;
+            this.sequenceNumber = sequenceNumber;
+            this.task = task;
+            this.enqueuedAt = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            Lane lane = lanes[priority.ordinal()];
+            long waitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueuedAt);
+            lane.queued.decrementAndGet();
+            lane.started.incrementAndGet();
+            lane.totalWaitMillis.addAndGet(waitMillis);
+            lane.maxWaitMillis.accumulateAndGet(waitMillis, Math::max);
+
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Unhandled error in " + priority + " task", e);
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int byPriority = Integer.compare(priority.ordinal(), other.priority.ordinal());
+            if (byPriority != 0) {
+                return byPriority;
+            }
+            return Long.compare(sequenceNumber, other.sequenceNumber);
+        }
+    }
+
+    /**
+     * Instantánea de las estadísticas de un carril
+     */
+    public static class LaneStats {
+        private final Priority priority;
+        private final int queueDepth;
+        private final long startedCount;
+        private final long totalWaitMillis;
+        private final long maxWaitMillis;
+
+        LaneStats(Priority priority, int queueDepth, long startedCount,
+                  long totalWaitMillis, long maxWaitMillis) {
+            this.priority = priority;
+            this.queueDepth = queueDepth;
+            this.startedCount = startedCount;
+            this.totalWaitMillis = totalWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public long getStartedCount() {
+            return startedCount;
+        }
+
+        public long getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        public double getAverageWaitMillis() {
+            return startedCount == 0 ? 0 : (double) totalWaitMillis / startedCount;
+        }
+
+        @Override
+        public String toString() {
+            return "LaneStats{" +
+                    "priority=" + priority +
+                    ", queueDepth=" + queueDepth +
+                    ", started=" + startedCount +
+                    ", avgWaitMs=" + String.format(java.util.Locale.US, "%.1f", getAverageWaitMillis()) +
+                    ", maxWaitMs=" + maxWaitMillis +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.androidchatproject.network;
+
+import android.os.Handler;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Handle cancelable de una petición en curso
+ * Al cancelarlo:
+ * - si la tarea sigue en la cola del dispatcher, no llega a ejecutarse
+ * - si está en la red, se aborta la conexión (y con ella el parseo en streaming)
+ * - los callbacks pendientes en el hilo principal se descartan
+ * Normalmente lo crea un RequestScope ligado al ciclo de vida de una Activity.
+ */
+public class RequestHandle {
+
+    private static final ThreadLocal<RequestHandle> current = new ThreadLocal<>();
+
+    private final List<Runnable> cancelActions = new ArrayList<>();
+    private volatile boolean cancelled;
+    // false si se abortó internamente (abort): no cuenta en CancellationStats
+    private volatile boolean counted = true;
+    private volatile boolean completed;
+    private RequestScope scope;
+
+    public RequestHandle() {
+    }
+
+    RequestHandle(RequestScope scope) {
+        this.scope = scope;
+    }
+
+    /**
+     * Handle de la tarea que se ejecuta en este hilo, o null
+     */
+    public static RequestHandle current() {
+        return current.get();
+    }
+
+    /**
+     * Cancela la petición; no hace nada si ya terminó o ya estaba cancelada
+     */
+    public void cancel() {
+        cancel(true);
+    }
+
+    /**
+     * Cancela sin contarlo como cancelación del usuario o de la pantalla
+     * (ej: la petición que pierde un hedge)
+     */
+    void abort() {
+        cancel(false);
+    }
+
+    private void cancel(boolean count) {
+        List<Runnable> actions;
+        synchronized (this) {
+            if (cancelled || completed) {
+                return;
+            }
+            counted = count;
+            cancelled = true;
+            actions = new ArrayList<>(cancelActions);
+            cancelActions.clear();
+        }
+        if (count) {
+            CancellationStats.getInstance().recordCancelled();
+        }
+        for (Runnable action : actions) {
+            action.run();
+        }
+        detachFromScope();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Se canceló con abort: el transporte no debe contar la conexión abortada
+     */
+    boolean wasAborted() {
+        return cancelled && !counted;
+    }
+
+    /**
+     * La petición terminó y su resultado ya se entregó; deja de estar en su scope
+     */
+    public void complete() {
+        synchronized (this) {
+            completed = true;
+            cancelActions.clear();
+        }
+        detachFromScope();
+    }
+
+    /**
+     * Envuelve una tarea del dispatcher: se salta si el handle ya está cancelado y,
+     * mientras corre, el handle queda asociado al hilo para que el transporte lo encuentre
+     */
+    public Runnable bind(Runnable task) {
+        return () -> {
+            if (cancelled) {
+                if (counted) {
+                    CancellationStats.getInstance().recordSkipped();
+                }
+                return;
+            }
+            RequestHandle previous = current.get();
+            current.set(this);
+            try {
+                task.run();
+            } finally {
+                current.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Publica un callback en el hilo principal; se descarta si al ejecutarse el handle está cancelado
+     */
+    public void post(Handler handler, Runnable callback) {
+        handler.post(() -> {
+            if (cancelled) {
+                CancellationStats.getInstance().recordDroppedCallback();
+                return;
+            }
+            callback.run();
+        });
+    }
+
+    /**
+     * Lanza InterruptedIOException si la petición se canceló
+     */
+    public void throwIfCancelled() throws InterruptedIOException {
+        if (cancelled) {
+            throw new InterruptedIOException("Canceled");
+        }
+    }
+
+    /**
+     * Acción a ejecutar al cancelar (ej: abortar la llamada HTTP); se ejecuta ya si está cancelado
+     */
+    void addCancelAction(Runnable action) {
+        synchronized (this) {
+            if (!cancelled) {
+                cancelActions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    synchronized void removeCancelAction(Runnable action) {
+        cancelActions.remove(action);
+    }
+
+    private void detachFromScope() {
+        RequestScope owner;
+        synchronized (this) {
+            owner = scope;
+            scope = null;
+        }
+        if (owner != null) {
+            owner.remove(this);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.androidchatproject.network;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Conjunto de peticiones ligadas al ciclo de vida de una pantalla
+ * En ON_DESTROY se cancelan todas las que sigan en curso.
+ * Hay un solo scope por LifecycleOwner, compartido por todos sus clientes de API.
+ */
+public class RequestScope implements DefaultLifecycleObserver {
+
+    private static final String TAG = "RequestScope";
+
+    private static final Map<LifecycleOwner, RequestScope> scopes = new WeakHashMap<>();
+
+    private final String name;
+    private final Set<RequestHandle> handles = new LinkedHashSet<>();
+    private boolean destroyed;
+
+    private RequestScope(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Scope de una Activity (o cualquier LifecycleOwner); llamar desde el hilo principal
+     */
+    public static RequestScope of(LifecycleOwner owner) {
+        synchronized (scopes) {
+            RequestScope scope = scopes.get(owner);
+            if (scope == null) {
+                scope = new RequestScope(owner.getClass().getSimpleName());
+                scopes.put(owner, scope);
+                owner.getLifecycle().addObserver(scope);
+            }
+            return scope;
+        }
+    }
+
+    /**
+     * Nuevo handle registrado en el scope; si la pantalla ya se destruyó nace cancelado
+     */
+    public RequestHandle newHandle() {
+        RequestHandle handle = new RequestHandle(this);
+        synchronized (this) {
+            if (!destroyed) {
+                handles.add(handle);
+                return handle;
+            }
+        }
+        handle.cancel();
+        return handle;
+    }
+
+    /**
+     * Cancela todas las peticiones en curso del scope
+     */
+    public void cancelAll() {
+        List<RequestHandle> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(handles);
+            handles.clear();
+        }
+        if (!pending.isEmpty()) {
+            Log.d(TAG, name + ": cancelling " + pending.size() + " request(s)");
+        }
+        for (RequestHandle handle : pending) {
+            handle.cancel();
+        }
+    }
+
+    /**
+     * Peticiones del scope que siguen en curso
+     */
+    public synchronized int getActiveCount() {
+        return handles.size();
+    }
+
+    synchronized void remove(RequestHandle handle) {
+        handles.remove(handle);
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        synchronized (this) {
+            destroyed = true;
+        }
+        cancelAll();
+        owner.getLifecycle().removeObserver(this);
+        synchronized (scopes) {
+            scopes.remove(owner);
+        }
+    }
+}
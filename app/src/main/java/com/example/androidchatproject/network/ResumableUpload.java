@@ -0,0 +1,456 @@
+package com.example.androidchatproject.network;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import okio.ByteString;
+
+/**
+ * Subida por partes reanudable (protocolo tus 1.0, subconjunto "core" + "creation" + "termination")
+ *
+ * 1. POST al endpoint con Upload-Length: el servidor devuelve la URL de la subida (Location)
+ * 2. HEAD a esa URL: el servidor indica cuántos bytes tiene (Upload-Offset)
+ * 3. PATCH con cada parte desde ese offset hasta completar el archivo
+ *
+ * Si la conexión se corta, se vuelve a preguntar el offset y se continúa desde ahí,
+ * sin reenviar lo que el servidor ya tiene. run() es bloqueante: se ejecuta en un hilo de red.
+ */
+public class ResumableUpload {
+
+    private static final String TAG = "ResumableUpload";
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String OFFSET_CONTENT_TYPE = "application/offset+octet-stream";
+    private static final int DEFAULT_CHUNK_SIZE = 1024 * 1024; // 1 MB
+    private static final int DEFAULT_MAX_RETRIES = 5;
+    private static final long DEFAULT_RETRY_DELAY_MILLIS = 1000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 30000;
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    public enum State {
+        PENDING,
+        RUNNING,
+        PAUSED,
+        CANCELLED,
+        COMPLETED,
+        FAILED
+    }
+
+    /**
+     * Progreso de la subida (se llama en el hilo que ejecuta run())
+     */
+    public interface ProgressListener {
+        void onProgress(long bytesUploaded, long totalBytes);
+    }
+
+    private final HttpTransport transport;
+    private final String endpoint;
+    private final HttpClient.FileData.StreamSource source;
+    private final long length;
+
+    private String authToken;
+    private String fileName;
+    private String mimeType;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private long retryDelayMillis = DEFAULT_RETRY_DELAY_MILLIS;
+    private volatile ProgressListener progressListener;
+    private byte[] chunkBuffer;
+
+    private volatile String uploadUrl;
+    private volatile long offset;
+    private volatile State state = State.PENDING;
+    private volatile boolean pauseRequested;
+    private volatile boolean cancelRequested;
+
+    /**
+     * @param endpoint URL donde se crean las subidas
+     * @param source Origen del archivo (se reabre en cada reanudación)
+     * @param length Tamaño total en bytes (obligatorio para el protocolo)
+     */
+    public ResumableUpload(HttpTransport transport, String endpoint,
+                           HttpClient.FileData.StreamSource source, long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Resumable uploads need a known length");
+        }
+        this.transport = transport;
+        this.endpoint = endpoint;
+        this.source = source;
+        this.length = length;
+    }
+
+    // Setters encadenables
+    public ResumableUpload authToken(String authToken) {
+        this.authToken = authToken;
+        return this;
+    }
+
+    public ResumableUpload metadata(String fileName, String mimeType) {
+        this.fileName = fileName;
+        this.mimeType = mimeType;
+        return this;
+    }
+
+    public ResumableUpload chunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public ResumableUpload maxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    public ResumableUpload retryDelayMillis(long retryDelayMillis) {
+        this.retryDelayMillis = retryDelayMillis;
+        return this;
+    }
+
+    public ResumableUpload progressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Continúa una subida creada antes (ej: tras reiniciar la app)
+     */
+    public ResumableUpload resumeFrom(String uploadUrl) {
+        this.uploadUrl = uploadUrl;
+        return this;
+    }
+
+    // Getters
+    public String getUploadUrl() {
+        return uploadUrl;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Detiene la subida al terminar la parte en curso; se puede continuar con run()
+     */
+    public void pause() {
+        pauseRequested = true;
+    }
+
+    /**
+     * Aborta la subida en curso y pide al servidor que la descarte
+     */
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    /**
+     * Sube el archivo (o lo que falte) y devuelve el estado final
+     * COMPLETED, PAUSED o CANCELLED; los errores tras agotar los reintentos se lanzan como IOException
+     */
+    public State run() throws IOException {
+        pauseRequested = false;
+        state = State.RUNNING;
+
+        int failures = 0;
+        while (true) {
+            try {
+                State result = runOnce();
+                state = result;
+                if (result == State.CANCELLED) {
+                    terminate();
+                }
+                return result;
+            } catch (IOException e) {
+                if (cancelRequested) {
+                    state = State.CANCELLED;
+                    terminate();
+                    return state;
+                }
+                if (e instanceof ApiException) {
+                    int code = ((ApiException) e).getHttpCode();
+                    if (code == 404 || code == 410) {
+                        // La subida expiró en el servidor: empezar una nueva
+                        Log.w(TAG, "Upload " + uploadUrl + " no longer exists, starting over");
+                        uploadUrl = null;
+                    } else if (!isRetryable(code)) {
+                        state = State.FAILED;
+                        throw e;
+                    }
+                }
+                failures++;
+                if (failures > maxRetries) {
+                    state = State.FAILED;
+                    throw e;
+                }
+
+                long delay = Math.min(retryDelayMillis << (failures - 1), MAX_RETRY_DELAY_MILLIS);
+                Log.w(TAG, "Upload interrupted at " + offset + "/" + length + ", retry " + failures
+                        + " in " + delay + " ms: " + e.getMessage());
+                if (!sleep(delay)) {
+                    state = cancelRequested ? State.CANCELLED : State.PAUSED;
+                    if (state == State.CANCELLED) {
+                        terminate();
+                    }
+                    return state;
+                }
+            }
+        }
+    }
+
+    /**
+     * Un intento: crear o sincronizar el offset con el servidor y enviar partes
+     */
+    private State runOnce() throws IOException {
+        if (uploadUrl == null) {
+            uploadUrl = create();
+            offset = 0;
+        } else {
+            offset = fetchOffset();
+        }
+        notifyProgress();
+
+        if (offset >= length) {
+            return State.COMPLETED;
+        }
+
+        try (InputStream in = source.open()) {
+            skipFully(in, offset);
+
+            while (offset < length) {
+                if (cancelRequested) {
+                    return State.CANCELLED;
+                }
+                if (pauseRequested) {
+                    Log.d(TAG, "Upload paused at " + offset + "/" + length);
+                    return State.PAUSED;
+                }
+
+                int size = (int) Math.min(chunkSize, length - offset);
+                offset = sendChunk(in, size);
+                notifyProgress();
+            }
+        }
+        return cancelRequested ? State.CANCELLED : State.COMPLETED;
+    }
+
+    /**
+     * POST de creación: devuelve la URL de la subida
+     */
+    private String create() throws IOException {
+        HttpRequest request = baseRequest("POST", endpoint)
+                .header("Upload-Length", String.valueOf(length))
+                .header("Upload-Metadata", encodeMetadata())
+                .body(HttpBody.create(new byte[0], null));
+
+        try (HttpResponse response = transport.execute(request)) {
+            checkResponse(response);
+            String location = response.header("Location");
+            if (location == null) {
+                throw new IOException("Upload server did not return a Location");
+            }
+            String url = resolve(location);
+            Log.d(TAG, "Upload created: " + url);
+            return url;
+        }
+    }
+
+    /**
+     * HEAD: bytes que el servidor ya tiene
+     */
+    private long fetchOffset() throws IOException {
+        try (HttpResponse response = transport.execute(baseRequest("HEAD", uploadUrl))) {
+            checkResponse(response);
+            return parseOffset(response);
+        }
+    }
+
+    /**
+     * PATCH de una parte
+     * La parte se lee a un buffer reutilizado (como mucho chunkSize bytes) para que el cuerpo
+     * se pueda reescribir si el transporte reintenta la petición en otra conexión.
+     */
+    private long sendChunk(InputStream in, int size) throws IOException {
+        long chunkOffset = offset;
+        if (chunkBuffer == null || chunkBuffer.length < size) {
+            chunkBuffer = new byte[size];
+        }
+        byte[] chunk = chunkBuffer;
+        readFully(in, chunk, size);
+
+        HttpBody body = new HttpBody() {
+            @Override
+            public String contentType() {
+                return OFFSET_CONTENT_TYPE;
+            }
+
+            @Override
+            public long contentLength() {
+                return size;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                for (int written = 0; written < size; written += COPY_BUFFER_SIZE) {
+                    if (cancelRequested) {
+                        throw new IOException("Upload cancelled");
+                    }
+                    out.write(chunk, written, Math.min(COPY_BUFFER_SIZE, size - written));
+                }
+            }
+        };
+
+        HttpRequest request = baseRequest("PATCH", uploadUrl)
+                .header("Upload-Offset", String.valueOf(chunkOffset))
+                .body(body);
+
+        try (HttpResponse response = transport.execute(request)) {
+            checkResponse(response);
+            long newOffset = parseOffset(response);
+            if (newOffset != chunkOffset + size) {
+                // El servidor guardó menos de lo enviado: resincronizar con HEAD en el siguiente intento
+                throw new IOException("Server offset " + newOffset + " != expected " + (chunkOffset + size));
+            }
+            return newOffset;
+        }
+    }
+
+    /**
+     * DELETE de la subida cancelada (si falla, el servidor la expirará)
+     */
+    private void terminate() {
+        if (uploadUrl == null) {
+            return;
+        }
+        try (HttpResponse response = transport.execute(baseRequest("DELETE", uploadUrl))) {
+            Log.d(TAG, "Upload terminated: HTTP " + response.getCode());
+        } catch (IOException e) {
+            Log.w(TAG, "Could not terminate upload: " + e.getMessage());
+        }
+    }
+
+    private HttpRequest baseRequest(String method, String url) {
+        HttpRequest request = new HttpRequest(method, url)
+                .header("Tus-Resumable", TUS_VERSION)
+                .trafficClass(RateLimiter.TrafficClass.MEDIA);
+        if (authToken != null && !authToken.isEmpty()) {
+            request.header("Authorization", authToken);
+        }
+        return request;
+    }
+
+    private void checkResponse(HttpResponse response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new ApiException(response.getCode(), response.getMessage());
+        }
+    }
+
+    private long parseOffset(HttpResponse response) throws IOException {
+        String value = response.header("Upload-Offset");
+        if (value == null) {
+            throw new IOException("Upload server did not return Upload-Offset");
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid Upload-Offset: " + value);
+        }
+    }
+
+    /**
+     * 409 (offset desincronizado), 423 (bloqueada), 429 y 5xx se reintentan; el resto no
+     */
+    private boolean isRetryable(int code) {
+        return code == 409 || code == 423 || code == 429 || code >= 500;
+    }
+
+    private String encodeMetadata() {
+        StringBuilder metadata = new StringBuilder();
+        if (fileName != null) {
+            metadata.append("filename ").append(base64(fileName));
+        }
+        if (mimeType != null) {
+            if (metadata.length() > 0) {
+                metadata.append(',');
+            }
+            metadata.append("filetype ").append(base64(mimeType));
+        }
+        return metadata.length() > 0 ? metadata.toString() : null;
+    }
+
+    private static String base64(String value) {
+        return ByteString.encodeUtf8(value).base64();
+    }
+
+    private String resolve(String location) {
+        if (location.startsWith("http://") || location.startsWith("https://")) {
+            return location;
+        }
+        return java.net.URI.create(endpoint).resolve(location).toString();
+    }
+
+    private static void readFully(InputStream in, byte[] buffer, int size) throws IOException {
+        int total = 0;
+        while (total < size) {
+            int read = in.read(buffer, total, size - total);
+            if (read == -1) {
+                throw new IOException("File ended before the declared length");
+            }
+            total += read;
+        }
+    }
+
+    private static void skipFully(InputStream in, long bytes) throws IOException {
+        long remaining = bytes;
+        byte[] buffer = null;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                // Algunos streams no soportan skip: leer y descartar
+                if (buffer == null) {
+                    buffer = new byte[COPY_BUFFER_SIZE];
+                }
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    throw new IOException("File is shorter than the uploaded offset");
+                }
+                skipped = read;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private void notifyProgress() {
+        ProgressListener listener = progressListener;
+        if (listener != null) {
+            listener.onProgress(offset, length);
+        }
+    }
+
+    /**
+     * Espera antes de reintentar; devuelve false si se pidió pausa o cancelación
+     */
+    private boolean sleep(long millis) {
+        long deadline = System.currentTimeMillis() + millis;
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                if (pauseRequested || cancelRequested) {
+                    return false;
+                }
+                Thread.sleep(Math.min(100, Math.max(1, deadline - System.currentTimeMillis())));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+}
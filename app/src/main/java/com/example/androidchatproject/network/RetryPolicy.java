@@ -0,0 +1,145 @@
+package com.example.androidchatproject.network;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Política de reintentos para peticiones idempotentes
+ * Backoff exponencial con jitter completo: la espera del intento n es un valor aleatorio
+ * entre 0 y min(maxDelay, baseDelay * 2^(n-1)), para que varios clientes no reintenten a la vez.
+ * Si el servidor envía Retry-After se respeta, siempre que no supere maxDelay.
+ */
+public class RetryPolicy {
+
+    /**
+     * Política por defecto: 3 intentos en total, esperas de hasta 0.5 s, 1 s, ... (máx 10 s)
+     */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(3, 500, 10000);
+
+    /**
+     * Sin reintentos
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong exhaustedCount = new AtomicLong();
+
+    /**
+     * @param maxAttempts Intentos en total, incluyendo el primero
+     * @param baseDelayMillis Espera máxima antes del primer reintento
+     * @param maxDelayMillis Tope de la espera (y del Retry-After aceptado)
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be >= 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Solo se reintentan las peticiones idempotentes (GET, HEAD o marcadas explícitamente)
+     */
+    public boolean canRetry(HttpRequest request) {
+        return maxAttempts > 1 && request.isIdempotent();
+    }
+
+    /**
+     * Códigos que indican un fallo transitorio del servidor
+     * 408 timeout, 429 demasiadas peticiones, 502/503/504 (ej: dyno de Heroku arrancando)
+     */
+    public static boolean isRetryableStatus(int code) {
+        return code == 408 || code == 429 || code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * Espera antes del siguiente intento, o -1 si no hay que reintentar
+     *
+     * @param attempt Intento que acaba de fallar (1 = el primero)
+     * @param retryAfter Valor del header Retry-After (puede ser null)
+     */
+    public long nextDelayMillis(int attempt, String retryAfter) {
+        if (attempt >= maxAttempts) {
+            exhaustedCount.incrementAndGet();
+            return -1;
+        }
+
+        long delay;
+        long serverDelay = parseRetryAfter(retryAfter);
+        if (serverDelay >= 0) {
+            if (serverDelay > maxDelayMillis) {
+                // El servidor pide esperar más de lo que el usuario tolera: fallar ya
+                exhaustedCount.incrementAndGet();
+                return -1;
+            }
+            delay = serverDelay;
+        } else {
+            long cap = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+            delay = cap > 0 ? ThreadLocalRandom.current().nextLong(cap + 1) : 0;
+        }
+
+        retryCount.incrementAndGet();
+        return delay;
+    }
+
+    /**
+     * Retry-After en segundos o como fecha HTTP; -1 si no hay o no se entiende
+     */
+    static long parseRetryAfter(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+        value = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException ignored) {
+            // No son segundos: probar como fecha
+        }
+
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            Date date = format.parse(value);
+            return Math.max(0, date.getTime() - System.currentTimeMillis());
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reintentos realizados con esta política
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * Peticiones que fallaron después de agotar los intentos
+     */
+    public long getExhaustedCount() {
+        return exhaustedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", retries=" + retryCount.get() +
+                ", exhausted=" + exhaustedCount.get() +
+                '}';
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.androidchatproject.network;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Elige los timeouts de cada petición
+ * - Perfil por endpoint (ej: "POST api/chats/messages" es una subida) o, si no hay, por tipo:
+ *   GET/HEAD = lectura, cuerpo grande o de tamaño desconocido = subida, resto = mutación
+ * - Timeout de lectura adaptativo: varias veces el p99 del tiempo al primer byte del endpoint
+ *   (HttpMetrics), acotado por el perfil. Cada reintento lo duplica, por si el servidor
+ *   estaba arrancando.
+ * - Ningún timeout supera lo que queda del deadline de la petición.
+ */
+public class TimeoutPolicy {
+
+    /**
+     * Política por defecto, compartida por los clientes de la API
+     */
+    public static final TimeoutPolicy DEFAULT = new TimeoutPolicy()
+            .setProfile("POST api/chats/messages", TimeoutProfile.UPLOAD)
+            .setProfile("POST api/users/upload/profile/image", TimeoutProfile.UPLOAD);
+
+    // Cuerpos a partir de este tamaño se tratan como subidas
+    private static final long UPLOAD_THRESHOLD_BYTES = 256 * 1024;
+    // Muestras necesarias antes de confiar en el percentil
+    private static final long MIN_SAMPLES = 20;
+    private static final double PERCENTILE = 0.99;
+    private static final double READ_TIMEOUT_MULTIPLIER = 4;
+
+    private final ConcurrentHashMap<String, TimeoutProfile> endpointProfiles = new ConcurrentHashMap<>();
+    private final HttpMetrics metrics;
+
+    public TimeoutPolicy() {
+        this(HttpMetrics.getInstance());
+    }
+
+    TimeoutPolicy(HttpMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Perfil fijo para un endpoint (plantilla, ej: "GET api/chats/all/")
+     */
+    public TimeoutPolicy setProfile(String endpoint, TimeoutProfile profile) {
+        endpointProfiles.put(endpoint, profile);
+        return this;
+    }
+
+    /**
+     * Perfil de la petición
+     */
+    public TimeoutProfile profileFor(String endpoint, HttpRequest request) {
+        TimeoutProfile profile = endpointProfiles.get(endpoint);
+        if (profile != null) {
+            return profile;
+        }
+        if ("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod())) {
+            return TimeoutProfile.READ_ONLY;
+        }
+        HttpBody body = request.getBody();
+        if (body != null && (body.contentLength() < 0 || body.contentLength() >= UPLOAD_THRESHOLD_BYTES)) {
+            return TimeoutProfile.UPLOAD;
+        }
+        return TimeoutProfile.MUTATION;
+    }
+
+    /**
+     * Instante límite (System.nanoTime) de una petición que empieza ahora, o Long.MAX_VALUE sin deadline
+     */
+    public long deadlineNanos(TimeoutProfile profile, HttpRequest request) {
+        HttpBody body = request.getBody();
+        long deadline = profile.deadlineMillis(body != null ? body.contentLength() : 0);
+        return deadline > 0 ? System.nanoTime() + deadline * 1_000_000L : Long.MAX_VALUE;
+    }
+
+    /**
+     * Timeout de lectura del intento indicado (1 = primero)
+     */
+    public int readTimeoutMillis(String endpoint, TimeoutProfile profile, int attempt) {
+        int max = profile.getMaxReadTimeoutMillis();
+        if (!profile.isAdaptive()) {
+            return max;
+        }
+        double p99 = metrics.percentile(endpoint, HttpMetrics.Phase.TTFB, PERCENTILE, MIN_SAMPLES);
+        if (p99 < 0) {
+            return max;
+        }
+        double timeout = Math.max(profile.getMinReadTimeoutMillis(), p99 * READ_TIMEOUT_MULTIPLIER);
+        timeout *= 1L << Math.min(attempt - 1, 10);
+        return (int) Math.min(max, timeout);
+    }
+
+    /**
+     * Aplica a la petición los timeouts del intento, recortados a lo que queda del deadline
+     */
+    void apply(HttpRequest request, String endpoint, TimeoutProfile profile, int attempt, long deadlineNanos) {
+        int connect = profile.getConnectTimeoutMillis();
+        int read = readTimeoutMillis(endpoint, profile, attempt);
+        int write = profile.getWriteTimeoutMillis();
+        int call = 0;
+        if (deadlineNanos != Long.MAX_VALUE) {
+            long remaining = Math.max(1, (deadlineNanos - System.nanoTime()) / 1_000_000L);
+            int cap = (int) Math.min(Integer.MAX_VALUE, remaining);
+            connect = Math.min(connect, cap);
+            read = Math.min(read, cap);
+            write = Math.min(write, cap);
+            call = cap;
+        }
+        request.timeouts(connect, read, write).callTimeout(call);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.androidchatproject.network;
+
+import com.example.androidchatproject.config.ApiConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Presupuesto de tiempo de un tipo de petición
+ * - Timeouts por operación: conexión, lectura (entre bytes recibidos) y escritura (entre bytes enviados)
+ * - Deadline: tiempo total para la petición, incluyendo reintentos y esperas entre ellos
+ * El timeout de lectura se adapta a la latencia observada del endpoint dentro de [minRead, maxRead];
+ * el deadline crece con el tamaño del cuerpo para que una subida grande no se corte por lenta.
+ */
+public class TimeoutProfile {
+
+    private static final int CONNECT = (int) TimeUnit.SECONDS.toMillis(ApiConfig.CONNECT_TIMEOUT);
+    private static final int READ = (int) TimeUnit.SECONDS.toMillis(ApiConfig.READ_TIMEOUT);
+    private static final int WRITE = (int) TimeUnit.SECONDS.toMillis(ApiConfig.WRITE_TIMEOUT);
+
+    /**
+     * Lecturas (GET), incluido el polling: se cortan pronto si el endpoint suele responder rápido
+     */
+    public static final TimeoutProfile READ_ONLY = new TimeoutProfile(10000, 3000, READ, WRITE, 45000, 0);
+
+    /**
+     * Peticiones con cuerpo JSON (login, crear chat, ...)
+     */
+    public static final TimeoutProfile MUTATION = new TimeoutProfile(CONNECT, 10000, READ, WRITE, 60000, 0);
+
+    /**
+     * Subidas de archivos: lectura fija (el servidor procesa el archivo antes de responder)
+     * y deadline de 60 s más lo que tarde el cuerpo a 16 KB/s; sin longitud conocida, sin deadline
+     */
+    public static final TimeoutProfile UPLOAD = new TimeoutProfile(CONNECT, 2 * READ, 2 * READ, WRITE, 60000, 16 * 1024);
+
+    private final int connectTimeoutMillis;
+    private final int minReadTimeoutMillis;
+    private final int maxReadTimeoutMillis;
+    private final int writeTimeoutMillis;
+    private final long deadlineMillis;
+    private final long minBytesPerSecond;
+
+    /**
+     * @param connectTimeoutMillis Timeout de conexión (TCP + TLS)
+     * @param minReadTimeoutMillis Timeout de lectura mínimo al adaptarse a la latencia observada
+     * @param maxReadTimeoutMillis Timeout de lectura sin datos del endpoint, y tope al adaptarse
+     * @param writeTimeoutMillis Timeout de escritura
+     * @param deadlineMillis Tiempo total de la petición con sus reintentos (0 = sin deadline)
+     * @param minBytesPerSecond Velocidad mínima de subida tolerada; alarga el deadline según el cuerpo (0 = no)
+     */
+    public TimeoutProfile(int connectTimeoutMillis, int minReadTimeoutMillis, int maxReadTimeoutMillis,
+                          int writeTimeoutMillis, long deadlineMillis, long minBytesPerSecond) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.minReadTimeoutMillis = Math.min(minReadTimeoutMillis, maxReadTimeoutMillis);
+        this.maxReadTimeoutMillis = maxReadTimeoutMillis;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.deadlineMillis = deadlineMillis;
+        this.minBytesPerSecond = minBytesPerSecond;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public int getMinReadTimeoutMillis() {
+        return minReadTimeoutMillis;
+    }
+
+    public int getMaxReadTimeoutMillis() {
+        return maxReadTimeoutMillis;
+    }
+
+    public int getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    /**
+     * Si el timeout de lectura puede bajar según la latencia observada
+     */
+    public boolean isAdaptive() {
+        return minReadTimeoutMillis < maxReadTimeoutMillis;
+    }
+
+    /**
+     * Deadline para un cuerpo de la longitud dada (-1 = desconocida), o 0 si no hay deadline
+     */
+    public long deadlineMillis(long bodyLength) {
+        if (deadlineMillis <= 0 || minBytesPerSecond <= 0) {
+            return deadlineMillis;
+        }
+        if (bodyLength < 0) {
+            // Subida de tamaño desconocido: solo la cortan los timeouts por operación
+            return 0;
+        }
+        return deadlineMillis + bodyLength * 1000 / minBytesPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeoutProfile{" +
+                "connect=" + connectTimeoutMillis +
+                ", read=" + minReadTimeoutMillis + ".." + maxReadTimeoutMillis +
+                ", write=" + writeTimeoutMillis +
+                ", deadline=" + deadlineMillis +
+                (minBytesPerSecond > 0 ? " + body at " + minBytesPerSecond + " B/s" : "") +
+                '}';
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.androidchatproject.network;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket de un tipo de tráfico
+ * Cada petición consume un token; los tokens se reponen a rate por segundo hasta capacity
+ * (la ráfaga permitida). Sin tokens, la petición reserva el siguiente y espera su turno,
+ * así que las esperas respetan el orden de llegada.
+ * Ante un 429 la reposición se reduce a la mitad (y se pausa lo que pida Retry-After);
+ * cada respuesta correcta la sube un 5% de la base hasta recuperarla (AIMD).
+ */
+public class TokenBucket {
+
+    private static final String TAG = "TokenBucket";
+    private static final long SLEEP_STEP_MILLIS = 50;
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double INCREASE_FRACTION = 0.05;
+
+    private final String name;
+    private final double baseRate;
+    private final double minRate;
+    private final double capacity;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    private long pausedUntilNanos;
+
+    private final AtomicLong acquiredCount = new AtomicLong();
+    private final AtomicLong delayedCount = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    /**
+     * @param name Nombre para logs y métricas
+     * @param ratePerSecond Peticiones por segundo sostenidas
+     * @param capacity Ráfaga máxima
+     */
+    public TokenBucket(String name, double ratePerSecond, int capacity) {
+        this.name = name;
+        this.baseRate = ratePerSecond;
+        this.minRate = ratePerSecond / 10;
+        this.capacity = Math.max(1, capacity);
+        this.rate = ratePerSecond;
+        this.tokens = this.capacity;
+    }
+
+    /**
+     * Toma un token, esperando si hace falta
+     * @param maxWaitMillis Espera máxima (0 = sin límite); si no alcanza, falla sin esperar
+     * @param handle Handle de la petición: cancelarlo interrumpe la espera (puede ser null)
+     */
+    void acquire(long maxWaitMillis, RequestHandle handle) throws IOException {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            refill(now);
+            tokens -= 1;
+            wait = Math.max(0, pausedUntilNanos - now);
+            if (tokens < 0) {
+                wait = Math.max(wait, (long) (-tokens / rate * 1_000_000_000L));
+            }
+            if (maxWaitMillis > 0 && wait > TimeUnit.MILLISECONDS.toNanos(maxWaitMillis)) {
+                tokens += 1;
+                // Timeout, no cancelación: HttpClient lo cuenta como tal y puede reintentar
+                throw new SocketTimeoutException("Rate limited: " + name + " token available in "
+                        + TimeUnit.NANOSECONDS.toMillis(wait) + " ms, timeout is " + maxWaitMillis + " ms");
+            }
+        }
+        acquiredCount.incrementAndGet();
+        if (wait <= 0) {
+            return;
+        }
+
+        delayedCount.incrementAndGet();
+        waitNanos.addAndGet(wait);
+        long end = System.nanoTime() + wait;
+        long remaining;
+        while ((remaining = end - System.nanoTime()) > 0) {
+            if (handle != null && handle.isCancelled()) {
+                giveBack();
+                throw new InterruptedIOException("Canceled");
+            }
+            try {
+                Thread.sleep(Math.min(SLEEP_STEP_MILLIS, Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining))));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                giveBack();
+                throw new InterruptedIOException("Interrupted while rate limited");
+            }
+        }
+    }
+
+    /**
+     * El servidor respondió 429: reducir el ritmo y respetar Retry-After si lo hay
+     */
+    synchronized void onThrottled(long retryAfterMillis) {
+        throttledCount.incrementAndGet();
+        long now = System.nanoTime();
+        refill(now);
+        rate = Math.max(minRate, rate * DECREASE_FACTOR);
+        tokens = Math.min(tokens, 0);
+        if (retryAfterMillis > 0) {
+            pausedUntilNanos = Math.max(pausedUntilNanos, now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis));
+        }
+        Log.w(TAG, name + ": 429 received, rate lowered to " + String.format(Locale.US, "%.2f", rate) + "/s"
+                + (retryAfterMillis > 0 ? ", paused for " + retryAfterMillis + " ms" : ""));
+    }
+
+    /**
+     * Respuesta aceptada por el servidor: recuperar el ritmo poco a poco
+     */
+    synchronized void onSuccess() {
+        if (rate < baseRate) {
+            refill(System.nanoTime());
+            rate = Math.min(baseRate, rate + baseRate * INCREASE_FRACTION);
+        }
+    }
+
+    private synchronized void giveBack() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / 1_000_000_000.0 * rate);
+        lastRefillNanos = now;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Ritmo actual de reposición (peticiones por segundo)
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * Peticiones que pasaron por el bucket
+     */
+    public long getAcquiredCount() {
+        return acquiredCount.get();
+    }
+
+    /**
+     * Peticiones que tuvieron que esperar un token
+     */
+    public long getDelayedCount() {
+        return delayedCount.get();
+    }
+
+    /**
+     * Tiempo total de espera por tokens
+     */
+    public long getWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+    }
+
+    /**
+     * Respuestas 429 recibidas
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s{rate=%.2f/s, acquired=%d, delayed=%d, waited=%d ms, 429=%d}",
+                name, getRate(), acquiredCount.get(), delayedCount.get(), getWaitMillis(), throttledCount.get());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.androidchatproject.repository;
+
+import android.content.Context;
+
+import com.example.androidchatproject.database.ChatsCacheHelper;
+import com.example.androidchatproject.database.DatabaseExecutor;
+import com.example.androidchatproject.database.MessageSearchIndex;
+import com.example.androidchatproject.helper.MessageWindow;
+import com.example.androidchatproject.model.chats.ChatDetailResponse;
+import com.example.androidchatproject.model.chats.ChatItem;
+import com.example.androidchatproject.model.chats.MessageResponse;
+import com.example.androidchatproject.model.chats.MessageSearchHit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acceso a la caché de chats fuera del hilo principal
+ * Las escrituras van al hilo escritor de DatabaseExecutor y las lecturas a su pool de lectores;
+ * los resultados llegan en el hilo principal. Las Activities usan esta clase en lugar de
+ * ChatsCacheHelper, que hace I/O en el hilo que lo llama.
+ * Si la operación falla, el callback recibe un resultado vacío (lista vacía, 0 o null).
+ */
+public class ChatsRepository {
+
+    private static volatile ChatsRepository instance;
+
+    private final ChatsCacheHelper cacheHelper;
+    private final MessageSearchIndex searchIndex;
+    private final DatabaseExecutor executor;
+
+    ChatsRepository(ChatsCacheHelper cacheHelper, MessageSearchIndex searchIndex, DatabaseExecutor executor) {
+        this.cacheHelper = cacheHelper;
+        this.searchIndex = searchIndex;
+        this.executor = executor;
+    }
+
+    /**
+     * Instancia compartida del proceso
+     */
+    public static ChatsRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ChatsRepository.class) {
+                if (instance == null) {
+                    Context appContext = context.getApplicationContext();
+                    instance = new ChatsRepository(new ChatsCacheHelper(appContext),
+                            new MessageSearchIndex(appContext), DatabaseExecutor.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Guardar la lista de chats
+     * @param callback Filas escritas, o null
+     */
+    public void cacheChats(List<ChatItem> chats, DatabaseExecutor.Callback<Integer> callback) {
+        executor.write(() -> cacheHelper.cacheChats(chats), 0, callback);
+    }
+
+    /**
+     * Lista de chats guardada, en el orden del servidor
+     */
+    public void getCachedChats(DatabaseExecutor.Callback<List<ChatItem>> callback) {
+        executor.read(cacheHelper::getCachedChats, new ArrayList<>(), callback);
+    }
+
+    /**
+     * Chat guardado con un usuario, o null
+     */
+    public void findChatByUserId(String userId, DatabaseExecutor.Callback<ChatItem> callback) {
+        executor.read(() -> cacheHelper.findChatByUserId(userId), callback);
+    }
+
+    /**
+     * Buscar en el contenido de los mensajes guardados de todos los chats
+     * @param offset Resultados a saltar (0 = nueva búsqueda; las páginas siguientes reutilizan el orden)
+     * @param limit Tamaño de la página
+     * @param callback Resultados por relevancia, con el fragmento donde aparece cada término
+     */
+    public void searchMessages(String query, int offset, int limit,
+                               DatabaseExecutor.Callback<List<MessageSearchHit>> callback) {
+        executor.read(() -> searchIndex.search(query, offset, limit), new ArrayList<>(), callback);
+    }
+
+    /**
+     * Ventana de mensajes de un chat que lee sus páginas de la caché
+     * Sus métodos hacen I/O: usar loadLatest/loadOlder/cacheChatDetail de esta clase
+     */
+    public MessageWindow openMessageWindow(String chatId, int pageSize) {
+        return new MessageWindow(new MessageWindow.PageSource() {
+            @Override
+            public List<MessageResponse> loadBefore(String beforeMessageId, int limit) {
+                return cacheHelper.getCachedMessagesBefore(chatId, beforeMessageId, limit);
+            }
+
+            @Override
+            public List<MessageResponse> loadFrom(String fromMessageId) {
+                return cacheHelper.getCachedMessagesFrom(chatId, fromMessageId);
+            }
+        }, pageSize);
+    }
+
+    /**
+     * Abrir la ventana en la página más reciente
+     */
+    public void loadLatest(MessageWindow window, DatabaseExecutor.Callback<List<MessageResponse>> callback) {
+        executor.read(window::loadLatest, new ArrayList<>(), callback);
+    }
+
+    /**
+     * Agregar la página anterior a la ventana
+     * @param callback Número de mensajes agregados (0 si falla la lectura)
+     */
+    public void loadOlder(MessageWindow window, DatabaseExecutor.Callback<Integer> callback) {
+        executor.read(window::loadOlder, 0, callback);
+    }
+
+    /**
+     * Guardar el chat con sus mensajes y volver a leer la ventana
+     * La ventana se relee en el hilo escritor, después de confirmar la escritura,
+     * para que incluya los mensajes recién guardados.
+     * @param callback Mensajes de la ventana actualizada, o null si falla (la ventana no cambió)
+     */
+    public void cacheChatDetail(ChatDetailResponse chatDetail, MessageWindow window,
+                                DatabaseExecutor.Callback<List<MessageResponse>> callback) {
+        executor.write(() -> {
+            cacheHelper.cacheChatDetail(chatDetail);
+            return window.refresh();
+        }, callback);
+    }
+}
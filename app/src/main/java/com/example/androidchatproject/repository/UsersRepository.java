@@ -0,0 +1,65 @@
+package com.example.androidchatproject.repository;
+
+import android.content.Context;
+
+import com.example.androidchatproject.database.DatabaseExecutor;
+import com.example.androidchatproject.database.UsersCacheHelper;
+import com.example.androidchatproject.model.user.UserListItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acceso a la caché de usuarios fuera del hilo principal
+ * Mismo esquema que ChatsRepository: escrituras en el hilo escritor, lecturas en el pool de
+ * lectores y resultados en el hilo principal.
+ */
+public class UsersRepository {
+
+    private static volatile UsersRepository instance;
+
+    private final UsersCacheHelper cacheHelper;
+    private final DatabaseExecutor executor;
+
+    UsersRepository(UsersCacheHelper cacheHelper, DatabaseExecutor executor) {
+        this.cacheHelper = cacheHelper;
+        this.executor = executor;
+    }
+
+    /**
+     * Instancia compartida del proceso
+     */
+    public static UsersRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (UsersRepository.class) {
+                if (instance == null) {
+                    instance = new UsersRepository(new UsersCacheHelper(context.getApplicationContext()),
+                            DatabaseExecutor.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Guardar la lista de usuarios
+     */
+    public void cacheUsers(List<UserListItem> users) {
+        executor.write(() -> {
+            cacheHelper.cacheUsers(users);
+            return null;
+        }, null);
+    }
+
+    /**
+     * Usuarios guardados ordenados por nombre; vacía si no hay caché
+     */
+    public void getCachedUsers(DatabaseExecutor.Callback<List<UserListItem>> callback) {
+        executor.read(() -> {
+            if (!cacheHelper.hasCache()) {
+                return new ArrayList<UserListItem>();
+            }
+            return cacheHelper.getCachedUsers();
+        }, new ArrayList<>(), callback);
+    }
+}
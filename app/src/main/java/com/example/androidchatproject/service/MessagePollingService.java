@@ -21,6 +21,7 @@ import com.example.androidchatproject.helpers.NotificationHelper;
 import com.example.androidchatproject.model.chats.ChatItem;
 import com.example.androidchatproject.model.chats.ChatsListResponse;
 import com.example.androidchatproject.network.ApiHttpClientChats;
+import com.example.androidchatproject.network.RequestDispatcher;
 import com.example.androidchatproject.session.SessionManager;
 
 import java.util.List;
@@ -154,7 +155,7 @@ public class MessagePollingService extends Service {
         
         Log.d(TAG, "Checking for new messages...");
         
-        apiClient.getAllChats(token, new ApiHttpClientChats.ChatsListCallback() {
+        apiClient.getAllChats(token, RequestDispatcher.Priority.BACKGROUND, new ApiHttpClientChats.ChatsListCallback() {
             @Override
             public void onSuccess(ChatsListResponse response) {
                 if (response != null && response.getChats() != null) {
@@ -1,109 +1,73 @@
 package com.example.androidchatproject.session;
 
 import android.content.Context;
-import com.example.androidchatproject.database.DatabaseHelper;
 
 /**
  * SessionManager handles token lifecycle:
  * - If login_remember is true, saves token in SQLite
  * - If login_remember is false, keeps token in memory only
+ * State lives in the process-wide SessionStore, so every instance sees the same session
+ * and reads never touch the database.
  */
 public class SessionManager {
     
-    private DatabaseHelper databaseHelper;
-    private String memoryToken;  // For non-persistent sessions
-    private String memoryExpirationDate;
-    private String memoryUsername;  // For offline mode
-    private String memoryUserId;  // For offline mode
+    private final SessionStore store;
     
     public SessionManager(Context context) {
-        this.databaseHelper = new DatabaseHelper(context);
+        this.store = SessionStore.getInstance(context);
     }
     
     /**
      * Save token (persistent if rememberMe is true, in-memory otherwise)
      */
     public void saveToken(String token, String expirationDate, boolean rememberMe) {
-        if (rememberMe) {
-            // Save to database
-            android.util.Log.d("SessionManager", "Saving token to SQLite database (persistent)");
-            databaseHelper.saveToken(token, expirationDate);
-            // Clear memory token
-            memoryToken = null;
-            memoryExpirationDate = null;
-        } else {
-            // Keep in memory only
-            android.util.Log.d("SessionManager", "Saving token to memory (temporary)");
-            memoryToken = token;
-            memoryExpirationDate = expirationDate;
-            // Clear database token
-            databaseHelper.clearToken();
-        }
+        android.util.Log.d("SessionManager", rememberMe
+                ? "Saving token to SQLite database (persistent)"
+                : "Saving token to memory (temporary)");
+        store.saveToken(token, expirationDate, rememberMe);
     }
     
     /**
      * Get current token (from database or memory)
      */
     public String getToken() {
-        // First check database
-        String token = databaseHelper.getToken();
-        if (token != null) {
-            android.util.Log.d("SessionManager", "Token loaded from SQLite database");
-            return token;
-        }
-        // Then check memory
-        if (memoryToken != null) {
-            android.util.Log.d("SessionManager", "Token loaded from memory");
-        } else {
-            android.util.Log.d("SessionManager", "No token found in database or memory");
-        }
-        return memoryToken;
+        return store.get().getToken();
     }
     
     /**
      * Get expiration date
      */
     public String getExpirationDate() {
-        // First check database
-        String expirationDate = databaseHelper.getExpirationDate();
-        if (expirationDate != null) {
-            return expirationDate;
-        }
-        // Then check memory
-        return memoryExpirationDate;
+        return store.get().getExpirationDate();
     }
     
     /**
      * Check if user has an active session
      */
     public boolean hasSession() {
-        return getToken() != null;
+        return store.get().isActive();
     }
     
     /**
      * Check if session is remembered (saved in database)
      */
     public boolean isSessionRemembered() {
-        return databaseHelper.hasToken();
+        SessionStore.Session session = store.get();
+        return session.isActive() && session.isRemembered();
     }
     
     /**
      * Clear session (both database and memory)
      */
     public void clearSession() {
-        databaseHelper.clearToken();
-        memoryToken = null;
-        memoryExpirationDate = null;
-        memoryUsername = null;
-        memoryUserId = null;
+        store.clear();
     }
     
     /**
      * Save username (both database and memory)
      */
     public void saveUsername(String username) {
-        this.memoryUsername = username;
-        databaseHelper.saveUsername(username);
+        store.saveUsername(username);
         android.util.Log.d("SessionManager", "Username saved to DB and memory: " + username);
     }
     
@@ -111,21 +75,14 @@ public class SessionManager {
      * Get username (from database or memory)
      */
     public String getUsername() {
-        // First check memory
-        if (memoryUsername != null) {
-            return memoryUsername;
-        }
-        // Then check database
-        memoryUsername = databaseHelper.getUsername();
-        return memoryUsername;
+        return store.get().getUsername();
     }
     
     /**
      * Save user ID (both database and memory)
      */
     public void saveUserId(String userId) {
-        this.memoryUserId = userId;
-        databaseHelper.saveUserId(userId);
+        store.saveUserId(userId);
         android.util.Log.d("SessionManager", "UserId saved to DB and memory: " + userId);
     }
     
@@ -133,19 +90,13 @@ public class SessionManager {
      * Get user ID (from database or memory)
      */
     public String getUserId() {
-        // First check memory
-        if (memoryUserId != null) {
-            return memoryUserId;
-        }
-        // Then check database
-        memoryUserId = databaseHelper.getUserId();
-        return memoryUserId;
+        return store.get().getUserId();
     }
     
     /**
-     * Get DatabaseHelper instance if needed for advanced operations
+     * Process-wide session state, e.g. to listen for session changes
      */
-    public DatabaseHelper getDatabaseHelper() {
-        return databaseHelper;
+    public SessionStore getSessionStore() {
+        return store;
     }
 }
@@ -0,0 +1,247 @@
+package com.example.androidchatproject.session;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.androidchatproject.database.DatabaseExecutor;
+import com.example.androidchatproject.database.DatabaseHelper;
+import com.example.androidchatproject.network.HttpResponseCache;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide session state (token, expiration, user id, username)
+ * The saved session is read from SQLite once; after that every read is served from memory.
+ * Writes update memory first and are persisted in order on the database writer thread,
+ * so callers never wait for disk. Listeners are notified on the main thread.
+ */
+public class SessionStore {
+
+    private static final String TAG = "SessionStore";
+
+    // How long get() waits for a running preload before reading SQLite itself
+    private static final long PRELOAD_WAIT_MILLIS = 500;
+
+    /**
+     * Notified on the main thread after the session changes
+     */
+    public interface Listener {
+        void onSessionChanged(Session session);
+    }
+
+    /**
+     * Immutable snapshot of the session
+     */
+    public static final class Session {
+        static final Session EMPTY = new Session(null, null, null, null, false);
+
+        private final String token;
+        private final String expirationDate;
+        private final String userId;
+        private final String username;
+        private final boolean remembered;
+
+        Session(String token, String expirationDate, String userId, String username, boolean remembered) {
+            this.token = token;
+            this.expirationDate = expirationDate;
+            this.userId = userId;
+            this.username = username;
+            this.remembered = remembered;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public String getExpirationDate() {
+            return expirationDate;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        /**
+         * True when the token is saved in SQLite ("remember me")
+         */
+        public boolean isRemembered() {
+            return remembered;
+        }
+
+        public boolean isActive() {
+            return token != null;
+        }
+    }
+
+    private static volatile SessionStore instance;
+
+    private final Context appContext;
+    private final DatabaseHelper databaseHelper;
+    private final DatabaseExecutor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private volatile boolean preloading;
+    private volatile Session session;
+
+    private SessionStore(Context context) {
+        this.appContext = context;
+        this.databaseHelper = new DatabaseHelper(context);
+        this.executor = DatabaseExecutor.getInstance();
+    }
+
+    /**
+     * Shared instance; uses the application context
+     */
+    public static SessionStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (SessionStore.class) {
+                if (instance == null) {
+                    instance = new SessionStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Load the saved session on a database thread so the first read does not hit the disk
+     */
+    public void preload() {
+        if (session == null && !preloading) {
+            preloading = true;
+            executor.read(this::loadIfNeeded, null);
+        }
+    }
+
+    /**
+     * Current session; if preload is still running, waits up to PRELOAD_WAIT_MILLIS for it
+     * before reading SQLite on the calling thread
+     */
+    public Session get() {
+        Session current = session;
+        if (current != null) {
+            return current;
+        }
+        if (preloading && !Thread.holdsLock(this)) {
+            awaitPreload();
+        }
+        return loadIfNeeded();
+    }
+
+    private void awaitPreload() {
+        try {
+            if (!loaded.await(PRELOAD_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                Log.w(TAG, "Session preload still running after " + PRELOAD_WAIT_MILLIS + " ms, reading SQLite");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Session loadIfNeeded() {
+        synchronized (this) {
+            if (session == null) {
+                session = load();
+            }
+            loaded.countDown();
+            return session;
+        }
+    }
+
+    private Session load() {
+        String token = databaseHelper.getToken();
+        if (token == null) {
+            Log.d(TAG, "No saved session");
+            return Session.EMPTY;
+        }
+        Log.d(TAG, "Saved session loaded from SQLite");
+        return new Session(token, databaseHelper.getExpirationDate(), databaseHelper.getUserId(),
+                databaseHelper.getUsername(), true);
+    }
+
+    /**
+     * Save the token; persisted only if rememberMe, otherwise kept in memory for this process
+     */
+    public void saveToken(String token, String expirationDate, boolean rememberMe) {
+        synchronized (this) {
+            Session current = get();
+            session = new Session(token, expirationDate, current.userId, current.username, rememberMe);
+        }
+        if (rememberMe) {
+            persist(() -> databaseHelper.saveToken(token, expirationDate));
+        } else {
+            persist(databaseHelper::clearToken);
+        }
+        notifyChanged();
+    }
+
+    public void saveUserId(String userId) {
+        synchronized (this) {
+            Session current = get();
+            session = new Session(current.token, current.expirationDate, userId, current.username,
+                    current.remembered);
+        }
+        persist(() -> databaseHelper.saveUserId(userId));
+        notifyChanged();
+    }
+
+    public void saveUsername(String username) {
+        synchronized (this) {
+            Session current = get();
+            session = new Session(current.token, current.expirationDate, current.userId, username,
+                    current.remembered);
+        }
+        persist(() -> databaseHelper.saveUsername(username));
+        notifyChanged();
+    }
+
+    /**
+     * Forget the session in memory and in SQLite, and drop the cached HTTP responses
+     */
+    public void clear() {
+        synchronized (this) {
+            session = Session.EMPTY;
+        }
+        persist(() -> {
+            databaseHelper.clearToken();
+            HttpResponseCache.install(appContext).clear();
+        });
+        notifyChanged();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void persist(Runnable write) {
+        executor.write(() -> {
+            write.run();
+            return null;
+        }, null);
+    }
+
+    private void notifyChanged() {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Session current = session;
+        mainHandler.post(() -> {
+            for (Listener listener : listeners) {
+                listener.onSessionChanged(current);
+            }
+        });
+    }
+}
@@ -4,6 +4,9 @@ import android.content.Context;
 import android.widget.Toast;
 
 import com.example.androidchatproject.model.ApiError;
+import com.example.androidchatproject.network.CircuitOpenException;
+import com.example.androidchatproject.network.DeadlineExceededException;
+import com.example.androidchatproject.network.GsonProvider;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 
@@ -15,7 +18,7 @@ import java.util.Map;
  */
 public class ErrorHandler {
     
-    private static final Gson gson = new Gson();
+    private static final Gson gson = GsonProvider.getGson();
     
     // Mapa de códigos de error personalizados
     private static final Map<Integer, String> ERROR_MESSAGES = new HashMap<>();
@@ -121,7 +124,19 @@ public class ErrorHandler {
      * @param exception Excepción capturada
      */
     public static void showNetworkError(Context context, Exception exception) {
-        String message = "Error de conexión: " + exception.getMessage();
+        String message;
+        if (exception instanceof CircuitOpenException) {
+            // El servidor falló varias veces seguidas y se dejó de llamar por un momento
+            long seconds = (((CircuitOpenException) exception).getRetryInMillis() + 999) / 1000;
+            message = seconds > 0
+                    ? "El servidor no responde, intenta de nuevo en " + seconds + " s"
+                    : "El servidor no responde, intenta de nuevo en unos segundos";
+        } else if (exception instanceof DeadlineExceededException) {
+            // Se agotó el tiempo de la petición, incluidos los reintentos
+            message = "El servidor tardó demasiado en responder, intenta de nuevo";
+        } else {
+            message = "Error de conexión: " + exception.getMessage();
+        }
         Toast.makeText(context, message, Toast.LENGTH_LONG).show();
     }
 }
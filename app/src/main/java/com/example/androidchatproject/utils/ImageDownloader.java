@@ -7,13 +7,16 @@ import android.os.Environment;
 import android.util.Log;
 
 import com.example.androidchatproject.helper.ImageCacheHelper;
+import com.example.androidchatproject.network.HttpClient;
+import com.example.androidchatproject.network.HttpRequest;
+import com.example.androidchatproject.network.HttpResponse;
+import com.example.androidchatproject.network.RateLimiter;
+import com.example.androidchatproject.network.RequestDispatcher;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.HttpURLConnection;
-import java.net.URL;
 
 /**
  * Utilidad para descargar y guardar imágenes de perfil
@@ -42,7 +45,7 @@ public class ImageDownloader {
      * @param callback Callback con el resultado
      */
     public static void downloadAndSaveImage(Context context, String imageUrl, String fileName, DownloadCallback callback) {
-        new Thread(() -> {
+        RequestDispatcher.getInstance().execute(RequestDispatcher.Priority.BACKGROUND, () -> {
             try {
                 // Validar URL
                 if (imageUrl == null || imageUrl.isEmpty()) {
@@ -84,51 +87,32 @@ public class ImageDownloader {
                     );
                 }
             }
-        }).start();
+        });
     }
     
     /**
      * Descarga una imagen desde una URL y retorna un Bitmap
      */
     private static Bitmap downloadImage(String imageUrl) throws IOException {
-        HttpURLConnection connection = null;
-        InputStream inputStream = null;
+        HttpRequest request = new HttpRequest("GET", imageUrl)
+                .timeouts(CONNECT_TIMEOUT, READ_TIMEOUT)
+                .trafficClass(RateLimiter.TrafficClass.MEDIA);
         
-        try {
-            URL url = new URL(imageUrl);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setConnectTimeout(CONNECT_TIMEOUT);
-            connection.setReadTimeout(READ_TIMEOUT);
-            connection.setRequestMethod("GET");
-            connection.setDoInput(true);
-            connection.connect();
-            
-            int responseCode = connection.getResponseCode();
+        // Usa el transporte compartido (pool de conexiones keep-alive)
+        try (HttpResponse response = HttpClient.getDefaultTransport().execute(request)) {
+            int responseCode = response.getCode();
             
             if (responseCode != HttpURLConnection.HTTP_OK) {
                 throw new IOException("HTTP error code: " + responseCode);
             }
             
-            inputStream = connection.getInputStream();
-            Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
+            Bitmap bitmap = BitmapFactory.decodeStream(response.getBody());
             
             if (bitmap == null) {
                 throw new IOException("No se pudo decodificar la imagen");
             }
             
             return bitmap;
-            
-        } finally {
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    Log.e(TAG, "Error al cerrar InputStream", e);
-                }
-            }
-            if (connection != null) {
-                connection.disconnect();
-            }
         }
     }
     
@@ -216,7 +200,7 @@ public class ImageDownloader {
      */
     public static void loadImageWithCache(Context context, String imageUrl, String fileName, 
                                           int maxAgeInDays, DownloadCallback callback) {
-        new Thread(() -> {
+        RequestDispatcher.getInstance().execute(RequestDispatcher.Priority.BACKGROUND, () -> {
             try {
                 // Validar URL
                 if (imageUrl == null || imageUrl.isEmpty()) {
@@ -299,7 +283,7 @@ public class ImageDownloader {
                     );
                 }
             }
-        }).start();
+        });
     }
     
     /**
@@ -16,6 +16,7 @@ import androidx.work.WorkerParameters;
 import com.example.androidchatproject.ChatDetailActivity;
 import com.example.androidchatproject.R;
 import com.example.androidchatproject.network.ApiHttpClientChats;
+import com.example.androidchatproject.network.RequestDispatcher;
 import com.example.androidchatproject.session.SessionManager;
 import com.example.androidchatproject.helpers.NotificationHelper;
 import com.example.androidchatproject.model.chats.ChatItem;
@@ -68,7 +69,7 @@ public class MessagePollingWorker extends Worker {
             final boolean[] completed = {false};
             final boolean[] success = {false};
             
-            apiClient.getAllChats(token, new ApiHttpClientChats.ChatsListCallback() {
+            apiClient.getAllChats(token, RequestDispatcher.Priority.BACKGROUND, new ApiHttpClientChats.ChatsListCallback() {
                 @Override
                 public void onSuccess(ChatsListResponse response) {
                     if (response != null && response.getChats() != null) {
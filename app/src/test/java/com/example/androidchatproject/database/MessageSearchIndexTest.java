@@ -0,0 +1,61 @@
+package com.example.androidchatproject.database;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Consulta MATCH y ranking BM25 de la búsqueda de mensajes
+ */
+public class MessageSearchIndexTest {
+
+    @Test
+    public void matchExpressionQuotesEveryWordAsPrefix() {
+        assertEquals("\"hola\"* \"mañana\"*", MessageSearchIndex.matchExpression("  Hola, MAÑANA! "));
+        // Operadores y comillas del usuario no llegan como sintaxis FTS
+        assertEquals("\"foo\"* \"or\"* \"bar\"*", MessageSearchIndex.matchExpression("foo OR \"bar"));
+        assertEquals("\"near\"* \"x\"*", MessageSearchIndex.matchExpression("NEAR(x*)"));
+        assertNull(MessageSearchIndex.matchExpression(" -\"* "));
+        assertNull(MessageSearchIndex.matchExpression(null));
+    }
+
+    @Test
+    public void decodeMatchinfoReadsNativeOrderIntegers() {
+        ByteBuffer buffer = ByteBuffer.allocate(12).order(ByteOrder.nativeOrder());
+        buffer.putInt(1).putInt(70000).putInt(3);
+
+        assertArrayEquals(new int[]{1, 70000, 3}, MessageSearchIndex.decodeMatchinfo(buffer.array()));
+    }
+
+    @Test
+    public void bm25FavorsRareTermsAndRepeatedHitsInShortMessages() {
+        // 1 frase, 1 columna, 1000 filas, largo medio 10
+        double common = MessageSearchIndex.bm25(matchinfo(1000, 10, 10, 1, 500));
+        double rare = MessageSearchIndex.bm25(matchinfo(1000, 10, 10, 1, 5));
+        double repeated = MessageSearchIndex.bm25(matchinfo(1000, 10, 10, 3, 5));
+        double longMessage = MessageSearchIndex.bm25(matchinfo(1000, 10, 80, 1, 5));
+
+        assertTrue(rare > common);
+        assertTrue(repeated > rare);
+        assertTrue(rare > longMessage);
+        assertTrue(common > 0);
+    }
+
+    @Test
+    public void bm25AddsUpEveryPhrase() {
+        int[] one = matchinfo(100, 10, 10, 1, 10);
+        int[] two = {2, 1, 100, 10, 10, 1, 0, 10, 1, 0, 10};
+
+        assertEquals(2 * MessageSearchIndex.bm25(one), MessageSearchIndex.bm25(two), 1e-9);
+    }
+
+    /**
+     * matchinfo 'pcnalx' de una frase en una columna
+     */
+    private static int[] matchinfo(int rows, int averageLength, int length, int hits, int rowsWithHit) {
+        return new int[]{1, 1, rows, averageLength, length, hits, 0, rowsWithHit};
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.androidchatproject.helper;
+
+import com.example.androidchatproject.config.ApiConfig;
+import com.example.androidchatproject.model.chats.ChatDetailResponse;
+import com.example.androidchatproject.model.chats.MessageResponse;
+import com.example.androidchatproject.model.chats.SendMessageResponse;
+import com.example.androidchatproject.network.HttpClient;
+import com.example.androidchatproject.network.MockBackend;
+import com.example.androidchatproject.network.MockTransport;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Paginación de la ventana de mensajes: la API de MockBackend guarda en un almacenamiento
+ * en memoria (en lugar de la cache SQLite) y la ventana lee de ahí por páginas
+ */
+public class MessageWindowTest {
+
+    private static final String TOKEN = "Bearer mock-jwt";
+    private static final int PAGE_SIZE = 50;
+
+    @Test
+    public void opensOnLatestPageAndLoadsOlderOnDemand() throws Exception {
+        MockBackend backend = new MockBackend(1, 230);
+        String chatId = backend.getChatIds().get(0);
+        HttpClient client = new HttpClient(backend.install(new MockTransport()));
+        InMemoryMessageStore store = new InMemoryMessageStore();
+
+        List<MessageResponse> all = fetch(client, chatId).getMessages();
+        store.upsert(all);
+
+        MessageWindow window = new MessageWindow(store, PAGE_SIZE);
+        List<MessageResponse> latest = window.loadLatest();
+        assertEquals(PAGE_SIZE, latest.size());
+        assertEquals(ids(all.subList(180, 230)), ids(latest));
+        assertTrue(window.hasOlder());
+
+        // Todos los mensajes tienen el mismo created_at: las páginas no deben solaparse ni saltarse ninguno
+        assertEquals(PAGE_SIZE, window.loadOlder());
+        assertEquals(PAGE_SIZE, window.loadOlder());
+        assertEquals(PAGE_SIZE, window.loadOlder());
+        assertEquals(30, window.loadOlder());
+        assertFalse(window.hasOlder());
+        assertEquals(0, window.loadOlder());
+        assertEquals(ids(all), ids(window.getMessages()));
+    }
+
+    @Test
+    public void refreshKeepsLoadedPagesAndAppendsNewMessages() throws Exception {
+        MockBackend backend = new MockBackend(1, 120);
+        String chatId = backend.getChatIds().get(0);
+        HttpClient client = new HttpClient(backend.install(new MockTransport()));
+        InMemoryMessageStore store = new InMemoryMessageStore();
+        store.upsert(fetch(client, chatId).getMessages());
+
+        MessageWindow window = new MessageWindow(store, PAGE_SIZE);
+        window.loadLatest();
+        window.loadOlder();
+        assertEquals(100, window.size());
+
+        // Mensaje nuevo en el servidor: refrescar escribe solo esa fila y la ventana crece por el final
+        Map<String, Object> form = new HashMap<>();
+        form.put("chat_id", chatId);
+        form.put("content", "mock");
+        assertTrue(client.postMultipart(ApiConfig.BASE_URL + "api/chats/messages", form,
+                SendMessageResponse.class, TOKEN).isSuccess());
+        int written = store.upsert(fetch(client, chatId).getMessages());
+        assertEquals(1, written);
+
+        List<MessageResponse> refreshed = window.refresh();
+        assertEquals(101, refreshed.size());
+        assertEquals("mock", refreshed.get(100).getContent());
+        assertTrue(window.hasOlder());
+    }
+
+    @Test
+    public void worksOfflineFromTheStore() throws Exception {
+        MockBackend backend = new MockBackend(1, 70);
+        String chatId = backend.getChatIds().get(0);
+        InMemoryMessageStore store = new InMemoryMessageStore();
+        store.upsert(fetch(new HttpClient(backend.install(new MockTransport())), chatId).getMessages());
+
+        // Sin red: la API falla, la ventana se abre igual desde lo guardado
+        HttpClient offline = new HttpClient(new MockTransport().failures(1.0));
+        try {
+            fetch(offline, chatId);
+            fail("Expected a network error");
+        } catch (IOException expected) {
+            // Modo offline
+        }
+        MessageWindow window = new MessageWindow(store, PAGE_SIZE);
+        assertEquals(PAGE_SIZE, window.loadLatest().size());
+        assertEquals(20, window.loadOlder());
+        assertFalse(window.hasOlder());
+    }
+
+    private static ChatDetailResponse fetch(HttpClient client, String chatId) throws IOException {
+        return client.get(ApiConfig.BASE_URL + "api/chats/id/" + chatId + "/", ChatDetailResponse.class, TOKEN);
+    }
+
+    private static List<String> ids(List<MessageResponse> messages) {
+        List<String> ids = new ArrayList<>();
+        for (MessageResponse message : messages) {
+            ids.add(message.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Sustituto en memoria de la tabla messages: orden de inserción y escritura solo de filas nuevas o cambiadas
+     */
+    private static class InMemoryMessageStore implements MessageWindow.PageSource {
+        private final LinkedHashMap<String, MessageResponse> rows = new LinkedHashMap<>();
+
+        synchronized int upsert(List<MessageResponse> messages) {
+            int written = 0;
+            for (MessageResponse message : messages) {
+                MessageResponse existing = rows.get(message.getId());
+                if (existing == null || !existing.toString().equals(message.toString())) {
+                    rows.put(message.getId(), message);
+                    written++;
+                }
+            }
+            return written;
+        }
+
+        @Override
+        public synchronized List<MessageResponse> loadBefore(String beforeMessageId, int limit) {
+            List<MessageResponse> ordered = new ArrayList<>(rows.values());
+            int end = ordered.size();
+            if (beforeMessageId != null) {
+                end = indexOf(ordered, beforeMessageId);
+                if (end < 0) {
+                    return new ArrayList<>();
+                }
+            }
+            return new ArrayList<>(ordered.subList(Math.max(0, end - limit), end));
+        }
+
+        @Override
+        public synchronized List<MessageResponse> loadFrom(String fromMessageId) {
+            List<MessageResponse> ordered = new ArrayList<>(rows.values());
+            int start = indexOf(ordered, fromMessageId);
+            return start < 0 ? new ArrayList<>() : new ArrayList<>(ordered.subList(start, ordered.size()));
+        }
+
+        private static int indexOf(List<MessageResponse> ordered, String messageId) {
+            for (int i = 0; i < ordered.size(); i++) {
+                if (ordered.get(i).getId().equals(messageId)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.androidchatproject.network;
+
+import com.example.androidchatproject.config.ApiConfig;
+import com.example.androidchatproject.model.chats.ChatsListResponse;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Estados del circuit breaker a través de HttpClient
+ */
+public class CircuitBreakerTest {
+
+    private static final String TOKEN = "Bearer mock-jwt";
+    private static final String URL = ApiConfig.BASE_URL + "api/breaker-test/";
+    private static final String ENDPOINT = "GET api/breaker-test/";
+
+    @Test
+    public void runtimeExceptionDuringProbeReleasesHalfOpen() throws Exception {
+        CircuitBreaker breaker = CircuitBreaker.register(ENDPOINT, 1, 50);
+        MockTransport backend = new MockTransport()
+                .on("GET", "api/breaker-test/", MockResponse.json(200, "{\"chats\": []}"));
+        AtomicReference<RuntimeException> crash = new AtomicReference<>();
+        HttpClient client = new HttpClient(request -> {
+            RuntimeException e = crash.get();
+            if (e != null) {
+                throw e;
+            }
+            return backend.execute(request);
+        });
+        client.setRetryPolicy(RetryPolicy.NONE);
+
+        // Un fallo abre el circuito
+        HttpClient failing = new HttpClient(request -> {
+            throw new IOException("connection reset");
+        });
+        failing.setRetryPolicy(RetryPolicy.NONE);
+        try {
+            failing.get(URL, ChatsListResponse.class, TOKEN);
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // Fallo de red
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // La prueba de HALF_OPEN revienta con un RuntimeException (ej: URL inválida)
+        Thread.sleep(80);
+        crash.set(new IllegalArgumentException("unexpected url"));
+        try {
+            client.get(URL, ChatsListResponse.class, TOKEN);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // Se propaga tal cual
+        }
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // La prueba quedó liberada: la siguiente petición sale a la red y cierra el circuito
+        crash.set(null);
+        assertNotNull(client.get(URL, ChatsListResponse.class, TOKEN).getChats());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getRejectedCount());
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.androidchatproject.network;
+
+import com.example.androidchatproject.model.chats.ChatDetailResponse;
+import com.example.androidchatproject.model.chats.ChatItem;
+import com.example.androidchatproject.model.chats.ChatsListResponse;
+import com.example.androidchatproject.model.chats.MessageResponse;
+import com.example.androidchatproject.model.user.UserListItem;
+import com.example.androidchatproject.model.user.UsersListResponse;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Equivalencia y rendimiento de los TypeAdapters de JsonAdapters frente al binding reflexivo
+ * Compara la decodificación antes (GSON reflexivo) y después (GsonProvider); en régimen estable
+ * rinden parecido, así que solo se exige que los adapters no queden muy por detrás
+ */
+public class JsonAdaptersBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 300;
+    private static final int MEASURED_ROUNDS = 300;
+    private static final int TRIALS = 5;
+    // Margen para el ruido de medición en régimen estable
+    private static final double MIN_THROUGHPUT_RATIO = 0.5;
+
+    private final Gson reflective = new GsonBuilder().setLenient().create();
+    private final Gson shared = GsonProvider.getGson();
+
+    @Test
+    public void adaptersDecodeTheSameAsReflection() {
+        String chatsJson = reflective.toJson(chatList(50));
+        assertEquals(reflective.fromJson(chatsJson, ChatsListResponse.class).getChats().toString(),
+                shared.fromJson(chatsJson, ChatsListResponse.class).getChats().toString());
+
+        ChatDetailResponse detail = chatDetail(50);
+        String detailJson = reflective.toJson(detail);
+        ChatDetailResponse decoded = shared.fromJson(detailJson, ChatDetailResponse.class);
+        assertEquals(detail.toString(), decoded.toString());
+        assertEquals(detail.getMessages().toString(), decoded.getMessages().toString());
+
+        String usersJson = reflective.toJson(userList(50));
+        assertEquals(reflective.fromJson(usersJson, UsersListResponse.class).getUsers().toString(),
+                shared.fromJson(usersJson, UsersListResponse.class).getUsers().toString());
+
+        // Lo que escribe la cache se lee igual con reflexión
+        String messagesJson = shared.toJson(detail.getMessages(), GsonProvider.MESSAGE_LIST_TYPE);
+        List<MessageResponse> messages = shared.fromJson(messagesJson, GsonProvider.MESSAGE_LIST_TYPE);
+        assertEquals(detail.getMessages().toString(), messages.toString());
+        assertEquals(messagesJson, reflective.toJson(detail.getMessages()));
+    }
+
+    @Test
+    public void adaptersToleratesUnknownFieldsNullsAndLooseTypes() {
+        String json = "{\"id\":\"c1\",\"extra\":{\"a\":[1,2]},\"username\":null,"
+                + "\"messages\":[{\"id\":7,\"is_deleted\":\"true\",\"content\":null},null]}";
+        ChatDetailResponse detail = shared.fromJson(json, ChatDetailResponse.class);
+        assertEquals("c1", detail.getId());
+        assertNull(detail.getUsername());
+        assertEquals(2, detail.getMessages().size());
+        assertEquals("7", detail.getMessages().get(0).getId());
+        assertTrue(detail.getMessages().get(0).isDeleted());
+        assertNull(detail.getMessages().get(1));
+    }
+
+    @Test
+    public void firstDecodeBeforeAndAfter() {
+        String detailJson = reflective.toJson(chatDetail(100));
+        // Instancias nuevas: la primera decodificación incluye resolver los adapters.
+        // Los adapters van primero para que paguen ellos la carga de clases compartidas
+        long start = System.nanoTime();
+        assertNotNull(JsonAdapters.register(new GsonBuilder()).create().fromJson(detailJson, ChatDetailResponse.class));
+        double after = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        assertNotNull(new GsonBuilder().create().fromJson(detailJson, ChatDetailResponse.class));
+        double before = (System.nanoTime() - start) / 1e6;
+        // Los adapters no resuelven los campos por reflexión en la primera decodificación
+        assertTrue(String.format(Locale.US, "First ChatDetailResponse decode: reflective=%.2f ms adapters=%.2f ms",
+                before, after), after < before);
+    }
+
+    @Test
+    public void decodeThroughputBeforeAndAfter() {
+        String chatsJson = reflective.toJson(chatList(200));
+        String detailJson = reflective.toJson(chatDetail(500));
+        String usersJson = reflective.toJson(userList(200));
+
+        assertThroughput("ChatsListResponse (200 chats)", chatsJson, ChatsListResponse.class);
+        assertThroughput("ChatDetailResponse (500 messages)", detailJson, ChatDetailResponse.class);
+        assertThroughput("UsersListResponse (200 users)", usersJson, UsersListResponse.class);
+    }
+
+    /**
+     * Mejor resultado de varias pasadas alternadas, para que el JIT no favorezca a uno de los dos
+     */
+    private void assertThroughput(String label, String json, Class<?> type) {
+        warmUp(reflective, json, type);
+        warmUp(shared, json, type);
+        double before = 0;
+        double after = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            before = Math.max(before, throughput(reflective, json, type));
+            after = Math.max(after, throughput(shared, json, type));
+        }
+        assertTrue(String.format(Locale.US, "%s: reflective=%.1f MB/s adapters=%.1f MB/s (x%.2f)",
+                label, before, after, after / before), after >= before * MIN_THROUGHPUT_RATIO);
+    }
+
+    private static void warmUp(Gson gson, String json, Class<?> type) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            assertNotNull(gson.fromJson(json, type));
+        }
+    }
+
+    private static double throughput(Gson gson, String json, Class<?> type) {
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            assertNotNull(gson.fromJson(json, type));
+        }
+        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        double megabytes = json.getBytes(StandardCharsets.UTF_8).length * (double) MEASURED_ROUNDS / (1024 * 1024);
+        return megabytes / seconds;
+    }
+
+    private static ChatsListResponse chatList(int count) {
+        List<ChatItem> chats = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            chats.add(new ChatItem("chat-" + i, "user-" + i, "usuario" + i, "https://img/" + i + ".jpg",
+                    "Último mensaje número " + i, "msg-" + i, "2025-01-01T10:00:" + (i % 60) + "Z",
+                    "2024-12-01T10:00:00Z", "2025-01-01T10:00:00Z"));
+        }
+        return new ChatsListResponse(chats);
+    }
+
+    private static ChatDetailResponse chatDetail(int count) {
+        List<MessageResponse> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new MessageResponse("msg-" + i, i % 2 == 0 ? "user-a" : "user-b",
+                    "Mensaje de prueba \"" + i + "\" con acentos: canción", i % 10 == 0 ? "https://files/" + i : null,
+                    i % 10 == 0 ? "image/jpeg" : null, i % 50 == 0, "2025-01-01T10:00:00Z", "2025-01-01T10:00:00Z"));
+        }
+        return new ChatDetailResponse("chat-1", "user-b", "usuario", "https://img/1.jpg", messages,
+                "2024-12-01T10:00:00Z", "2025-01-01T10:00:00Z");
+    }
+
+    private static UsersListResponse userList(int count) {
+        List<UserListItem> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(new UserListItem("usuario" + i, "user-" + i, "https://img/" + i + ".jpg"));
+        }
+        UsersListResponse response = new UsersListResponse();
+        response.setUsers(users);
+        return response;
+    }
+}
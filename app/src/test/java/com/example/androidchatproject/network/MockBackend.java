@@ -0,0 +1,162 @@
+package com.example.androidchatproject.network;
+
+import com.google.gson.Gson;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Backend falso con respuestas para todos los endpoints de ApiHttpClientChats y ApiHttpClientUser
+ * Guarda estado mínimo: los mensajes enviados aparecen en el detalle del chat
+ * y los chats creados en la lista.
+ */
+public class MockBackend {
+
+    private static final Pattern CHAT_ID_FIELD = Pattern.compile("name=\"chat_id\"\r\n\r\n([^\r]*)\r\n");
+    private static final String VALID_UNTIL = "2030-01-01T00:00:00Z";
+
+    private final Gson gson = new Gson();
+    private final Map<String, Map<String, Object>> chats = new LinkedHashMap<>();
+    private final Map<String, List<Map<String, Object>>> messages = new LinkedHashMap<>();
+    private final AtomicInteger sentMessages = new AtomicInteger();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * @param chatCount Chats iniciales
+     * @param messagesPerChat Mensajes iniciales de cada chat
+     */
+    public MockBackend(int chatCount, int messagesPerChat) {
+        for (int i = 0; i < chatCount; i++) {
+            String chatId = createChat("user" + i);
+            for (int j = 0; j < messagesPerChat; j++) {
+                addMessage(chatId, "Mensaje " + j + " del chat " + i);
+            }
+        }
+    }
+
+    /**
+     * Registra todos los endpoints en el transporte
+     */
+    public MockTransport install(MockTransport transport) {
+        // Chats
+        transport.on("GET", "api/chats/all/", (request, body) -> json(chatList()));
+        transport.on("POST", "api/chats/", (request, body) -> {
+            String chatId = createChat("new-user");
+            return json(map("success", true, "chat_id", chatId));
+        });
+        transport.on("GET", "api/chats/id/{id}/", (request, body) -> {
+            String chatId = lastSegment(request.getUrl());
+            Map<String, Object> detail = chatDetail(chatId);
+            return detail != null ? json(detail) : MockResponse.json(404, "{\"detail\":\"Chat not found\"}");
+        });
+        transport.on("POST", "api/chats/messages", (request, body) -> {
+            Matcher matcher = CHAT_ID_FIELD.matcher(new String(body, StandardCharsets.ISO_8859_1));
+            if (!matcher.find() || !addMessage(matcher.group(1), "mock")) {
+                return MockResponse.json(400, "{\"detail\":\"Invalid chat_id\"}");
+            }
+            sentMessages.incrementAndGet();
+            return json(map("success", true));
+        });
+
+        // Usuarios y sesión
+        transport.on("POST", "api/users/", MockResponse.json(200, "{\"success\":true}"));
+        transport.on("POST", "api/users/login",
+                json(map("jwt", "mock-jwt", "expirationDate", VALID_UNTIL)));
+        transport.on("POST", "api/users//logout", MockResponse.json(200, "{\"success\":true}"));
+        transport.on("POST", "api/users/sessions/validate", json(map("valid", true, "validUntil", VALID_UNTIL)));
+        // Mismo endpoint para enviar y reenviar el código: EmailVerificationResponse y ResendVerificationResponse
+        transport.on("POST", "api/users/email/verify",
+                json(map("valid", true, "success", true, "validUntil", VALID_UNTIL)));
+        transport.on("POST", "api/users/email/verify/validate", MockResponse.json(200, "{\"valid\":true}"));
+        transport.on("GET", "api/users/", json(map("id", "mock-user", "username", "mock",
+                "email_is_verified", true, "profile_image_url", null)));
+        transport.on("POST", "api/users/upload/profile/image", MockResponse.json(200, "{\"valid\":true}"));
+        transport.on("POST", "api/users/password/reset",
+                json(map("valid_until", VALID_UNTIL, "token", "reset-token", "id", "reset-id")));
+        transport.on("PUT", "api/users/password/reset/confirm", MockResponse.json(200, "{\"success\":true}"));
+        transport.on("GET", "api/users/all/", (request, body) -> {
+            List<Object> users = new ArrayList<>();
+            synchronized (this) {
+                for (Map<String, Object> chat : chats.values()) {
+                    users.add(map("username", chat.get("username"), "user_id", chat.get("user"),
+                            "profile_image_url", null));
+                }
+            }
+            return json(map("users", users));
+        });
+        return transport;
+    }
+
+    /**
+     * Mensajes recibidos por POST api/chats/messages
+     */
+    public int getSentMessageCount() {
+        return sentMessages.get();
+    }
+
+    public synchronized List<String> getChatIds() {
+        return new ArrayList<>(chats.keySet());
+    }
+
+    private synchronized String createChat(String username) {
+        String chatId = String.format(Locale.US, "%024x", nextId.incrementAndGet());
+        chats.put(chatId, map("id", chatId, "user", "id-" + username, "username", username,
+                "profile_img", null, "last_message", null, "last_message_id", null,
+                "last_message_time", null, "created_at", VALID_UNTIL, "updated_at", VALID_UNTIL));
+        messages.put(chatId, new ArrayList<>());
+        return chatId;
+    }
+
+    private synchronized boolean addMessage(String chatId, String content) {
+        List<Map<String, Object>> chatMessages = messages.get(chatId);
+        if (chatMessages == null) {
+            return false;
+        }
+        String messageId = String.format(Locale.US, "%024x", nextId.incrementAndGet());
+        chatMessages.add(map("id", messageId, "sender_id", "mock-user", "content", content,
+                "attachment_url", null, "mime_type", null, "is_deleted", false,
+                "created_at", VALID_UNTIL, "updated_at", VALID_UNTIL));
+        Map<String, Object> chat = chats.get(chatId);
+        chat.put("last_message", content);
+        chat.put("last_message_id", messageId);
+        return true;
+    }
+
+    private synchronized Map<String, Object> chatList() {
+        return map("chats", new ArrayList<>(chats.values()));
+    }
+
+    private synchronized Map<String, Object> chatDetail(String chatId) {
+        Map<String, Object> chat = chats.get(chatId);
+        if (chat == null) {
+            return null;
+        }
+        Map<String, Object> detail = new LinkedHashMap<>(chat);
+        detail.put("messages", new ArrayList<>(messages.get(chatId)));
+        return detail;
+    }
+
+    private MockResponse json(Object value) {
+        return MockResponse.json(200, gson.toJson(value));
+    }
+
+    private static String lastSegment(String url) {
+        String path = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static Map<String, Object> map(Object... keyValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            map.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.androidchatproject.network;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Respuesta enlatada de MockTransport
+ */
+public class MockResponse {
+
+    final int code;
+    final Map<String, List<String>> headers = new LinkedHashMap<>();
+    final byte[] body;
+
+    public MockResponse(int code, byte[] body) {
+        this.code = code;
+        this.body = body != null ? body : new byte[0];
+    }
+
+    public static MockResponse json(int code, String json) {
+        return new MockResponse(code, json.getBytes(StandardCharsets.UTF_8))
+                .header("Content-Type", "application/json");
+    }
+
+    public MockResponse header(String name, String value) {
+        headers.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        return this;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.androidchatproject.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transporte en memoria para tests: respuestas enlatadas o grabadas por endpoint
+ * Simula la red con latencia (base + jitter), ancho de banda en ambos sentidos,
+ * errores de conexión y respuestas de error inyectadas. Respeta los timeouts de lectura
+ * y de llamada de la petición y la cancelación con RequestHandle.
+ * Los valores aleatorios salen de un Random con semilla, para que las pruebas sean repetibles.
+ */
+public class MockTransport implements HttpTransport {
+
+    /**
+     * Genera la respuesta de una petición (ej: según el cuerpo recibido)
+     */
+    public interface Responder {
+        MockResponse respond(HttpRequest request, byte[] requestBody) throws IOException;
+    }
+
+    private static final long SLEEP_STEP_MILLIS = 10;
+
+    private final Map<String, Responder> routes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final Random random;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private volatile long latencyMillis;
+    private volatile long latencyJitterMillis;
+    private volatile double tailRate;
+    private volatile long tailLatencyMillis;
+    private volatile long bytesPerSecond;
+    private volatile double failureRate;
+    private volatile double errorRate;
+    private volatile int errorCode = 503;
+
+    public MockTransport() {
+        this(42);
+    }
+
+    public MockTransport(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Respuesta fija para un endpoint; path admite plantillas (ej: "api/chats/id/{id}/")
+     */
+    public MockTransport on(String method, String path, MockResponse response) {
+        return on(method, path, (request, body) -> response);
+    }
+
+    public MockTransport on(String method, String path, Responder responder) {
+        routes.put(EndpointTemplate.of(method, path), responder);
+        return this;
+    }
+
+    /**
+     * Espera antes de la respuesta: base más un valor uniforme en [0, jitter]
+     */
+    public MockTransport latency(long baseMillis, long jitterMillis) {
+        this.latencyMillis = baseMillis;
+        this.latencyJitterMillis = jitterMillis;
+        return this;
+    }
+
+    /**
+     * Latencia de cola: una fracción de las peticiones tarda tailMillis en vez de la latencia normal
+     */
+    public MockTransport tail(double rate, long tailMillis) {
+        this.tailRate = rate;
+        this.tailLatencyMillis = tailMillis;
+        return this;
+    }
+
+    /**
+     * Ancho de banda del enlace en bytes/s (0 = ilimitado)
+     */
+    public MockTransport bandwidth(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * Fracción de peticiones que fallan con un error de conexión
+     */
+    public MockTransport failures(double rate) {
+        this.failureRate = rate;
+        return this;
+    }
+
+    /**
+     * Fracción de peticiones que el "servidor" responde con el código indicado (ej: 503)
+     */
+    public MockTransport errors(double rate, int code) {
+        this.errorRate = rate;
+        this.errorCode = code;
+        return this;
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        String endpoint = EndpointTemplate.of(request.getMethod(), request.getUrl());
+        requestCounts.computeIfAbsent(endpoint, key -> new AtomicInteger()).incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            return respond(endpoint, request);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private HttpResponse respond(String endpoint, HttpRequest request) throws IOException {
+        long startNanos = System.nanoTime();
+        RequestHandle handle = RequestHandle.current();
+        if (handle != null) {
+            handle.throwIfCancelled();
+        }
+
+        long latency;
+        boolean fail;
+        boolean error;
+        synchronized (random) {
+            latency = latencyMillis + (latencyJitterMillis > 0 ? (long) (random.nextDouble() * latencyJitterMillis) : 0);
+            if (random.nextDouble() < tailRate) {
+                latency = tailLatencyMillis;
+            }
+            fail = random.nextDouble() < failureRate;
+            error = random.nextDouble() < errorRate;
+        }
+
+        // Subida del cuerpo al ritmo del enlace
+        byte[] requestBody = new byte[0];
+        HttpBody body = request.getBody();
+        if (body != null) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (OutputStream out = new ThrottledOutputStream(buffer, bytesPerSecond, handle)) {
+                body.writeTo(out);
+            }
+            requestBody = buffer.toByteArray();
+        }
+
+        // Espera por la respuesta, cortada por el timeout de lectura o de la llamada
+        long limit = timeoutMillis(request);
+        if (limit > 0 && latency > limit) {
+            sleep(limit, handle);
+            throw limit == request.getCallTimeoutMillis()
+                    ? new InterruptedIOException("timeout")
+                    : new SocketTimeoutException("timeout");
+        }
+        sleep(latency, handle);
+
+        if (fail) {
+            throw new IOException("Connection reset (injected)");
+        }
+
+        MockResponse response;
+        if (error) {
+            response = MockResponse.json(errorCode, "{\"detail\":\"injected error\"}");
+        } else {
+            Responder responder = routes.get(endpoint);
+            response = responder != null
+                    ? responder.respond(request, requestBody)
+                    : MockResponse.json(404, "{\"detail\":\"no mock for " + endpoint + "\"}");
+        }
+
+        // Lo que mediría OkHttpTransport, para que las políticas adaptativas vean la latencia simulada
+        CallTimings timings = new CallTimings();
+        timings.ttfbNanos = System.nanoTime() - startNanos;
+        timings.requestBytes = requestBody.length;
+        timings.responseBytes = response.body.length;
+
+        Map<String, List<String>> headers = new LinkedHashMap<>(response.headers);
+        headers.put("Content-Length", Collections.singletonList(String.valueOf(response.body.length)));
+        InputStream responseBody = new ThrottledInputStream(
+                new ByteArrayInputStream(response.body), bytesPerSecond, handle);
+        return new HttpResponse(response.code, "Mock " + response.code,
+                headers, responseBody, responseBody).timings(timings);
+    }
+
+    private static long timeoutMillis(HttpRequest request) {
+        long read = request.getReadTimeoutMillis();
+        long call = request.getCallTimeoutMillis();
+        if (read > 0 && call > 0) {
+            return Math.min(read, call);
+        }
+        return Math.max(read, call);
+    }
+
+    /**
+     * Duerme en pasos cortos para poder abortar si se cancela el handle
+     */
+    private static void sleep(long millis, RequestHandle handle) throws IOException {
+        long end = System.nanoTime() + millis * 1_000_000L;
+        long remaining;
+        while ((remaining = end - System.nanoTime()) > 0) {
+            if (handle != null && handle.isCancelled()) {
+                if (!handle.wasAborted()) {
+                    CancellationStats.getInstance().recordAbortedCall();
+                }
+                throw new IOException("Canceled");
+            }
+            try {
+                Thread.sleep(Math.min(SLEEP_STEP_MILLIS, Math.max(1, remaining / 1_000_000L)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    /**
+     * Peticiones recibidas por un endpoint (plantilla, ej: "GET api/chats/all/")
+     */
+    public int getRequestCount(String endpoint) {
+        AtomicInteger count = requestCounts.get(endpoint);
+        return count != null ? count.get() : 0;
+    }
+
+    public int getTotalRequestCount() {
+        int total = 0;
+        for (AtomicInteger count : requestCounts.values()) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    /**
+     * Máximo de peticiones simultáneas observado
+     */
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    /**
+     * Limita el ritmo de bytes a bytesPerSecond durmiendo lo necesario
+     */
+    private static final class Throttle {
+        private final long bytesPerSecond;
+        private final RequestHandle handle;
+        private final long startNanos = System.nanoTime();
+        private long bytes;
+
+        Throttle(long bytesPerSecond, RequestHandle handle) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.handle = handle;
+        }
+
+        void onBytes(long count) throws IOException {
+            if (bytesPerSecond <= 0 || count <= 0) {
+                return;
+            }
+            bytes += count;
+            long dueNanos = bytes * 1_000_000_000L / bytesPerSecond;
+            long aheadNanos = dueNanos - (System.nanoTime() - startNanos);
+            if (aheadNanos > 0) {
+                sleep(aheadNanos / 1_000_000L, handle);
+            }
+        }
+    }
+
+    private static final class ThrottledOutputStream extends FilterOutputStream {
+        private final Throttle throttle;
+
+        ThrottledOutputStream(OutputStream out, long bytesPerSecond, RequestHandle handle) {
+            super(out);
+            this.throttle = new Throttle(bytesPerSecond, handle);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            throttle.onBytes(1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            throttle.onBytes(length);
+        }
+    }
+
+    private static final class ThrottledInputStream extends FilterInputStream {
+        private final Throttle throttle;
+
+        ThrottledInputStream(InputStream in, long bytesPerSecond, RequestHandle handle) {
+            super(in);
+            this.throttle = new Throttle(bytesPerSecond, handle);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                throttle.onBytes(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            throttle.onBytes(count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.androidchatproject.network;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Formato y longitud exacta de los cuerpos multipart
+ */
+public class MultipartBodyTest {
+
+    @Test
+    public void contentLengthMatchesWrittenBytes() throws Exception {
+        byte[] image = new byte[20000];
+        MultipartBody body = new MultipartBody("test-boundary")
+                .field("chat_id", "abc")
+                .field("content", "hola ñandú")
+                .file("attachment", new HttpClient.FileData(image, "foto.jpg", "image/jpeg"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        assertEquals(body.contentLength(), out.size());
+
+        // Un reintento escribe exactamente los mismos bytes
+        ByteArrayOutputStream retry = new ByteArrayOutputStream();
+        body.writeTo(retry);
+        assertArrayEquals(out.toByteArray(), retry.toByteArray());
+
+        String text = new String(out.toByteArray(), StandardCharsets.ISO_8859_1);
+        assertTrue(text.startsWith("--test-boundary\r\nContent-Disposition: form-data; name=\"chat_id\"\r\n\r\nabc\r\n"));
+        assertTrue(text.contains("name=\"attachment\"; filename=\"foto.jpg\"\r\nContent-Type: image/jpeg\r\n\r\n"));
+        assertTrue(text.endsWith("\r\n--test-boundary--\r\n"));
+        assertEquals("multipart/form-data; boundary=test-boundary", body.contentType());
+    }
+
+    @Test
+    public void streamedFileOfUnknownSizeIsSentChunked() throws Exception {
+        byte[] data = new byte[50000];
+        MultipartBody body = new MultipartBody()
+                .field("chat_id", "abc")
+                .file("attachment", new HttpClient.FileData(() -> new ByteArrayInputStream(data), -1,
+                        "nota.m4a", MultipartBody.mimeTypeFor("nota.m4a")));
+
+        assertEquals(-1, body.contentLength());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        assertTrue(out.size() > data.length);
+        assertTrue(new String(out.toByteArray(), StandardCharsets.ISO_8859_1).contains("Content-Type: audio/mp4"));
+    }
+
+    @Test
+    public void streamedFileOfUnknownSizeStopsAtMaxLength() throws Exception {
+        byte[] data = new byte[50000];
+        MultipartBody body = new MultipartBody()
+                .file("attachment", new HttpClient.FileData(() -> new ByteArrayInputStream(data), -1,
+                        40000, "video.mp4", "video/mp4"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            body.writeTo(out);
+            fail("Expected IOException past the maximum size");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("40000"));
+        }
+        // Se corta antes de enviar el trozo que pasaría el límite
+        assertTrue(out.size() < 40000 + 1000);
+
+        // Un archivo justo en el límite se envía completo
+        MultipartBody exact = new MultipartBody()
+                .file("attachment", new HttpClient.FileData(() -> new ByteArrayInputStream(data), -1,
+                        data.length, "video.mp4", "video/mp4"));
+        ByteArrayOutputStream exactOut = new ByteArrayOutputStream();
+        exact.writeTo(exactOut);
+        assertTrue(exactOut.size() > data.length);
+    }
+
+    @Test
+    public void quotesInNamesDoNotBreakHeaders() throws Exception {
+        MultipartBody body = new MultipartBody("b")
+                .file("image", new HttpClient.FileData(new byte[1], "mi \"foto\"\r\n.png", "image/png"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        String text = new String(out.toByteArray(), StandardCharsets.ISO_8859_1);
+        assertTrue(text.contains("filename=\"mi %22foto%22%0D%0A.png\"\r\n"));
+        assertEquals(body.contentLength(), out.size());
+    }
+}
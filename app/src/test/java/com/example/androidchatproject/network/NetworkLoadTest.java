@@ -0,0 +1,282 @@
+package com.example.androidchatproject.network;
+
+import com.example.androidchatproject.config.ApiConfig;
+import com.example.androidchatproject.model.chats.ChatDetailResponse;
+import com.example.androidchatproject.model.chats.ChatsListResponse;
+import com.example.androidchatproject.model.chats.SendMessageResponse;
+import com.example.androidchatproject.model.user.UserProfileResponse;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de carga sin red: los flujos de polling, abrir chat y enviar mensaje
+ * contra MockBackend, con latencia, ancho de banda y fallos inyectados
+ */
+public class NetworkLoadTest {
+
+    private static final String TOKEN = "Bearer mock-jwt";
+    private static final String CHATS_URL = ApiConfig.BASE_URL + "api/chats/all/";
+    private static final String MESSAGES_URL = ApiConfig.BASE_URL + "api/chats/messages";
+
+    @Test
+    public void mixedFlowsSurviveInjectedFailures() throws Exception {
+        MockBackend backend = new MockBackend(20, 30);
+        MockTransport transport = backend.install(new MockTransport(7)
+                .latency(20, 40)
+                .failures(0.03)
+                .errors(0.03, 503));
+        HttpClient client = new HttpClient(transport);
+        List<String> chatIds = backend.getChatIds();
+
+        int polls = 150;
+        int opens = 60;
+        int sends = 30;
+        CountDownLatch done = new CountDownLatch(polls + opens + sends);
+        AtomicInteger readFailures = new AtomicInteger();
+        AtomicInteger sendSuccesses = new AtomicInteger();
+        RequestDispatcher dispatcher = RequestDispatcher.getInstance();
+
+        for (int i = 0; i < polls + opens + sends; i++) {
+            int n = i;
+            if (n < polls) {
+                dispatcher.execute(RequestDispatcher.Priority.BACKGROUND, () -> {
+                    try {
+                        assertNotNull(client.get(CHATS_URL, ChatsListResponse.class, TOKEN).getChats());
+                    } catch (IOException e) {
+                        readFailures.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            } else if (n < polls + opens) {
+                String chatId = chatIds.get(n % chatIds.size());
+                dispatcher.execute(RequestDispatcher.Priority.INTERACTIVE, () -> {
+                    try {
+                        ChatDetailResponse detail = client.get(ApiConfig.BASE_URL + "api/chats/id/" + chatId + "/",
+                                ChatDetailResponse.class, TOKEN);
+                        assertEquals(chatId, detail.getId());
+                    } catch (IOException e) {
+                        readFailures.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            } else {
+                String chatId = chatIds.get(n % chatIds.size());
+                dispatcher.execute(RequestDispatcher.Priority.INTERACTIVE, () -> {
+                    try {
+                        Map<String, Object> form = new HashMap<>();
+                        form.put("chat_id", chatId);
+                        form.put("content", "hola " + n);
+                        if (client.postMultipart(MESSAGES_URL, form, SendMessageResponse.class, TOKEN).isSuccess()) {
+                            sendSuccesses.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        // Los envíos no se reintentan: un fallo inyectado se pierde
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+        }
+
+        assertTrue("Load test did not finish", done.await(60, TimeUnit.SECONDS));
+        assertMetricsRecorded("GET api/chats/all/", "GET api/chats/id/{id}/", "POST api/chats/messages");
+
+        // Las lecturas se reintentan: casi ninguna falla con un 6% de fallos por intento
+        assertTrue("Too many failed reads: " + readFailures.get(), readFailures.get() <= 2);
+        // Los envíos no: nunca se duplican y la mayoría llega
+        assertEquals(sendSuccesses.get(), backend.getSentMessageCount());
+        assertTrue("Too few messages sent: " + sendSuccesses.get(), sendSuccesses.get() >= sends * 2 / 3);
+        assertEquals(sends, transport.getRequestCount("POST api/chats/messages"));
+        assertTrue(transport.getMaxInFlight() > 1);
+    }
+
+    @Test
+    public void attachmentUploadIsPacedByBandwidth() throws Exception {
+        MockBackend backend = new MockBackend(1, 0);
+        MockTransport transport = backend.install(new MockTransport().bandwidth(256 * 1024));
+        HttpClient client = new HttpClient(transport);
+
+        Map<String, Object> form = new HashMap<>();
+        form.put("chat_id", backend.getChatIds().get(0));
+        form.put("content", "foto");
+        form.put("attachment", new HttpClient.FileData(new byte[128 * 1024], "foto.jpg", "image/jpeg"));
+
+        long start = System.nanoTime();
+        SendMessageResponse response = client.postMultipart(MESSAGES_URL, form, SendMessageResponse.class, TOKEN);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(response.isSuccess());
+        // 128 KB a 256 KB/s: al menos medio segundo, sin que los timeouts de subida lo corten
+        assertTrue("Upload too fast: " + elapsedMillis + " ms", elapsedMillis >= 450);
+        assertEquals(1, backend.getSentMessageCount());
+    }
+
+    @Test
+    public void stalledPollFailsWithinDeadline() {
+        MockTransport transport = new MockBackend(1, 0).install(new MockTransport().latency(3000, 0));
+        HttpClient client = new HttpClient(transport);
+        client.setTimeoutPolicy(new TimeoutPolicy()
+                .setProfile("GET api/chats/all/", new TimeoutProfile(500, 300, 300, 500, 1000, 0)));
+
+        long start = System.nanoTime();
+        try {
+            client.get(CHATS_URL, ChatsListResponse.class, TOKEN);
+            fail("Expected a timeout");
+        } catch (SocketTimeoutException expected) {
+            // Timeout del último intento o deadline agotado
+        } catch (IOException e) {
+            fail("Unexpected error: " + e);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Poll took " + elapsedMillis + " ms", elapsedMillis < 1500);
+        assertTrue(transport.getRequestCount("GET api/chats/all/") >= 1);
+    }
+
+    @Test
+    public void hedgingCutsTailLatencyWithinBudget() throws Exception {
+        MockBackend backend = new MockBackend(5, 10);
+        MockTransport transport = backend.install(new MockTransport(11)
+                .latency(10, 20)
+                .tail(0.05, 1500));
+        String detailUrl = ApiConfig.BASE_URL + "api/chats/id/" + backend.getChatIds().get(0) + "/";
+
+        // Latencias del endpoint para calcular el p90
+        HttpClient warmup = new HttpClient(transport);
+        for (int i = 0; i < 30; i++) {
+            warmup.get(detailUrl, ChatDetailResponse.class, TOKEN);
+        }
+
+        HedgingPolicy hedging = new HedgingPolicy(0.9, 0.1, 5).hedge("GET api/chats/id/{id}/");
+        HttpClient client = new HttpClient(transport);
+        client.setHedgingPolicy(hedging);
+        int before = transport.getRequestCount("GET api/chats/id/{id}/");
+        CancellationStats cancellations = CancellationStats.getInstance();
+        long cancelledBefore = cancellations.getCancelledCount();
+        long abortedBefore = cancellations.getAbortedCallCount();
+
+        int requests = 100;
+        for (int i = 0; i < requests; i++) {
+            assertNotNull(client.get(detailUrl, ChatDetailResponse.class, TOKEN).getId());
+        }
+
+        assertEquals(requests, hedging.getEligibleCount());
+        assertTrue("No request was hedged", hedging.getHedgedCount() > 0);
+        assertTrue("No hedge won", hedging.getHedgeWinCount() > 0);
+        // Presupuesto: como mucho un 10% de duplicados más la ráfaga inicial
+        assertTrue(hedging.getHedgedCount() <= requests / 10 + 5);
+        assertEquals(requests + hedging.getHedgedCount(),
+                transport.getRequestCount("GET api/chats/id/{id}/") - before);
+        // Abortar al perdedor no es una cancelación del usuario
+        assertEquals(cancelledBefore, cancellations.getCancelledCount());
+        assertEquals(abortedBefore, cancellations.getAbortedCallCount());
+    }
+
+    @Test
+    public void rateLimiterPacesBurstsAndBacksOffOn429() throws Exception {
+        MockBackend backend = new MockBackend(3, 5);
+        RateLimiter limiter = new RateLimiter(20, 5, 20, 5);
+        HttpClient client = new HttpClient(new RateLimitedTransport(backend.install(new MockTransport()), limiter));
+
+        // 25 peticiones con ráfaga de 5 a 20/s: las 20 restantes esperan ~1 s
+        long start = System.nanoTime();
+        for (int i = 0; i < 25; i++) {
+            assertNotNull(client.get(CHATS_URL, ChatsListResponse.class, TOKEN).getChats());
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        TokenBucket api = limiter.getBucket(RateLimiter.TrafficClass.API);
+        assertTrue("Burst not paced: " + elapsedMillis + " ms", elapsedMillis >= 800);
+        assertEquals(25, api.getAcquiredCount());
+        assertTrue(api.getDelayedCount() > 0);
+        // Las imágenes tienen su propio presupuesto
+        assertEquals(0, limiter.getBucket(RateLimiter.TrafficClass.MEDIA).getAcquiredCount());
+
+        // Un 429 reduce el ritmo a la mitad y pausa lo que indique Retry-After
+        RateLimitedTransport throttled = new RateLimitedTransport(new MockTransport()
+                .on("GET", "api/chats/all/",
+                        MockResponse.json(429, "{}").header("Retry-After", "1")), limiter);
+        throttled.execute(new HttpRequest("GET", CHATS_URL)).close();
+        assertEquals(1, api.getThrottledCount());
+        assertEquals(10, api.getRate(), 0.01);
+
+        start = System.nanoTime();
+        throttled.execute(new HttpRequest("GET", CHATS_URL)).close();
+        elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Retry-After not honoured: " + elapsedMillis + " ms", elapsedMillis >= 900);
+
+        // Las respuestas correctas recuperan el ritmo poco a poco
+        for (int i = 0; i < 20; i++) {
+            client.get(CHATS_URL, ChatsListResponse.class, TOKEN);
+        }
+        assertEquals(20, api.getRate(), 0.01);
+
+        // Sin tokens antes del timeout: se informa como timeout, no como cancelación
+        TokenBucket tight = new TokenBucket("tight", 1, 1);
+        tight.acquire(0, null);
+        try {
+            tight.acquire(100, null);
+            fail("Expected a timeout");
+        } catch (SocketTimeoutException expected) {
+            assertTrue(expected.getMessage().startsWith("Rate limited"));
+        }
+    }
+
+    @Test
+    public void replayReproducesRecordedResponses() throws Exception {
+        MockBackend backend = new MockBackend(3, 5);
+        Recording recording = new Recording();
+        HttpClient recordingClient = new HttpClient(
+                new RecordingTransport(backend.install(new MockTransport()), recording));
+
+        String chatId = backend.getChatIds().get(1);
+        String detailUrl = ApiConfig.BASE_URL + "api/chats/id/" + chatId + "/";
+        ChatsListResponse chats = recordingClient.get(CHATS_URL, ChatsListResponse.class, TOKEN);
+        ChatDetailResponse detail = recordingClient.get(detailUrl, ChatDetailResponse.class, TOKEN);
+        UserProfileResponse profile = recordingClient.get(ApiConfig.BASE_URL + "api/users/",
+                UserProfileResponse.class, TOKEN);
+        assertEquals(3, recording.size());
+
+        File file = File.createTempFile("recording", ".json");
+        file.deleteOnExit();
+        recording.save(file);
+
+        MockTransport replay = Recording.load(file).replayInto(new MockTransport());
+        HttpClient replayClient = new HttpClient(replay);
+        ChatsListResponse replayedChats = replayClient.get(CHATS_URL, ChatsListResponse.class, TOKEN);
+        ChatDetailResponse replayedDetail = replayClient.get(detailUrl, ChatDetailResponse.class, TOKEN);
+        UserProfileResponse replayedProfile = replayClient.get(ApiConfig.BASE_URL + "api/users/",
+                UserProfileResponse.class, TOKEN);
+
+        assertEquals(chats.getChats().size(), replayedChats.getChats().size());
+        assertEquals(chats.getChats().get(2).getId(), replayedChats.getChats().get(2).getId());
+        assertEquals(detail.getId(), replayedDetail.getId());
+        assertEquals(detail.getMessages().size(), replayedDetail.getMessages().size());
+        assertEquals(profile.getUsername(), replayedProfile.getUsername());
+        assertEquals(3, replay.getTotalRequestCount());
+    }
+
+    /**
+     * Cada endpoint tiene peticiones y latencias registradas en HttpMetrics
+     */
+    private static void assertMetricsRecorded(String... endpoints) {
+        for (String endpoint : endpoints) {
+            HttpMetrics.EndpointStats stats = HttpMetrics.getInstance().getStats(endpoint);
+            assertNotNull("No metrics for " + endpoint, stats);
+            assertTrue(endpoint, stats.getRequestCount() > 0);
+            assertTrue(endpoint, stats.getHistogram(HttpMetrics.Phase.TOTAL).getCount() > 0);
+        }
+    }
+}
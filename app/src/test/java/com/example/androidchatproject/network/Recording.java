@@ -0,0 +1,104 @@
+package com.example.androidchatproject.network;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Intercambios HTTP grabados con RecordingTransport, guardables como JSON
+ * Al reproducirlos, cada endpoint devuelve sus respuestas en el orden grabado
+ * y repite la última cuando se acaban.
+ */
+public class Recording {
+
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    static final class Exchange {
+        String method;
+        String path;
+        int code;
+        Map<String, List<String>> headers;
+        String body;
+    }
+
+    private final List<Exchange> exchanges = new ArrayList<>();
+
+    synchronized void add(String method, String endpoint, int code, Map<String, List<String>> headers, byte[] body) {
+        Exchange exchange = new Exchange();
+        exchange.method = method;
+        // La plantilla empieza por el método: "GET api/chats/all/"
+        exchange.path = endpoint.substring(method.length() + 1);
+        exchange.code = code;
+        exchange.headers = headers;
+        exchange.body = new String(body, StandardCharsets.UTF_8);
+        exchanges.add(exchange);
+    }
+
+    public synchronized int size() {
+        return exchanges.size();
+    }
+
+    public synchronized void save(File file) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            gson.toJson(exchanges, writer);
+        }
+    }
+
+    public static Recording load(File file) throws IOException {
+        Recording recording = new Recording();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            List<Exchange> loaded = gson.fromJson(reader, new TypeToken<List<Exchange>>() { }.getType());
+            if (loaded != null) {
+                recording.exchanges.addAll(loaded);
+            }
+        }
+        return recording;
+    }
+
+    /**
+     * Registra las respuestas grabadas en el transporte
+     */
+    public synchronized MockTransport replayInto(MockTransport transport) {
+        Map<String, List<MockResponse>> byEndpoint = new LinkedHashMap<>();
+        for (Exchange exchange : exchanges) {
+            MockResponse response = new MockResponse(exchange.code, exchange.body.getBytes(StandardCharsets.UTF_8));
+            if (exchange.headers != null) {
+                for (Map.Entry<String, List<String>> header : exchange.headers.entrySet()) {
+                    for (String value : header.getValue()) {
+                        response.header(header.getKey(), value);
+                    }
+                }
+            }
+            byEndpoint.computeIfAbsent(exchange.method + " " + exchange.path, key -> new ArrayList<>()).add(response);
+        }
+
+        for (Map.Entry<String, List<MockResponse>> entry : byEndpoint.entrySet()) {
+            String key = entry.getKey();
+            int space = key.indexOf(' ');
+            List<MockResponse> responses = entry.getValue();
+            int[] next = {0};
+            transport.on(key.substring(0, space), key.substring(space + 1), (request, body) -> {
+                synchronized (next) {
+                    MockResponse response = responses.get(Math.min(next[0], responses.size() - 1));
+                    next[0]++;
+                    return response;
+                }
+            });
+        }
+        return transport;
+    }
+}
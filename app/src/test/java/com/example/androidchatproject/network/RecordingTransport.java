@@ -0,0 +1,58 @@
+package com.example.androidchatproject.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transporte que delega en otro (ej: OkHttpTransport contra el backend real)
+ * y graba cada respuesta en un Recording para reproducirla luego sin red
+ * El cuerpo se guarda ya descomprimido, sin Content-Encoding ni Content-Length.
+ */
+public class RecordingTransport implements HttpTransport {
+
+    private final HttpTransport delegate;
+    private final Recording recording;
+
+    public RecordingTransport(HttpTransport delegate, Recording recording) {
+        this.delegate = delegate;
+        this.recording = recording;
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        HttpResponse response = delegate.execute(request);
+        byte[] body;
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        try (HttpResponse original = response;
+             InputStream in = ContentEncoding.decode(original, request.getUrl())) {
+            body = readAll(in);
+            for (Map.Entry<String, List<String>> header : original.getHeaders().entrySet()) {
+                String name = header.getKey();
+                if (name != null && !name.equalsIgnoreCase("Content-Encoding")
+                        && !name.equalsIgnoreCase("Content-Length")) {
+                    headers.put(name, header.getValue());
+                }
+            }
+        }
+
+        recording.add(request.getMethod(), EndpointTemplate.of(request.getMethod(), request.getUrl()),
+                response.getCode(), headers, body);
+        return new HttpResponse(response.getCode(), response.getMessage(), headers,
+                new ByteArrayInputStream(body), null).timings(response.getTimings());
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
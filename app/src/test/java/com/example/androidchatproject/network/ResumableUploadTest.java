@@ -0,0 +1,237 @@
+package com.example.androidchatproject.network;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * ResumableUpload contra un servidor tus mínimo levantado en la máquina local
+ */
+public class ResumableUploadTest {
+
+    private static final int FILE_SIZE = 300 * 1024;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private HttpServer server;
+    private String endpoint;
+    private final Map<String, ByteArrayOutputStream> uploads = new ConcurrentHashMap<>();
+    private final Map<String, Long> lengths = new ConcurrentHashMap<>();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicInteger deleteCount = new AtomicInteger();
+    private volatile long dropPatchAfterBytes = -1;
+    private byte[] file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new byte[FILE_SIZE];
+        new Random(42).nextBytes(file);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/files", this::handle);
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/files";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void uploadsWholeFileInChunksWithProgress() throws IOException {
+        List<Long> progress = new ArrayList<>();
+        ResumableUpload upload = newUpload().progressListener((uploaded, total) -> progress.add(uploaded));
+
+        assertEquals(ResumableUpload.State.COMPLETED, upload.run());
+
+        assertArrayEquals(file, stored(upload));
+        assertEquals(Long.valueOf(0), progress.get(0));
+        assertEquals(Long.valueOf(FILE_SIZE), progress.get(progress.size() - 1));
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i) >= progress.get(i - 1));
+        }
+    }
+
+    @Test
+    public void resumesFromServerOffsetAfterConnectionDrop() throws IOException {
+        dropPatchAfterBytes = CHUNK_SIZE + 20 * 1024; // se corta en medio de la segunda parte
+
+        ResumableUpload upload = newUpload();
+        assertEquals(ResumableUpload.State.COMPLETED, upload.run());
+
+        assertArrayEquals(file, stored(upload));
+        // Solo se reenvía la parte interrumpida, no el archivo entero
+        assertTrue(bytesReceived.get() < FILE_SIZE + CHUNK_SIZE);
+    }
+
+    @Test
+    public void pauseStopsAfterCurrentChunkAndRunContinues() throws IOException {
+        ResumableUpload upload = newUpload();
+        upload.progressListener((uploaded, total) -> {
+            if (uploaded >= 2 * CHUNK_SIZE) {
+                upload.pause();
+            }
+        });
+
+        assertEquals(ResumableUpload.State.PAUSED, upload.run());
+        long pausedAt = upload.getOffset();
+        assertTrue(pausedAt >= 2 * CHUNK_SIZE && pausedAt < FILE_SIZE);
+
+        upload.progressListener(null);
+        assertEquals(ResumableUpload.State.COMPLETED, upload.run());
+        assertArrayEquals(file, stored(upload));
+        assertEquals(FILE_SIZE, bytesReceived.get());
+    }
+
+    @Test
+    public void resumeFromUrlContinuesUploadCreatedEarlier() throws IOException {
+        ResumableUpload first = newUpload();
+        first.progressListener((uploaded, total) -> {
+            if (uploaded >= CHUNK_SIZE) {
+                first.pause();
+            }
+        });
+        assertEquals(ResumableUpload.State.PAUSED, first.run());
+
+        // Nueva instancia, como tras reiniciar la app
+        ResumableUpload second = newUpload().resumeFrom(first.getUploadUrl());
+        assertEquals(ResumableUpload.State.COMPLETED, second.run());
+        assertArrayEquals(file, stored(second));
+        assertEquals(FILE_SIZE, bytesReceived.get());
+    }
+
+    @Test
+    public void cancelAbortsAndTerminatesUpload() throws IOException {
+        ResumableUpload upload = newUpload();
+        upload.progressListener((uploaded, total) -> {
+            if (uploaded >= CHUNK_SIZE) {
+                upload.cancel();
+            }
+        });
+
+        assertEquals(ResumableUpload.State.CANCELLED, upload.run());
+        assertEquals(1, deleteCount.get());
+        assertTrue(bytesReceived.get() < FILE_SIZE);
+    }
+
+    @Test
+    public void givesUpAfterMaxRetries() {
+        server.stop(0);
+        ResumableUpload upload = newUpload().maxRetries(2);
+        try {
+            upload.run();
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            assertEquals(ResumableUpload.State.FAILED, upload.getState());
+        }
+    }
+
+    // ==================== HELPERS ====================
+
+    private ResumableUpload newUpload() {
+        return new ResumableUpload(HttpClient.getDefaultTransport(), endpoint,
+                () -> new ByteArrayInputStream(file), file.length)
+                .metadata("audio.m4a", "audio/mp4")
+                .chunkSize(CHUNK_SIZE)
+                .retryDelayMillis(10);
+    }
+
+    private byte[] stored(ResumableUpload upload) {
+        String id = upload.getUploadUrl().substring(upload.getUploadUrl().lastIndexOf('/') + 1);
+        return uploads.get(id).toByteArray();
+    }
+
+    /**
+     * Servidor tus mínimo: creación, HEAD, PATCH y DELETE
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String id = path.substring(path.lastIndexOf('/') + 1);
+
+        if ("POST".equals(method)) {
+            String newId = "u" + (uploads.size() + 1);
+            uploads.put(newId, new ByteArrayOutputStream());
+            lengths.put(newId, Long.parseLong(exchange.getRequestHeaders().getFirst("Upload-Length")));
+            exchange.getResponseHeaders().add("Location", "/files/" + newId);
+            exchange.sendResponseHeaders(201, -1);
+            exchange.close();
+            return;
+        }
+
+        ByteArrayOutputStream stored = uploads.get(id);
+        if (stored == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        switch (method) {
+            case "HEAD":
+                exchange.getResponseHeaders().add("Upload-Offset", String.valueOf(stored.size()));
+                exchange.getResponseHeaders().add("Upload-Length", String.valueOf(lengths.get(id)));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+
+            case "PATCH":
+                long offset = Long.parseLong(exchange.getRequestHeaders().getFirst("Upload-Offset"));
+                if (offset != stored.size()) {
+                    exchange.sendResponseHeaders(409, -1);
+                    exchange.close();
+                    return;
+                }
+                InputStream in = exchange.getRequestBody();
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    long drop = dropPatchAfterBytes;
+                    if (drop >= 0 && stored.size() + read > drop) {
+                        // Simular corte de red: guardar lo recibido hasta ahí y cerrar sin responder
+                        int keep = (int) (drop - stored.size());
+                        stored.write(buffer, 0, keep);
+                        bytesReceived.addAndGet(keep);
+                        dropPatchAfterBytes = -1;
+                        exchange.getResponseBody().close();
+                        exchange.close();
+                        return;
+                    }
+                    stored.write(buffer, 0, read);
+                    bytesReceived.addAndGet(read);
+                }
+                exchange.getResponseHeaders().add("Upload-Offset", String.valueOf(stored.size()));
+                exchange.sendResponseHeaders(204, -1);
+                exchange.close();
+                return;
+
+            case "DELETE":
+                deleteCount.incrementAndGet();
+                uploads.remove(id);
+                exchange.sendResponseHeaders(204, -1);
+                exchange.close();
+                return;
+
+            default:
+                exchange.sendResponseHeaders(405, -1);
+                exchange.close();
+        }
+    }
+}